@@ -17,6 +17,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.Consumer;
 
 import kiss.I;
@@ -59,47 +61,58 @@ public class Database extends ArrayList<Unit> implements Storable<Database> {
         I.info("Loaded unit data.");
     }
 
+    /**
+     * The source of ids, placements, skills and abilities. "local" reads them from the game tables
+     * decoded under {@link LocalTables#DEFAULT}, anything else downloads the community dumps.
+     */
+    private static final String SOURCE = I.env("AstroDataSource", "remote");
+
+    /** The number of units whose wiki pages are requested ahead of the one being built. */
+    private static final int PREFETCH = 32;
+
     /**
      * Builds the unit list by parsing data from the Aigis Wiki and other sources.
      * Updates the internal list and sorts units by ID.
      */
     public void build() {
+        build(SOURCE.equals("local") ? new LocalTables(LocalTables.DEFAULT) : null);
+    }
+
+    /**
+     * Builds the unit list by parsing data from the Aigis Wiki and the specified tables.
+     * Updates the internal list and sorts units by ID.
+     *
+     * @param tables The locally decoded tables, or null to download the community dumps instead.
+     */
+    public void build(LocalTables tables) {
         clear();
 
         Set<String> recorder = new HashSet();
 
+        List<String> names = new ArrayList<>();
         for (String name : names()) {
-            try {
-                if (name.equals("Prince") || name.startsWith("Prince (") || name.equals("Chibi Prince")) {
-                    continue; // Skip Prince units
-                }
-
-                Unit unit = new Unit();
-                unit.parseWikiCharacterDataByName(name);
-
-                if (Astro.NOT_IMPLEMENTED.contains(unit.nameJ)) {
-                    continue; // Skip not implemented units
-                }
-
-                unit.parseWikiStatsByName(name);
-                unit.parseAigisLoader();
-                unit.parseAigisTool();
-                unit.analyzeEffect();
-
-                if (unit.name == null) {
-                    throw new Error("Failed to parse unit data for: " + name);
-                } else if (!unit.rarity.isColored()) {
-                    continue; // Skip non-rare units
-                }
+            if (name.equals("Prince") || name.startsWith("Prince (") || name.equals("Chibi Prince")) {
+                continue; // Skip Prince units
+            }
+            names.add(name);
+        }
 
-                add(unit);
+        // The wiki pages of the next units are requested ahead and downloaded at the pace of the
+        // per-host limiter of WebPage, while the units are added here one by one in the original
+        // order, so the naming of the duplicated units and the sequence numbers don't depend on the
+        // download order.
+        List<CompletableFuture<Sources>> sources = new ArrayList<>(names.size());
+        for (int i = 0; i < names.size(); i++) {
+            while (sources.size() < names.size() && sources.size() <= i + PREFETCH) {
+                sources.add(fetch(names.get(sources.size())));
+            }
 
-                if (!recorder.add(unit.nameJ)) {
-                    // 英傑（白）は名前が被っているので少し弄る
-                    unit.nameJ = unit.nameJ + "（白）";
-                    unit.event = true;
-                }
-            } catch (Exception e) {
+            String name = names.get(i);
+            try {
+                build(name, await(sources.get(i)), tables, recorder);
+            } catch (Throwable e) {
+                // the units ahead don't request their stats pages any more
+                sources.forEach(future -> future.cancel(false));
                 I.error("Failed to parse unit data for: " + name, e);
                 throw e;
             }
@@ -116,6 +129,73 @@ public class Database extends ArrayList<Unit> implements Storable<Database> {
         fixNotImplementedUnits();
     }
 
+    /**
+     * Download the wiki pages of the unit. The stats page is requested only after the unit page
+     * shows that the unit is implemented. Only the Japanese name is read here, the pages are
+     * parsed on the building thread because the parsing updates the shared professions.
+     */
+    private static CompletableFuture<Sources> fetch(String name) {
+        return Unit.sourceByNameAsync(name).thenCompose(character -> {
+            if (Astro.NOT_IMPLEMENTED.contains(Unit.nameJBySource(character))) {
+                return CompletableFuture.completedFuture(new Sources(character, null));
+            }
+            return Unit.sourceByNameAsync(name + "/stats").thenApply(stats -> new Sources(character, stats));
+        });
+    }
+
+    /**
+     * Parse the unit from its downloaded wiki pages and add it unless it is skipped.
+     */
+    private void build(String name, Sources sources, LocalTables tables, Set<String> recorder) {
+        Unit unit = new Unit();
+        unit.parseWikiCharacterDataBySource(name, sources.character());
+
+        if (Astro.NOT_IMPLEMENTED.contains(unit.nameJ)) {
+            return; // Skip not implemented units
+        }
+
+        unit.parseWikiStatsBySource(sources.stats());
+        if (tables == null) {
+            unit.parseAigisLoader();
+            unit.parseAigisTool();
+        } else {
+            unit.parseLocalTables(tables);
+        }
+        unit.analyzeEffect();
+
+        if (unit.name == null) {
+            throw new Error("Failed to parse unit data for: " + name);
+        } else if (!unit.rarity.isColored()) {
+            return; // Skip non-rare units
+        }
+
+        add(unit);
+
+        if (!recorder.add(unit.nameJ)) {
+            // 英傑（白）は名前が被っているので少し弄る
+            unit.nameJ = unit.nameJ + "（白）";
+            unit.event = true;
+        }
+    }
+
+    /**
+     * Wait for the downloaded wiki pages, rethrowing the failure of the download as it is.
+     */
+    private static Sources await(CompletableFuture<Sources> sources) {
+        try {
+            return sources.join();
+        } catch (CompletionException e) {
+            throw I.quiet(e.getCause());
+        }
+    }
+
+    /**
+     * The wiki API responses of the unit page and its stats page, which is null for the units
+     * not implemented yet.
+     */
+    private record Sources(String character, String stats) {
+    }
+
     private void fixNotImplementedUnits() {
         for (Unit unit : this) {
             if (Astro.NOT_IMPLEMENTED.contains(unit.nameJ)) {
@@ -0,0 +1,343 @@
+/*
+ * Copyright (C) 2025 Nameless Production Committee
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://opensource.org/licenses/mit-license.php
+ */
+package walhalla.data;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import kiss.I;
+import walhalla.loader.codec.DecodedCache;
+import walhalla.loader.parser.AlParser;
+import walhalla.loader.parser.XmlDocParser;
+import walhalla.loader.parser.data.AlObject;
+import walhalla.loader.parser.data.Alar;
+import walhalla.loader.parser.data.Alar.AlarEntry;
+import walhalla.loader.parser.data.Altb;
+
+/**
+ * Unit facts read directly from the game tables which were downloaded by
+ * {@link walhalla.loader.FileListSync} and decoded locally.
+ * <p>
+ * This is the offline counterpart of the AigisLoader and AigisTools dumps: the card table is
+ * joined with the class, name, skill and ability tables through their cached column indexes, so
+ * every unit costs a few hash probes instead of a download. The file and column names follow the
+ * layout of the community dumps and are collected here in one place. The release year and the
+ * event flag are not held by any game table, so they still come from the AigisTools dump.
+ * </p>
+ */
+public class LocalTables {
+
+    /** The default directory of the raw game files. */
+    public static final Path DEFAULT = Path.of(".data/raw");
+
+    /** The card table is not an AL file but the obfuscated XML document "cards". */
+    static final String CARDS = "GRs733a4";
+
+    /** The archive which holds the class table. */
+    static final String PLAYER_UNITS = "PlayerUnitTable.aar";
+
+    static final String CLASSES = "ClassData.atb";
+
+    static final String BATTLE_STYLES = "ClassBattleStyleConfig.atb";
+
+    static final String TOKENS = "TokenUnitConfig.atb";
+
+    static final String NAMES = "NameText.atb";
+
+    static final String SKILLS = "SkillList.atb";
+
+    static final String SKILL_TEXTS = "SkillText.atb";
+
+    static final String ABILITIES = "AbilityList.atb";
+
+    static final String ABILITY_TEXTS = "AbilityText.atb";
+
+    static final String CARD_ID = "CardID";
+
+    static final String RARITY = "Rare";
+
+    static final String INIT_CLASS = "InitClassID";
+
+    static final String CLASS_ID = "ClassID";
+
+    static final String APPROACH = "ApproachFlag";
+
+    static final String BATTLE_STYLE_ID = "Data_ID";
+
+    static final String RANGE = "_Range_01";
+
+    static final String SUMMON = "Param_SummonUnit";
+
+    static final String SKILL = "ClassLV0SkillID";
+
+    static final String SKILL_AW = "ClassLV1SkillID";
+
+    static final String ABILITY = "Ability_Default";
+
+    static final String ABILITY_AW = "Ability";
+
+    static final String NAME = "Message";
+
+    static final String SKILL_NAME = "SkillName";
+
+    static final String SKILL_TEXT_ID = "ID_Text";
+
+    static final String SKILL_TEXT = "Data_Text";
+
+    static final String ABILITY_NAME = "AbilityName";
+
+    static final String ABILITY_TEXT_ID = "AbilityTextID";
+
+    static final String ABILITY_TEXT = "AbilityText";
+
+    private final Altb cards;
+
+    private final Altb classes;
+
+    private final Altb battleStyles;
+
+    private final Altb tokens;
+
+    private final Altb names;
+
+    private final Altb skills;
+
+    private final Altb skillTexts;
+
+    private final Altb abilities;
+
+    private final Altb abilityTexts;
+
+    /**
+     * Load all tables from the directory.
+     *
+     * @param directory The directory of the raw game files.
+     * @throws IllegalStateException If a table is missing or is not a table.
+     */
+    public LocalTables(Path directory) {
+        this(document(directory, CARDS), archived(directory, PLAYER_UNITS, CLASSES), table(directory, BATTLE_STYLES), table(directory, TOKENS), table(directory, NAMES), table(directory, SKILLS), table(directory, SKILL_TEXTS), table(directory, ABILITIES), table(directory, ABILITY_TEXTS));
+    }
+
+    LocalTables(Altb cards, Altb classes, Altb battleStyles, Altb tokens, Altb names, Altb skills, Altb skillTexts, Altb abilities, Altb abilityTexts) {
+        this.cards = cards;
+        this.classes = classes;
+        this.battleStyles = battleStyles;
+        this.tokens = tokens;
+        this.names = names;
+        this.skills = skills;
+        this.skillTexts = skillTexts;
+        this.abilities = abilities;
+        this.abilityTexts = abilityTexts;
+    }
+
+    /**
+     * Test whether the directory holds every table.
+     *
+     * @param directory The directory of the raw game files.
+     * @return true when the tables can be loaded.
+     */
+    public static boolean available(Path directory) {
+        for (String name : List.of(CARDS, PLAYER_UNITS, BATTLE_STYLES, TOKENS, NAMES, SKILLS, SKILL_TEXTS, ABILITIES, ABILITY_TEXTS)) {
+            if (!Files.isRegularFile(directory.resolve(name))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Altb table(Path directory, String name) {
+        AlObject object = new AlParser().parse(DecodedCache.DEFAULT.decompress(file(directory, name)));
+        if (object instanceof Altb) {
+            return (Altb) object;
+        }
+        throw new IllegalStateException(name + " is not a table but " + object.getClass().getSimpleName());
+    }
+
+    private static Altb archived(Path directory, String archive, String name) {
+        AlObject object = new AlParser().parse(DecodedCache.DEFAULT.decompress(file(directory, archive)));
+        if (object instanceof Alar) {
+            Optional<AlObject> entry = ((Alar) object).find(name).map(AlarEntry::value);
+            if (entry.isPresent() && entry.get() instanceof Altb) {
+                return (Altb) entry.get();
+            }
+            throw new IllegalStateException("Table " + name + " is not found in " + archive + ".");
+        }
+        throw new IllegalStateException(archive + " is not an archive but " + object.getClass().getSimpleName());
+    }
+
+    private static Altb document(Path directory, String name) {
+        try {
+            return XmlDocParser.parse(Files.readAllBytes(file(directory, name)), name);
+        } catch (IOException e) {
+            throw I.quiet(e);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException(name + " is not an XML document.", e);
+        }
+    }
+
+    private static Path file(Path directory, String name) {
+        Path file = directory.resolve(name);
+        if (!Files.isRegularFile(file)) {
+            throw new IllegalStateException("Table " + name + " is not found in " + directory + ". Run DecodeFileList first.");
+        }
+        return file;
+    }
+
+    /**
+     * Find the card by its Japanese name. The n-th name belongs to the card whose id is n + 1.
+     * <p>
+     * The black and platinum heroes share their name, so a name with several cards is resolved by
+     * the rarity, the same as the AigisLoader dump tells them apart by 【黒英傑】 and 【白金英傑】.
+     * </p>
+     *
+     * @param name The Japanese name of the unit.
+     * @param rarity The rarity of the unit.
+     * @return The row in the card table, or -1 when there is none.
+     */
+    public int card(String name, Rarity rarity) {
+        int[] rows = names.index(NAME).rows(name);
+        List<Integer> cards = new ArrayList();
+        for (int row : rows) {
+            int card = this.cards.index(CARD_ID).first(row + 1);
+            if (card != -1) {
+                cards.add(card);
+            }
+        }
+
+        if (cards.size() <= 1) {
+            return cards.isEmpty() ? -1 : cards.get(0);
+        }
+        for (int card : cards) {
+            if (rarity(card) == rarity) {
+                return card;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param card The row in the card table.
+     * @return The rarity, or null when the table uses an unknown code.
+     */
+    public Rarity rarity(int card) {
+        return switch (value(cards, CARDS, card, RARITY, -1)) {
+        case 0 -> Rarity.鉄;
+        case 1 -> Rarity.銅;
+        case 2 -> Rarity.銀;
+        case 3 -> Rarity.金;
+        case 4 -> Rarity.白;
+        case 5 -> Rarity.黒;
+        case 7 -> Rarity.青;
+        default -> null;
+        };
+    }
+
+    /**
+     * @param card The row in the card table.
+     * @return The card id.
+     */
+    public int id(int card) {
+        return cards.getInt(card, CARD_ID);
+    }
+
+    /**
+     * Derive the placement of the card from its class, as the card table has no such column.
+     * <p>
+     * A card which some unit summons is a token. Otherwise the class tells ranged from melee by
+     * its approach flag, and a melee class whose battle style has a range attacks from both.
+     * </p>
+     *
+     * @param card The row in the card table.
+     * @return The placement, {@link PlaceType#未定} when the class is unknown.
+     */
+    public PlaceType place(int card) {
+        if (tokens.index(column(tokens, TOKENS, SUMMON)).first(id(card)) != -1) {
+            return PlaceType.トークン;
+        }
+
+        int type = value(cards, CARDS, card, INIT_CLASS, 0);
+        int row = classes.index(column(classes, CLASSES, CLASS_ID)).first(type);
+        if (row == -1) {
+            return PlaceType.未定;
+        }
+        if (value(classes, CLASSES, row, APPROACH, 1) == 0) {
+            return PlaceType.遠距離;
+        }
+
+        // the battle styles are shared by the class family, whose id is rounded down to hundreds
+        int style = battleStyles.index(column(battleStyles, BATTLE_STYLES, BATTLE_STYLE_ID)).first(type / 100 * 100);
+        return style != -1 && value(battleStyles, BATTLE_STYLES, style, RANGE, 0) != 0 ? PlaceType.遠近両用 : PlaceType.近接;
+    }
+
+    /**
+     * List the skill of the card as pairs of name and description.
+     *
+     * @param card The row in the card table.
+     * @param awakened true to get the awakened skill.
+     * @return The names and descriptions, empty when the card has no skill.
+     */
+    public List<String> skill(int card, boolean awakened) {
+        int id = value(cards, CARDS, card, awakened ? SKILL_AW : SKILL, 0);
+        return describe(id, skills, SKILL_NAME, SKILL_TEXT_ID, skillTexts, SKILL_TEXT);
+    }
+
+    /**
+     * List the ability of the card as pairs of name and description.
+     *
+     * @param card The row in the card table.
+     * @param awakened true to get the awakened ability.
+     * @return The names and descriptions, empty when the card has no ability.
+     */
+    public List<String> ability(int card, boolean awakened) {
+        int id = value(cards, CARDS, card, awakened ? ABILITY_AW : ABILITY, 0);
+        return describe(id, abilities, ABILITY_NAME, ABILITY_TEXT_ID, abilityTexts, ABILITY_TEXT);
+    }
+
+    /**
+     * Resolve the entry of the list table whose row is the id, and its text in the text table.
+     */
+    private static List<String> describe(int id, Altb list, String name, String textId, Altb texts, String text) {
+        List<String> values = new ArrayList();
+        if (0 < id && id < list.size) {
+            int row = list.getInt(id, textId);
+            if (0 <= row && row < texts.size) {
+                values.add(list.getString(id, name));
+                values.add(texts.getString(row, text));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Read the int cell of the table, or the default value when the cell is empty.
+     *
+     * @throws IllegalStateException If the table has no such column.
+     */
+    private static int value(Altb table, String file, int row, String column, int defaults) {
+        Altb.Column values = table.column(column(table, file, column));
+        return values.isMissing(row) ? defaults : values.getInt(row);
+    }
+
+    /**
+     * Check that the table has the column.
+     *
+     * @throws IllegalStateException If the table has no such column.
+     */
+    private static String column(Altb table, String file, String column) {
+        if (!table.has(column)) {
+            throw new IllegalStateException("Column " + column + " is not found in " + file + ". The table layout may have changed.");
+        }
+        return column;
+    }
+}
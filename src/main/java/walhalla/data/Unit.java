@@ -18,6 +18,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 import java.util.function.ToIntFunction;
 import java.util.function.UnaryOperator;
@@ -137,18 +138,70 @@ public class Unit {
      * @param name データ名（例: "キャラクター名/サブページ"）
      * @return データの文字列
      */
-    private static String sourceByName(String name) {
+    static String sourceByName(String name) {
+        return WebPage.fetchText(sourceURL(name), sourceTTL(name));
+    }
+
+    /**
+     * 指定した名前に紐づくデータを非同期に取得します。キャッシュが有効な場合は完了済みのFutureを返します。
+     *
+     * @param name データ名（例: "キャラクター名/サブページ"）
+     * @return データの文字列を返すFuture
+     */
+    static CompletableFuture<String> sourceByNameAsync(String name) {
+        return WebPage.fetchTextAsync(sourceURL(name), sourceTTL(name));
+    }
+
+    private static String sourceURL(String name) {
+        return "https://aigis.fandom.com/api.php?action=query&prop=revisions&titles=" + name + "&rvslots=main&rvprop=content&format=json";
+    }
+
+    private static long sourceTTL(String name) {
         int index = name.indexOf("/");
         String characterName = index == -1 ? name : name.substring(0, index);
-        long ttl = 14 * 24 * 60 * 60 * 1000 * (Astro.FORCE_UPDATE.contains(characterName) ? -1 : 1);
-        return WebPage
-                .fetchText("https://aigis.fandom.com/api.php?action=query&prop=revisions&titles=" + name + "&rvslots=main&rvprop=content&format=json", ttl);
+        return 14 * 24 * 60 * 60 * 1000 * (Astro.FORCE_UPDATE.contains(characterName) ? -1 : 1);
     }
 
     void parseWikiCharacterDataByName(String name) {
-        JSON json = I.json(sourceByName(name)).find("query", "pages", "*", "revisions", "*", "slots", "main").get(0);
+        parseWikiCharacterDataBySource(name, sourceByName(name));
+    }
+
+    /**
+     * 取得済みのAPIレスポンスからキャラクターデータを解析します。
+     *
+     * @param name キャラクター名
+     * @param source {@link #sourceByName(String)}で取得したデータ
+     */
+    void parseWikiCharacterDataBySource(String name, String source) {
+        parseWikiCharacterData(name, wikiText(source));
+    }
 
-        parseWikiCharacterData(name, json.toString());
+    /**
+     * 取得済みのAPIレスポンスから日本語名だけを読み出します。他の項目は解析しないので、共有データに触れません。
+     *
+     * @param source {@link #sourceByName(String)}で取得したデータ
+     * @return 日本語名、記載が無い場合はnull
+     */
+    static String nameJBySource(String source) {
+        WikiText wiki = new WikiText(wikiText(source));
+        String[] nameJ = new String[1];
+        wiki.peekSection("Unit infobox", () -> wiki.peekKV("jpname", value -> nameJ[0] = nameJ(value)));
+        return nameJ[0];
+    }
+
+    /**
+     * APIレスポンスからページのWikiテキストを取り出します。
+     */
+    private static String wikiText(String source) {
+        return I.json(source).find("query", "pages", "*", "revisions", "*", "slots", "main").get(0).toString();
+    }
+
+    /**
+     * jpnameの値から日本語名を取り出します。改行以降の読みなどは含めません。
+     */
+    private static String nameJ(String value) {
+        int start = value.toLowerCase().indexOf("<br"); // support <br> and <br /> and <Br>
+        return start == -1 ? value.strip() : value.substring(0, start).strip();
     }
 
     void parseWikiCharacterData(String name, String text) {
@@ -174,12 +227,7 @@ public class Unit {
 
             wiki.peekKV("disableaw", value -> disableAW = value.equals("y") || value.equals("yes") || value.equals("1"));
             wiki.peekKV("jpname", value -> {
-                int start = value.toLowerCase().indexOf("<br"); // support <br> and <br /> and <Br>
-                if (start == -1) {
-                    nameJ = value.strip();
-                } else {
-                    nameJ = value.substring(0, start).strip();
-                }
+                nameJ = nameJ(value);
                 String resoleved = nameJ;
                 if (disableAW) {
                     // Ephtra (Final Battle Black)があるので(Black)ではダメ
@@ -337,7 +385,16 @@ public class Unit {
     }
 
     void parseWikiStatsByName(String name) {
-        JSON json = I.json(sourceByName(name + "/stats")).find("query", "pages", "*", "revisions", "*", "slots", "main").get(0);
+        parseWikiStatsBySource(sourceByName(name + "/stats"));
+    }
+
+    /**
+     * 取得済みのAPIレスポンスからステータスを解析します。
+     *
+     * @param source {@link #sourceByName(String)}で取得した"キャラクター名/stats"のデータ
+     */
+    void parseWikiStatsBySource(String source) {
+        JSON json = I.json(source).find("query", "pages", "*", "revisions", "*", "slots", "main").get(0);
 
         parseWikiStats(json.toString());
     }
@@ -564,30 +621,13 @@ public class Unit {
     }
 
     void parseAigisLoader() {
-        String name = nameJ;
-
-        if (name == null) {
+        if (nameJ == null) {
             return;
         }
 
-        if (attributes.contains(Attribute.Hero)) {
-            name = name.replace("（白）", "").replace("（黒）", "");
-
-            if (rarity == Rarity.黒) {
-                name += "【黒英傑】";
-            } else if (rarity == Rarity.白) {
-                name += "【白金英傑】";
-
-            }
-        }
-
-        JSON json = getCharacterDB().get(name);
+        JSON json = characterData();
         if (json != null) {
-            subNameJ = json.text("subName").replace("ちび", "");
-            if (json.text("class").endsWith("【恋姫】")) {
-                int index = subNameJ.indexOf(" ");
-                if (index != -1) subNameJ = subNameJ.substring(0, index);
-            }
+            subNameJ = subName(json);
             ability = parseSkill(json.text("ability"), "▹", nameJ + "のアビリティ");
             abilityAW = parseSkill(json.text("ability_aw"), "▸", nameJ + "の覚醒アビリティ");
 
@@ -602,6 +642,37 @@ public class Unit {
         }
     }
 
+    /**
+     * AigisLoaderのキャラクターデータを取得します。英傑は【黒英傑】【白金英傑】で区別されます。
+     */
+    private JSON characterData() {
+        String name = nameJ;
+
+        if (attributes.contains(Attribute.Hero)) {
+            name = name.replace("（白）", "").replace("（黒）", "");
+
+            if (rarity == Rarity.黒) {
+                name += "【黒英傑】";
+            } else if (rarity == Rarity.白) {
+                name += "【白金英傑】";
+
+            }
+        }
+        return getCharacterDB().get(name);
+    }
+
+    /**
+     * キャラクターデータからサブネームを取り出します。
+     */
+    private static String subName(JSON json) {
+        String subName = json.text("subName").replace("ちび", "");
+        if (json.text("class").endsWith("【恋姫】")) {
+            int index = subName.indexOf(" ");
+            if (index != -1) subName = subName.substring(0, index);
+        }
+        return subName;
+    }
+
     private static List<String> parseSkill(String text, String separator, String desc) {
         List<String> skills = new ArrayList();
         for (String description : text.split(separator)) {
@@ -645,6 +716,63 @@ public class Unit {
         }
     }
 
+    /**
+     * {@link #parseAigisLoader()}と{@link #parseAigisTool()}がダウンロードする情報を、ローカルでデコードしたゲームのテーブルから読み出します。
+     * 実装年と配布かどうか、サブネームはゲームのテーブルに無いので、引き続きAigisToolsとAigisLoaderのデータから取得します。
+     *
+     * @param tables ローカルのテーブル
+     */
+    void parseLocalTables(LocalTables tables) {
+        if (nameJ == null) {
+            return;
+        }
+
+        String name = nameJ;
+        if (attributes.contains(Attribute.Hero)) {
+            name = name.replace("（白）", "").replace("（黒）", "");
+        }
+
+        int card = tables.card(name, rarity);
+        if (card == -1) {
+            throw new IllegalStateException("Cannot find unit data for " + nameJ + " in the local tables. Please decode the latest files.");
+        }
+
+        id = tables.id(card);
+        place = tables.place(card);
+
+        JSON json = getCardDB().get(nameJ);
+        if (json != null) {
+            year = json.get(int.class, "year");
+            event = hero ? false : json.get(int.class, "isEvent") == 1;
+        }
+
+        JSON character = characterData();
+        if (character == null) {
+            throw new IllegalStateException("Cannot find unit data for " + nameJ + ". Please check the name or update the database.");
+        }
+        subNameJ = subName(character);
+
+        ability = proofread(tables.ability(card, false), nameJ + "のアビリティ");
+        abilityAW = proofread(tables.ability(card, true), nameJ + "の覚醒アビリティ");
+
+        if (abilityAW.isEmpty() && rarity.isRare() && !ability.isEmpty()) {
+            abilityAW.addAll(ability);
+        }
+
+        skill = proofread(tables.skill(card, false), nameJ + "のスキル");
+        skillAW = proofread(tables.skill(card, true), nameJ + "の覚醒スキル");
+    }
+
+    /**
+     * Fix the descriptions of the name and description pairs, the same as {@link #parseSkill}.
+     */
+    private static List<String> proofread(List<String> pairs, String desc) {
+        for (int i = 1; i < pairs.size(); i += 2) {
+            pairs.set(i, Proofreader.fix(pairs.get(i), desc));
+        }
+        return pairs;
+    }
+
     /**
      * {@inheritDoc}
      */
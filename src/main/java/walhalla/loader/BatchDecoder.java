@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) 2025 Nameless Production Committee
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://opensource.org/licenses/mit-license.php
+ */
+package walhalla.loader;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import psychopath.File;
+import psychopath.Locator;
+import walhalla.loader.codec.DecodedCache;
+import walhalla.loader.parser.AlParser;
+import walhalla.loader.parser.data.AlObject;
+import walhalla.loader.writer.AlWriter;
+import walhalla.loader.writer.TableFormat;
+
+/**
+ * Decodes the whole asset tree in parallel. Every file is parsed by its own {@link AlParser} and
+ * written by its own {@link AlWriter} on a bounded {@link ForkJoinPool}, and the timing of each
+ * file is collected into a {@link Report}. Compressed payloads are served from the
+ * {@link DecodedCache} when the raw file has not changed. Archives are parsed lazily and tables
+ * are kept as primitive columns which the writer streams out, so the memory use doesn't grow with
+ * the size of the asset tree.
+ */
+public class BatchDecoder {
+
+    public static void main(String[] args) {
+        Report report = new BatchDecoder(Path.of(".data/raw"), Path.of(".data/decoded"), Runtime.getRuntime().availableProcessors())
+                .decode("**.atb", "**.aar", "**.atx");
+
+        for (Result result : report.results) {
+            System.out.println(result);
+        }
+        System.out.println(report);
+    }
+
+    /** The root directory of the raw assets. */
+    private final Path input;
+
+    /** The root directory of the decoded output. */
+    private final Path output;
+
+    /** The maximum number of files decoded at the same time. */
+    private final int parallelism;
+
+    /** The output format of the tables. */
+    private TableFormat format = TableFormat.TEXT;
+
+    /**
+     * @param input The root directory of the raw assets.
+     * @param output The root directory of the decoded output.
+     * @param parallelism The maximum number of files decoded at the same time.
+     */
+    public BatchDecoder(Path input, Path output, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        this.input = input;
+        this.output = output;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Configure the output format of the tables.
+     *
+     * @param format The table format, {@link TableFormat#TEXT} by default.
+     * @return Chainable API.
+     */
+    public BatchDecoder format(TableFormat format) {
+        this.format = format;
+        return this;
+    }
+
+    /**
+     * Decode all files which match the specified glob patterns.
+     *
+     * @param patterns The glob patterns relative to the input directory.
+     * @return The timing report.
+     */
+    public Report decode(String... patterns) {
+        List<File> files = Locator.directory(input).walkFile(patterns).toList();
+        List<Callable<Result>> tasks = new ArrayList<>(files.size());
+        for (File file : files) {
+            tasks.add(() -> decode(file.asJavaPath()));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            long start = System.nanoTime();
+            List<Result> results = new ArrayList<>(files.size());
+            for (Future<Result> future : pool.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+            return new Report(results, System.nanoTime() - start);
+        } catch (Exception e) {
+            throw new IllegalStateException("Batch decoding was interrupted.", e);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Decode the single file. Failures are recorded in the result instead of stopping the batch.
+     */
+    private Result decode(Path file) {
+        Path relative = input.relativize(file);
+        long start = System.nanoTime();
+        try {
+            AlObject object = new AlParser().lazy(true).parse(DecodedCache.DEFAULT.decompress(file));
+            new AlWriter(output.resolve(relative).toString()).format(format).write(object);
+            return new Result(relative, file.toFile().length(), System.nanoTime() - start, null);
+        } catch (Throwable e) {
+            return new Result(relative, file.toFile().length(), System.nanoTime() - start, e);
+        }
+    }
+
+    /**
+     * The outcome of the single file.
+     */
+    public static class Result {
+
+        /** The file path relative to the input directory. */
+        public final Path file;
+
+        /** The raw file size in bytes. */
+        public final long bytes;
+
+        /** The time spent on parsing and writing. */
+        public final long nanos;
+
+        /** The failure cause, or null when the file was decoded successfully. */
+        public final Throwable error;
+
+        Result(Path file, long bytes, long nanos, Throwable error) {
+            this.file = file;
+            this.bytes = bytes;
+            this.nanos = nanos;
+            this.error = error;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return String.format("%8.2fms %10d bytes %s%s", nanos / 1_000_000d, bytes, file, error == null ? "" : " FAILED " + error);
+        }
+    }
+
+    /**
+     * The aggregated timing of the whole batch.
+     */
+    public static class Report {
+
+        /** The outcome of each file in the walking order. */
+        public final List<Result> results;
+
+        /** The wall-clock time of the whole batch. */
+        public final long nanos;
+
+        Report(List<Result> results, long nanos) {
+            this.results = results;
+            this.nanos = nanos;
+        }
+
+        /**
+         * @return The number of failed files.
+         */
+        public long failures() {
+            return results.stream().filter(r -> r.error != null).count();
+        }
+
+        /**
+         * @return The total size of the raw input in bytes.
+         */
+        public long bytes() {
+            return results.stream().mapToLong(r -> r.bytes).sum();
+        }
+
+        /**
+         * @return The number of files decoded per second.
+         */
+        public double filesPerSecond() {
+            return results.size() / seconds();
+        }
+
+        /**
+         * @return The raw input decoded per second in megabytes.
+         */
+        public double megabytesPerSecond() {
+            return bytes() / 1024d / 1024d / seconds();
+        }
+
+        private double seconds() {
+            return Math.max(nanos, 1) / 1_000_000_000d;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return String.format("Decoded %d files (%d failed, %.1f MB) in %.2fs : %.1f files/s, %.1f MB/s", results.size(), failures(), bytes() / 1024d / 1024d, seconds(), filesPerSecond(), megabytesPerSecond());
+        }
+    }
+}
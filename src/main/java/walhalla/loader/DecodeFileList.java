@@ -10,52 +10,46 @@
 package walhalla.loader;
 
 import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 
-import psychopath.File;
-import psychopath.Locator;
+import walhalla.loader.codec.XorDecoder;
 
 public class DecodeFileList {
     // Lua: decode_list(text) = decode(text, 0xea ~ 0x30)
     private static final int DECODE_KEY = 0xea ^ 0x30;
 
+    /** The CDN which serves the listed files. */
+    private static final URI BASE = URI.create("http://drc1bk94f7rq8.cloudfront.net/");
+
     public static void main(String[] args) throws IOException {
         List<String> excludePrefixes = List
                 .of("Texture", "Skin", "Reward", "Stamp", "Shop", "Recommend", "Quest", "Promotion", "PrivateRoom", "PlayerDot", "Payment", "Overlay", "OnCommnad", "Message", "Map", "Sound", "Battle", "EnemyDot", "HarlemCG", "EvtCard");
 
-        File file = Locator.file("src/main/resources/1fp32igvpoxnb521p9dqypak5cal0xv0");
-        byte[] data = file.bytes();
-        byte[] decoded = decode(data, DECODE_KEY, 0);
-        String text = new String(decoded);
-        root: for (String line : text.split("\n")) {
-            String[] split = line.split(",");
-            String url = "http://drc1bk94f7rq8.cloudfront.net/" + split[0] + "/" + split[1];
-            String name = split[4];
+        Path file = Path.of("src/main/resources/1fp32igvpoxnb521p9dqypak5cal0xv0");
+        String text = StandardCharsets.UTF_8.decode(XorDecoder.decode(file, DECODE_KEY, 0)).toString();
+
+        List<FileListSync.Entry> entries = new ArrayList<>();
+        root: for (FileListSync.Entry entry : FileListSync.parse(text)) {
+            String name = entry.name;
 
-            if (name.endsWith(".atb")) {
+            if (name.endsWith(".atb") || name.endsWith(".aar") || name.endsWith(".atx")) {
                 for (String prefix : excludePrefixes) {
                     if (name.startsWith(prefix)) {
                         continue root;
                     }
                 }
-
-                // I.http(url, InputStream.class).waitForTerminate().to(input -> {
-                // Locator.file(".data/raw/" + name).writeFrom(input);
-                // });
-                //
-                // System.out.println(url + " " + name);
-            } else {
-                System.out.println(url + "   " + name);
+                entries.add(entry);
             }
         }
-    }
 
-    // Java版 decode
-    private static byte[] decode(byte[] text, int key, int offset) {
-        byte[] result = new byte[text.length - offset];
-        for (int i = offset; i < text.length; i++) {
-            result[i - offset] = (byte) (text[i] ^ key);
+        FileListSync.Report report = new FileListSync(BASE, Path.of(".data/raw"), 8).sync(entries);
+        for (FileListSync.Result result : report.results) {
+            System.out.println(result);
         }
-        return result;
+        System.out.println(report);
     }
 }
\ No newline at end of file
@@ -0,0 +1,386 @@
+/*
+ * Copyright (C) 2025 Nameless Production Committee
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://opensource.org/licenses/mit-license.php
+ */
+package walhalla.loader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Mirrors the files of the decoded CDN file list into a local directory.
+ * <p>
+ * The list is diffed against the manifest of the previous run, so only new or changed files are
+ * fetched. Downloads run on a bounded pool and are written to a {@code .part} file first; an
+ * interrupted download is resumed with a {@code Range} request and published by renaming. Every
+ * completed file is appended to the manifest immediately, so a crashed sync loses no finished
+ * work.
+ * </p>
+ */
+public class FileListSync {
+
+    /** The name of the manifest file in the output directory. */
+    public static final String MANIFEST = ".manifest";
+
+    /** The base URL of the CDN, ending with a slash. */
+    private final URI base;
+
+    /** The directory which the files are mirrored into. */
+    private final Path output;
+
+    /** The maximum number of concurrent downloads. */
+    private final int concurrency;
+
+    /** The shared client. */
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(20))
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+
+    /**
+     * @param base The base URL of the CDN.
+     * @param output The directory which the files are mirrored into.
+     * @param concurrency The maximum number of concurrent downloads.
+     */
+    public FileListSync(URI base, Path output, int concurrency) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be positive: " + concurrency);
+        }
+        String text = base.toString();
+        this.base = text.endsWith("/") ? base : URI.create(text + "/");
+        this.output = output;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Parse the decoded file list. Each line is {@code directory,hash,type,size,name}.
+     *
+     * @param text The decoded file list.
+     * @return The entries in the listed order.
+     */
+    public static List<Entry> parse(String text) {
+        List<Entry> entries = new ArrayList<>();
+        for (String line : text.split("\n")) {
+            String[] split = line.trim().split(",");
+            if (split.length == 5) {
+                entries.add(new Entry(split[0], split[1], split[2], Long.parseLong(split[3]), split[4]));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Download the entries which are missing or changed since the last sync.
+     *
+     * @param entries The wanted entries.
+     * @return The outcome of this sync.
+     */
+    public Report sync(Collection<Entry> entries) {
+        Map<String, Entry> manifest = readManifest();
+
+        List<Entry> skipped = new ArrayList<>();
+        List<Callable<Result>> tasks = new ArrayList<>();
+        for (Entry entry : entries) {
+            Entry known = manifest.get(entry.name);
+            if (known != null && known.sameContent(entry) && Files.isRegularFile(output.resolve(entry.name))) {
+                skipped.add(entry);
+            } else {
+                tasks.add(() -> download(entry));
+            }
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency);
+        try {
+            long start = System.nanoTime();
+            List<Result> results = new ArrayList<>(tasks.size());
+            for (Future<Result> future : pool.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+            Report report = new Report(results, skipped, System.nanoTime() - start);
+            writeManifest();
+            return report;
+        } catch (Exception e) {
+            throw new IllegalStateException("File list sync was interrupted.", e);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Download the single entry. Failures are recorded in the result instead of stopping the sync.
+     */
+    private Result download(Entry entry) {
+        long start = System.nanoTime();
+        try {
+            long bytes = transfer(entry, true);
+            record(entry);
+            return new Result(entry, bytes, System.nanoTime() - start, null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Result(entry, 0, System.nanoTime() - start, e);
+        } catch (IOException | RuntimeException e) {
+            return new Result(entry, 0, System.nanoTime() - start, e);
+        }
+    }
+
+    /**
+     * Fetch the entry into its part file, resuming from the already written length, then publish
+     * it under its real name once it has the listed size.
+     */
+    private long transfer(Entry entry, boolean resumable) throws IOException, InterruptedException {
+        Path file = output.resolve(entry.name);
+        Path part = output.resolve(entry.name + "." + entry.hash + ".part");
+        Files.createDirectories(file.getParent());
+
+        long offset = resumable && Files.isRegularFile(part) ? Files.size(part) : 0;
+        HttpRequest.Builder request = HttpRequest.newBuilder(entry.uri(base)).timeout(Duration.ofMinutes(5)).GET();
+        if (0 < offset) {
+            request.header("Range", "bytes=" + offset + "-");
+        }
+
+        HttpResponse<InputStream> response = client.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+        int status = response.statusCode();
+        try (InputStream in = response.body()) {
+            if (status == 416 && 0 < offset) {
+                // the part file does not match the remote file anymore, start over
+                Files.delete(part);
+                return transfer(entry, false);
+            }
+            if (status != 200 && status != 206) {
+                throw new IOException("HTTP " + status + " for " + entry.uri(base));
+            }
+
+            // the server may ignore the range and send the whole file, but a partial body must
+            // continue exactly where the part file ends
+            boolean append = status == 206;
+            if (append) {
+                String range = response.headers().firstValue("Content-Range").orElse("");
+                if (!range.startsWith("bytes " + offset + "-")) {
+                    throw new IOException("Content-Range '" + range + "' doesn't start at " + offset + " for " + entry.uri(base));
+                }
+            }
+            try (OutputStream out = Files.newOutputStream(part, StandardOpenOption.CREATE, StandardOpenOption.WRITE, append
+                    ? StandardOpenOption.APPEND
+                    : StandardOpenOption.TRUNCATE_EXISTING)) {
+                in.transferTo(out);
+            }
+        }
+
+        // a short body is resumed by the next sync, a longer one can't be trusted at all
+        long size = Files.size(part);
+        if (size != entry.size) {
+            if (entry.size < size) {
+                Files.delete(part);
+            }
+            throw new IOException("Received " + size + " bytes instead of " + entry.size + " for " + entry.uri(base));
+        }
+        Files.move(part, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return Files.size(file);
+    }
+
+    /**
+     * Read the manifest. The later line wins when the same name is recorded several times.
+     */
+    private Map<String, Entry> readManifest() {
+        Map<String, Entry> manifest = new LinkedHashMap<>();
+        Path file = output.resolve(MANIFEST);
+        if (Files.isRegularFile(file)) {
+            try {
+                for (Entry entry : parse(Files.readString(file, StandardCharsets.UTF_8))) {
+                    manifest.put(entry.name, entry);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return manifest;
+    }
+
+    /**
+     * Append the completed entry to the manifest.
+     */
+    private synchronized void record(Entry entry) throws IOException {
+        Files.writeString(output.resolve(MANIFEST), entry + "\n", StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Compact the appended manifest into one line per name, replacing it atomically.
+     */
+    private synchronized void writeManifest() throws IOException {
+        Collection<Entry> entries = readManifest().values();
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        StringBuilder builder = new StringBuilder();
+        for (Entry entry : entries) {
+            builder.append(entry).append('\n');
+        }
+
+        Path file = output.resolve(MANIFEST);
+        Path temp = Files.createTempFile(output, MANIFEST, ".tmp");
+        try {
+            Files.writeString(temp, builder, StandardCharsets.UTF_8);
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * The single line of the file list.
+     */
+    public static class Entry {
+
+        /** The directory on the CDN. */
+        public final String directory;
+
+        /** The content hash, which is also the file name on the CDN. */
+        public final String hash;
+
+        /** The file type. */
+        public final String type;
+
+        /** The declared file size. */
+        public final long size;
+
+        /** The logical file name. */
+        public final String name;
+
+        public Entry(String directory, String hash, String type, long size, String name) {
+            this.directory = directory;
+            this.hash = hash;
+            this.type = type;
+            this.size = size;
+            this.name = name;
+        }
+
+        /**
+         * Compute the remote location of this entry.
+         *
+         * @param base The base URL of the CDN, ending with a slash.
+         * @return The remote location.
+         */
+        public URI uri(URI base) {
+            return base.resolve(directory + "/" + hash);
+        }
+
+        /**
+         * Test whether the both entries point to the same remote content.
+         */
+        boolean sameContent(Entry other) {
+            return directory.equals(other.directory) && hash.equals(other.hash) && size == other.size;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return String.format("%s,%s,%s,%012d,%s", directory, hash, type, size, name);
+        }
+    }
+
+    /**
+     * The outcome of the single download.
+     */
+    public static class Result {
+
+        /** The downloaded entry. */
+        public final Entry entry;
+
+        /** The size of the written file in bytes. */
+        public final long bytes;
+
+        /** The time spent on downloading. */
+        public final long nanos;
+
+        /** The failure cause, or null when the file was downloaded successfully. */
+        public final Throwable error;
+
+        Result(Entry entry, long bytes, long nanos, Throwable error) {
+            this.entry = entry;
+            this.bytes = bytes;
+            this.nanos = nanos;
+            this.error = error;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return String.format("%8.2fms %10d bytes %s%s", nanos / 1_000_000d, bytes, entry.name, error == null ? "" : " FAILED " + error);
+        }
+    }
+
+    /**
+     * The aggregated outcome of the whole sync.
+     */
+    public static class Report {
+
+        /** The outcome of each download. */
+        public final List<Result> results;
+
+        /** The entries which were already up to date. */
+        public final List<Entry> skipped;
+
+        /** The wall-clock time of the downloads. */
+        public final long nanos;
+
+        Report(List<Result> results, List<Entry> skipped, long nanos) {
+            this.results = results;
+            this.skipped = skipped;
+            this.nanos = nanos;
+        }
+
+        /**
+         * @return The number of failed downloads.
+         */
+        public long failures() {
+            return results.stream().filter(r -> r.error != null).count();
+        }
+
+        /**
+         * @return The total size of the downloaded files in bytes.
+         */
+        public long bytes() {
+            return results.stream().mapToLong(r -> r.bytes).sum();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return String.format("Downloaded %d files (%d failed, %.1f MB), %d up to date, in %.2fs", results.size(), failures(), bytes() / 1024d / 1024d, skipped.size(), Math
+                    .max(nanos, 1) / 1_000_000_000d);
+        }
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright (C) 2025 Nameless Production Committee
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://opensource.org/licenses/mit-license.php
+ */
+package walhalla.loader.codec;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.IntStream;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Pixel decoder of the ALIG images.
+ * <p>
+ * The 16-bit formats are decoded through a 65536-entry lookup table per format, so every pixel is
+ * one little-endian load and one array read. The pixels are written as {@code 0xAARRGGBB}
+ * straight into the raster of a {@link BufferedImage#TYPE_INT_ARGB} image, and large images are
+ * split into row bands which are decoded in parallel, each band reading the source through
+ * absolute loads only.
+ * </p>
+ */
+public final class AligDecoder {
+
+    /** The byte size of the ALIG header in front of the pixels. */
+    public static final int HEADER_SIZE = 0x20;
+
+    /** Images with at least this many pixels are decoded in parallel. */
+    static final int PARALLEL_THRESHOLD = 256 * 256;
+
+    /** The number of rows of a single parallel band. */
+    static final int BAND_ROWS = 32;
+
+    private static final int[] ABG5 = new int[65536];
+
+    private static final int[] ABG4 = new int[65536];
+
+    private static final int[] BGR4 = new int[65536];
+
+    static {
+        for (int pixel = 0; pixel < 65536; pixel++) {
+            // RRRRRGGGGGBBBBBA, each channel expands as the game does rather than by 255/31
+            ABG5[pixel] = argb((pixel & 1) * 255, expand5(pixel >>> 11), expand5((pixel >>> 6) & 31), expand5((pixel >>> 1) & 31));
+
+            // RRRRGGGGBBBBAAAA
+            ABG4[pixel] = argb((pixel & 15) * 17, pixel >>> 12, (pixel >>> 8) & 15, (pixel >>> 4) & 15, 17);
+
+            // AAAARRRRGGGGBBBB
+            BGR4[pixel] = argb((pixel >>> 12) * 17, (pixel >>> 8) & 15, (pixel >>> 4) & 15, pixel & 15, 17);
+        }
+    }
+
+    private AligDecoder() {
+    }
+
+    private static int expand5(int value) {
+        return (value >>> 3) * 64 + (value & 7) * 9;
+    }
+
+    private static int argb(int a, int r, int g, int b) {
+        return a << 24 | r << 16 | g << 8 | b;
+    }
+
+    private static int argb(int a, int r, int g, int b, int scale) {
+        return argb(a, r * scale, g * scale, b * scale);
+    }
+
+    /**
+     * Compute the byte size of a single pixel.
+     *
+     * @param format The pixel format (e.g. "ABG5").
+     * @return The byte size, or 0 when the format is unknown.
+     */
+    public static int bytesPerPixel(String format) {
+        switch (format) {
+        case "ABG5":
+        case "ABG4":
+        case "BGR4":
+            return 2;
+        case "RGBA":
+            return 4;
+        default:
+            return 0;
+        }
+    }
+
+    /**
+     * Decode the pixels into a new ARGB image.
+     *
+     * @param format The pixel format (e.g. "ABG5").
+     * @param width The image width.
+     * @param height The image height.
+     * @param pixels The pixels from the current position, which is not modified.
+     * @return The decoded image.
+     */
+    public static BufferedImage image(String format, int width, int height, ByteBuffer pixels) {
+        check(format, width, height, pixels);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        decode(format, width, height, pixels, ((DataBufferInt) image.getRaster().getDataBuffer()).getData());
+        return image;
+    }
+
+    /**
+     * Decode the pixels into a new {@code 0xAARRGGBB} array in row-major order.
+     *
+     * @param format The pixel format (e.g. "ABG5").
+     * @param width The image width.
+     * @param height The image height.
+     * @param pixels The pixels from the current position, which is not modified.
+     * @return The decoded pixels.
+     */
+    public static int[] decode(String format, int width, int height, ByteBuffer pixels) {
+        check(format, width, height, pixels);
+        int[] argb = new int[Math.multiplyExact(width, height)];
+        decode(format, width, height, pixels, argb);
+        return argb;
+    }
+
+    /**
+     * Decode the pixels into the {@code 0xAARRGGBB} array in row-major order.
+     *
+     * @param format The pixel format (e.g. "ABG5").
+     * @param width The image width.
+     * @param height The image height.
+     * @param pixels The pixels from the current position, which is not modified.
+     * @param argb The destination whose length is at least width * height.
+     */
+    public static void decode(String format, int width, int height, ByteBuffer pixels, int[] argb) {
+        int size = check(format, width, height, pixels);
+        if (argb.length < size) {
+            throw new IllegalArgumentException("Invalid image size " + width + "x" + height + " for " + argb.length + " pixels.");
+        }
+
+        ByteBuffer source = pixels.slice().order(ByteOrder.LITTLE_ENDIAN);
+        int[] table = format.equals("ABG5") ? ABG5 : format.equals("ABG4") ? ABG4 : format.equals("BGR4") ? BGR4 : null;
+
+        if (size < PARALLEL_THRESHOLD) {
+            decodeRows(table, source, argb, width, 0, height);
+        } else {
+            int bands = (height + BAND_ROWS - 1) / BAND_ROWS;
+            IntStream.range(0, bands).parallel().forEach(band -> {
+                int from = band * BAND_ROWS;
+                decodeRows(table, source, argb, width, from, Math.min(height, from + BAND_ROWS));
+            });
+        }
+    }
+
+    /**
+     * Validate the image before anything is allocated, so a corrupt header can't request a huge
+     * raster.
+     *
+     * @return The number of pixels.
+     */
+    private static int check(String format, int width, int height, ByteBuffer pixels) {
+        int bytes = bytesPerPixel(format);
+        if (bytes == 0) {
+            throw new IllegalArgumentException("Unknown image format: " + format);
+        }
+        long size = (long) width * height;
+        if (width < 0 || height < 0 || Integer.MAX_VALUE < size) {
+            throw new IllegalArgumentException("Invalid image size " + width + "x" + height + ".");
+        }
+        if (pixels.remaining() < size * bytes) {
+            throw new IllegalArgumentException("Image data is truncated, " + size * bytes + " bytes are required but " + pixels.remaining() + ".");
+        }
+        return (int) size;
+    }
+
+    /**
+     * Decode the rows in the range through absolute loads only.
+     */
+    private static void decodeRows(int[] table, ByteBuffer source, int[] argb, int width, int from, int to) {
+        int start = from * width;
+        int end = to * width;
+
+        if (table != null) {
+            for (int i = start; i < end; i++) {
+                argb[i] = table[source.getShort(i << 1) & 0xFFFF];
+            }
+        } else {
+            // R, G, B and A bytes read as one little-endian int are ABGR
+            for (int i = start; i < end; i++) {
+                int abgr = source.getInt(i << 2);
+                argb[i] = (abgr & 0xFF00FF00) | (abgr & 0xFF) << 16 | (abgr >>> 16) & 0xFF;
+            }
+        }
+    }
+
+    /**
+     * Cut the frame out of the atlas. The frame shares the raster of the atlas, so nothing is
+     * copied.
+     *
+     * @param atlas The decoded atlas.
+     * @param x The left of the frame.
+     * @param y The top of the frame.
+     * @param width The frame width.
+     * @param height The frame height.
+     * @return The frame view.
+     * @throws IllegalArgumentException If the frame doesn't lie inside the atlas.
+     */
+    public static BufferedImage frame(BufferedImage atlas, int x, int y, int width, int height) {
+        if (x < 0 || y < 0 || width <= 0 || height <= 0 || atlas.getWidth() - x < width || atlas.getHeight() - y < height) {
+            throw new IllegalArgumentException("Frame " + x + "," + y + " " + width + "x" + height + " is outside the atlas " + atlas.getWidth() + "x" + atlas
+                    .getHeight() + ".");
+        }
+        return atlas.getSubimage(x, y, width, height);
+    }
+
+    /**
+     * Write the image as PNG.
+     *
+     * @param image The image to write.
+     * @param file The output file.
+     * @throws IOException If the file can't be written.
+     */
+    public static void png(BufferedImage image, Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        if (!ImageIO.write(image, "png", file.toFile())) {
+            throw new IOException("No PNG writer is available.");
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2025 Nameless Production Committee
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://opensource.org/licenses/mit-license.php
+ */
+package walhalla.loader.codec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+/**
+ * Decoder for the ALL4 format, a 12 byte header followed by a LZ4 frame.
+ * <p>
+ * The frame is decoded by {@link Lz4Decoder} straight into an array pre-sized from the declared
+ * size in the header, or streamed into a channel through a pooled buffer of one block, so no
+ * intermediate growing buffer is involved. Frames of independent blocks are decoded in parallel.
+ * </p>
+ */
+public final class All4Decoder {
+
+    /** The size of the ALL4 header. */
+    public static final int HEADER = 12;
+
+    private All4Decoder() {
+    }
+
+    /**
+     * Decompress the whole ALL4 file.
+     *
+     * @param src The ALL4 file including its header.
+     * @return The decompressed data.
+     */
+    public static byte[] decode(byte[] src) {
+        return decode(ByteBuffer.wrap(src));
+    }
+
+    /**
+     * Decompress the ALL4 file starting at the current position of the given buffer.
+     *
+     * @param src The ALL4 file including its header.
+     * @return The decompressed data.
+     */
+    public static byte[] decode(ByteBuffer src) {
+        byte[] dst = new byte[declaredSize(src)];
+        int size = decode(src, dst, 0);
+        return size == dst.length ? dst : Arrays.copyOf(dst, size);
+    }
+
+    /**
+     * Decompress the ALL4 file into the caller-supplied array.
+     *
+     * @param src The ALL4 file including its header.
+     * @param dst The destination, which must have room for {@link #declaredSize(ByteBuffer)} bytes.
+     * @param offset The start position in the destination.
+     * @return The number of decompressed bytes.
+     */
+    public static int decode(ByteBuffer src, byte[] dst, int offset) {
+        int size = declaredSize(src);
+        if (dst.length - offset < size) {
+            throw new IllegalArgumentException("Destination is too small for " + size + " bytes.");
+        }
+
+        ByteBuffer frame = src.duplicate();
+        frame.position(frame.position() + HEADER);
+        int length = frame.remaining();
+        if (frame.hasArray()) {
+            return Lz4Decoder.decode(frame.array(), frame.arrayOffset() + frame.position(), length, dst, offset, size);
+        }
+
+        // direct and mapped input is copied once, the frame is smaller than its output
+        byte[] data = new byte[length];
+        frame.get(data);
+        return Lz4Decoder.decode(data, 0, length, dst, offset, size);
+    }
+
+    /**
+     * Decompress the ALL4 file into the given channel block by block through a pooled buffer, so
+     * the whole output never has to be held in memory.
+     *
+     * @param src The ALL4 file including its header.
+     * @param out The destination channel.
+     * @return The number of decompressed bytes.
+     */
+    public static long decode(ByteBuffer src, WritableByteChannel out) throws IOException {
+        declaredSize(src);
+
+        ByteBuffer frame = src.duplicate();
+        frame.position(frame.position() + HEADER);
+        int length = frame.remaining();
+        if (frame.hasArray()) {
+            return Lz4Decoder.decode(frame.array(), frame.arrayOffset() + frame.position(), length, out);
+        }
+
+        // direct and mapped input is copied once, the frame is smaller than its output
+        byte[] data = new byte[length];
+        frame.get(data);
+        return Lz4Decoder.decode(data, 0, length, out);
+    }
+
+    /**
+     * Read the uncompressed size declared in the ALL4 header.
+     *
+     * @param src The ALL4 file including its header.
+     * @return The uncompressed size.
+     */
+    public static int declaredSize(ByteBuffer src) {
+        ByteBuffer in = src.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int start = in.position();
+        if (in.remaining() < HEADER || in.getInt(start) != 0x344C4C41 /* ALL4 */) {
+            throw new IllegalArgumentException("Not an ALL4 stream.");
+        }
+
+        int size = in.getInt(start + 8);
+        if (size < 0) {
+            throw new IllegalArgumentException("Invalid ALL4 size: " + size);
+        }
+        return size;
+    }
+}
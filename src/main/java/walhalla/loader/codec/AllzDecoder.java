@@ -0,0 +1,221 @@
+/*
+ * Copyright (C) 2025 Nameless Production Committee
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://opensource.org/licenses/mit-license.php
+ */
+package walhalla.loader.codec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+
+import walhalla.loader.io.BitReader;
+import walhalla.loader.io.ByteReader;
+
+/**
+ * Decoder for the ALLZ compression format.
+ * <p>
+ * The stream interleaves LSB-first control bits with raw literal bytes, so the original decoder
+ * pulled one byte at a time into its bit buffer. This one reads the control bits through the
+ * word-at-a-time {@link BitReader} and {@link BitReader#sync() syncs} it before every literal
+ * run, which keeps the literal positions identical to the byte-wise reader. Matches are copied
+ * with {@link System#arraycopy(Object, int, Object, int, int)}.
+ * </p>
+ */
+public final class AllzDecoder {
+
+    /** The size of the ALLZ header. */
+    public static final int HEADER = 12;
+
+    /** The compressed stream. */
+    private final ByteReader src;
+
+    /** The control bits interleaved in the stream. */
+    private final BitReader bits;
+
+    private AllzDecoder(ByteReader src) {
+        this.src = src;
+        this.bits = new BitReader(src);
+    }
+
+    /**
+     * Decompress the whole ALLZ file.
+     *
+     * @param src The ALLZ file including its header.
+     * @return The decompressed data.
+     */
+    public static byte[] decode(byte[] src) {
+        return decode(ByteBuffer.wrap(src));
+    }
+
+    /**
+     * Decompress the ALLZ file starting at the current position of the given buffer. The buffer
+     * can be a heap, direct or memory-mapped one and its position is not modified.
+     *
+     * @param src The ALLZ file including its header.
+     * @return The decompressed data.
+     */
+    public static byte[] decode(ByteBuffer src) {
+        byte[] dst = new byte[declaredSize(src)];
+        decode(src, dst, 0);
+        return dst;
+    }
+
+    /**
+     * Decompress the ALLZ file into the caller-supplied array.
+     *
+     * @param src The ALLZ file including its header.
+     * @param dst The destination, which must have room for {@link #declaredSize(ByteBuffer)} bytes.
+     * @param offset The start position in the destination.
+     * @return The number of decompressed bytes.
+     */
+    public static int decode(ByteBuffer src, byte[] dst, int offset) {
+        ByteBuffer in = src.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int size = declaredSize(in);
+        if (dst.length - offset < size) {
+            throw new IllegalArgumentException("Destination is too small for " + size + " bytes.");
+        }
+
+        if (size == 0) {
+            return 0;
+        }
+
+        ByteReader reader = new ByteReader(in);
+        reader.position(HEADER);
+        try {
+            new AllzDecoder(reader).run(reader.getUByte(5), reader.getUByte(6), reader.getUByte(7), dst, offset, size);
+        } catch (IndexOutOfBoundsException e) {
+            throw truncated();
+        }
+        return size;
+    }
+
+    /**
+     * Decompress the ALLZ file into the given channel through a pooled buffer.
+     *
+     * @param src The ALLZ file including its header.
+     * @param out The destination channel.
+     * @return The number of decompressed bytes.
+     */
+    public static int decode(ByteBuffer src, WritableByteChannel out) throws IOException {
+        byte[] buffer = BufferPool.SHARED.acquire(declaredSize(src));
+        try {
+            int size = decode(src, buffer, 0);
+            ByteBuffer view = ByteBuffer.wrap(buffer, 0, size);
+            while (view.hasRemaining()) {
+                out.write(view);
+            }
+            return size;
+        } finally {
+            BufferPool.SHARED.release(buffer);
+        }
+    }
+
+    /**
+     * Read the uncompressed size declared in the ALLZ header.
+     *
+     * @param src The ALLZ file including its header.
+     * @return The uncompressed size.
+     */
+    public static int declaredSize(ByteBuffer src) {
+        ByteBuffer in = src.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int start = in.position();
+        if (in.remaining() < HEADER || in.getInt(start) != 0x5A4C4C41 /* ALLZ */) {
+            throw new IllegalArgumentException("Not an ALLZ stream.");
+        }
+
+        int size = in.getInt(start + 8);
+        if (size < 0) {
+            throw new IllegalArgumentException("Invalid ALLZ size: " + size);
+        }
+        return size;
+    }
+
+    /**
+     * Decode the stream body into the specified range.
+     */
+    private void run(int minBitsLength, int minBitsOffset, int minBitsLiteral, byte[] dst, int start, int size) {
+        int end = start + size;
+        int dp = copyLiteral(dst, start, end, 1 + readControl(minBitsLiteral));
+
+        int wordOff = -1 - readControl(minBitsOffset);
+        int wordLen = 3 + readControl(minBitsLength);
+
+        while (dp < end) {
+            if (dp + wordLen >= end) {
+                copyWord(dst, start, dp, wordOff, end - dp);
+                break;
+            }
+
+            if (bits.readBit() == 0) {
+                int literal = 1 + readControl(minBitsLiteral);
+                if (dp + wordLen + literal >= end) {
+                    dp = copyWord(dst, start, dp, wordOff, wordLen);
+                    copyLiteral(dst, dp, end, end - dp);
+                    break;
+                }
+                dp = copyWord(dst, start, dp, wordOff, wordLen);
+                dp = copyLiteral(dst, dp, end, literal);
+            } else {
+                dp = copyWord(dst, start, dp, wordOff, wordLen);
+            }
+            wordOff = -1 - readControl(minBitsOffset);
+            wordLen = 3 + readControl(minBitsLength);
+        }
+    }
+
+    private int readControl(int minBits) {
+        int u = bits.readUnary();
+        if (31 < u + minBits) {
+            throw new IllegalArgumentException("Invalid ALLZ control width: " + (u + minBits));
+        }
+        int n = bits.readBits(u + minBits);
+        return u == 0 ? n : n + (((1 << u) - 1) << minBits);
+    }
+
+    /**
+     * Copy the literal run which starts right after the last consumed control byte.
+     */
+    private int copyLiteral(byte[] dst, int dp, int end, int length) {
+        bits.sync();
+        if (length < 0 || end - dp < length || src.remaining() < length) {
+            throw truncated();
+        }
+        src.getBytes(src.position(), dst, dp, length);
+        src.skip(length);
+        return dp + length;
+    }
+
+    /**
+     * Copy the match at the negative offset, replicating the pattern when it overlaps.
+     */
+    private static int copyWord(byte[] dst, int start, int dp, int offset, int length) {
+        int from = dp + offset;
+        if (from < start || dst.length - dp < length) {
+            throw new IllegalArgumentException("Invalid ALLZ match: offset " + offset + " length " + length + " at " + (dp - start));
+        }
+
+        int distance = -offset;
+        if (length <= distance) {
+            System.arraycopy(dst, from, dst, dp, length);
+        } else {
+            // [from, dp + copied) is periodic, so the copyable chunk doubles every round
+            int copied = 0;
+            while (copied < length) {
+                int chunk = Math.min(distance + copied, length - copied);
+                System.arraycopy(dst, from, dst, dp + copied, chunk);
+                copied += chunk;
+            }
+        }
+        return dp + length;
+    }
+
+    private static IllegalArgumentException truncated() {
+        return new IllegalArgumentException("Truncated ALLZ stream.");
+    }
+}
@@ -0,0 +1,349 @@
+/*
+ * Copyright (C) 2025 Nameless Production Committee
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://opensource.org/licenses/mit-license.php
+ */
+package walhalla.loader.codec;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Encoder for the ALLZ compression format, the inverse of {@link AllzDecoder}.
+ * <p>
+ * Matches are found through hash chains over 3 byte prefixes within a 64KB window, and a match is
+ * deferred by one byte when the next position has a longer one. The stream starts with a literal
+ * run and then alternates matches with optional literal runs, which is exactly the sequence the
+ * decoder walks. Every value is written as a unary prefix followed by its bits, so once the input
+ * is parsed, the minimum bit widths of the length, offset and literal fields are chosen to give the
+ * shortest stream.
+ * </p>
+ */
+public final class AllzEncoder {
+
+    /** The shortest match the format can express. */
+    private static final int MIN_MATCH = 3;
+
+    private static final int HASH_BITS = 16;
+
+    /** The farthest distance a match may refer to. */
+    private static final int WINDOW = 1 << 16;
+
+    /** The number of candidates tried at each position. */
+    private static final int DEPTH = 64;
+
+    /** A match at least this long is taken without looking at the next position. */
+    private static final int GOOD = 64;
+
+    /** The largest minimum bit width tried for each field. */
+    private static final int MAX_BITS = 16;
+
+    private final byte[] src;
+
+    private final int start;
+
+    private final int end;
+
+    /** The latest position of each hash. */
+    private final int[] head = new int[1 << HASH_BITS];
+
+    /** The previous position of the same hash, indexed by the position in the window. */
+    private final int[] prev = new int[WINDOW];
+
+    /** The offset of the match found last. */
+    private int offset;
+
+    /** The parsed sequences as triples of the literal length before the match, its offset and length. */
+    private int[] sequences = new int[3 * 64];
+
+    private int count;
+
+    /** The length of the literal run after the last match. */
+    private int trailing;
+
+    /** The encoded stream. */
+    private byte[] out;
+
+    private int op;
+
+    /** The position of the control byte being filled. */
+    private int control;
+
+    /** The number of bits used in the control byte, 8 when a new one is needed. */
+    private int used = 8;
+
+    private AllzEncoder(byte[] src, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, src.length);
+        this.src = src;
+        this.start = offset;
+        this.end = offset + length;
+        this.out = new byte[AllzDecoder.HEADER + length / 2 + 16];
+        Arrays.fill(head, -1);
+    }
+
+    /**
+     * Compress the whole array into an ALLZ file.
+     *
+     * @param src The data to compress.
+     * @return The ALLZ file including its header.
+     */
+    public static byte[] encode(byte[] src) {
+        return encode(src, 0, src.length);
+    }
+
+    /**
+     * Compress the range into an ALLZ file.
+     *
+     * @param src The data to compress.
+     * @param offset The start of the range.
+     * @param length The length of the range.
+     * @return The ALLZ file including its header.
+     */
+    public static byte[] encode(byte[] src, int offset, int length) {
+        AllzEncoder encoder = new AllzEncoder(src, offset, length);
+        encoder.parse();
+        return encoder.write();
+    }
+
+    /**
+     * Split the input into literal runs and matches.
+     */
+    private void parse() {
+        int anchor = start;
+        int i = start;
+        while (i < end) {
+            int length = find(i);
+            int distance = offset;
+            insert(i);
+
+            // a literal here may reveal the longer match at the next position
+            if (length < MIN_MATCH || (length < GOOD && length < find(i + 1))) {
+                i++;
+                continue;
+            }
+
+            if (sequences.length == count * 3) {
+                sequences = Arrays.copyOf(sequences, sequences.length * 2);
+            }
+            sequences[count * 3] = i - anchor;
+            sequences[count * 3 + 1] = distance;
+            sequences[count * 3 + 2] = length;
+            count++;
+
+            for (int j = i + 1; j < i + length; j++) {
+                insert(j);
+            }
+            i += length;
+            anchor = i;
+        }
+        trailing = end - anchor;
+    }
+
+    /**
+     * Find the longest match at the position through its hash chain.
+     *
+     * @return The match length, less than {@link #MIN_MATCH} when there is none.
+     */
+    private int find(int i) {
+        int limit = end - i;
+        if (limit < MIN_MATCH) {
+            return 0;
+        }
+
+        int best = MIN_MATCH - 1;
+        int candidate = head[hash(i)];
+        for (int chain = DEPTH; 0 < chain && 0 <= candidate && i - candidate < WINDOW; chain--) {
+            // the byte which would make a longer match rejects most candidates at once
+            if (src[candidate + best] == src[i + best]) {
+                int length = 0;
+                while (length < limit && src[candidate + length] == src[i + length]) {
+                    length++;
+                }
+                if (best < length) {
+                    best = length;
+                    offset = i - candidate;
+                    if (length == limit) {
+                        break;
+                    }
+                }
+            }
+            candidate = prev[candidate & (WINDOW - 1)];
+        }
+        return best;
+    }
+
+    private void insert(int i) {
+        if (i + MIN_MATCH <= end) {
+            int hash = hash(i);
+            prev[i & (WINDOW - 1)] = head[hash];
+            head[hash] = i;
+        }
+    }
+
+    private int hash(int i) {
+        int value = (src[i] & 0xFF) | (src[i + 1] & 0xFF) << 8 | (src[i + 2] & 0xFF) << 16;
+        return (value * 0x9E3779B1) >>> (32 - HASH_BITS);
+    }
+
+    /**
+     * Write the parsed sequences in the order the decoder reads them.
+     */
+    private byte[] write() {
+        int lengthBits = width(2, MIN_MATCH);
+        int offsetBits = width(1, 1);
+        int literalBits = literalWidth();
+
+        ensure(AllzDecoder.HEADER);
+        out[0] = 'A';
+        out[1] = 'L';
+        out[2] = 'L';
+        out[3] = 'Z';
+        out[4] = 1;
+        out[5] = (byte) lengthBits;
+        out[6] = (byte) offsetBits;
+        out[7] = (byte) literalBits;
+        int size = end - start;
+        for (int i = 0; i < 4; i++) {
+            out[8 + i] = (byte) (size >>> (i * 8));
+        }
+        op = AllzDecoder.HEADER;
+
+        // the decoder knows the empty stream by its declared size
+        if (size == 0) {
+            return Arrays.copyOf(out, op);
+        }
+
+        int sp = start;
+        if (count == 0) {
+            literal(sp, trailing, literalBits);
+            // the decoder reads the first match before it checks the end
+            control(0, offsetBits);
+            control(0, lengthBits);
+            return Arrays.copyOf(out, op);
+        }
+
+        sp = literal(sp, sequences[0], literalBits);
+        for (int i = 0; i < count; i++) {
+            control(sequences[i * 3 + 1] - 1, offsetBits);
+            control(sequences[i * 3 + 2] - MIN_MATCH, lengthBits);
+            sp += sequences[i * 3 + 2];
+
+            int literal = i + 1 < count ? sequences[i * 3 + 3] : trailing;
+            if (literal != 0) {
+                bit(0);
+                sp = literal(sp, literal, literalBits);
+            } else if (i + 1 < count) {
+                bit(1);
+            }
+        }
+        return Arrays.copyOf(out, op);
+    }
+
+    /**
+     * Choose the minimum bit width which gives the shortest encoding of the match field.
+     *
+     * @param field The index of the field in the sequence triple.
+     * @param bias The smallest value of the field, which is encoded as zero.
+     */
+    private int width(int field, int bias) {
+        long[] costs = new long[MAX_BITS + 1];
+        for (int i = 0; i < count; i++) {
+            cost(costs, sequences[i * 3 + field] - bias);
+        }
+        return cheapest(costs);
+    }
+
+    /**
+     * Choose the minimum bit width which gives the shortest encoding of the literal runs.
+     */
+    private int literalWidth() {
+        long[] costs = new long[MAX_BITS + 1];
+        for (int i = 0; i < count; i++) {
+            if (sequences[i * 3] != 0) {
+                cost(costs, sequences[i * 3] - 1);
+            }
+        }
+        if (trailing != 0) {
+            cost(costs, trailing - 1);
+        }
+        return cheapest(costs);
+    }
+
+    private static void cost(long[] costs, int value) {
+        for (int bits = 0; bits < costs.length; bits++) {
+            int unary = unary(value, bits);
+            costs[bits] += 2 * unary + 1 + bits;
+        }
+    }
+
+    private static int cheapest(long[] costs) {
+        int best = 0;
+        for (int bits = 1; bits < costs.length; bits++) {
+            if (costs[bits] < costs[best]) {
+                best = bits;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Compute the length of the unary prefix, the smallest u with
+     * {@code value < ((1 << (u + 1)) - 1) << bits}.
+     */
+    private static int unary(int value, int bits) {
+        return 31 - Integer.numberOfLeadingZeros((value >>> bits) + 1);
+    }
+
+    /**
+     * Write the length of the literal run and then its bytes.
+     *
+     * @return The position after the literals.
+     */
+    private int literal(int sp, int length, int bits) {
+        control(length - 1, bits);
+        ensure(length);
+        System.arraycopy(src, sp, out, op, length);
+        op += length;
+        return sp + length;
+    }
+
+    /**
+     * Write the value as the unary prefix u and the u + bits bits which follow it.
+     */
+    private void control(int value, int bits) {
+        int unary = unary(value, bits);
+        for (int i = 0; i < unary; i++) {
+            bit(1);
+        }
+        bit(0);
+
+        int rest = value - (((1 << unary) - 1) << bits);
+        for (int i = 0; i < unary + bits; i++) {
+            bit((rest >>> i) & 1);
+        }
+    }
+
+    /**
+     * Write the control bit, LSB first. A new control byte is reserved where the stream is when
+     * the previous one is full, which is where the decoder will look for it.
+     */
+    private void bit(int bit) {
+        if (used == 8) {
+            ensure(1);
+            control = op;
+            out[op++] = 0;
+            used = 0;
+        }
+        out[control] |= bit << used++;
+    }
+
+    private void ensure(int size) {
+        if (out.length - op < size) {
+            out = Arrays.copyOf(out, Math.max(out.length * 2, op + size));
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2025 Nameless Production Committee
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://opensource.org/licenses/mit-license.php
+ */
+package walhalla.loader.codec;
+
+import java.util.ArrayDeque;
+
+/**
+ * A small pool of reusable byte arrays for transient decompression output, so decoding many
+ * large files does not allocate a fresh array for each of them.
+ * <p>
+ * Buffers larger than the limit are never kept, so a single huge file can't pin its output for
+ * the life of the process. The rare huge outputs are left to the garbage collector.
+ * </p>
+ */
+public final class BufferPool {
+
+    /** The pool shared by the decoders in this package. */
+    public static final BufferPool SHARED = new BufferPool(Math.max(4, Runtime.getRuntime().availableProcessors()), 8 * 1024 * 1024);
+
+    /** The idle buffers. */
+    private final ArrayDeque<byte[]> idle = new ArrayDeque<>();
+
+    /** The maximum number of idle buffers. */
+    private final int capacity;
+
+    /** The maximum length of an idle buffer. */
+    private final int limit;
+
+    /**
+     * @param capacity The maximum number of idle buffers kept for reuse.
+     * @param limit The maximum length of a buffer kept for reuse.
+     */
+    public BufferPool(int capacity, int limit) {
+        this.capacity = capacity;
+        this.limit = limit;
+    }
+
+    /**
+     * Borrow the smallest idle buffer which can hold at least the specified size. The content is
+     * undefined.
+     *
+     * @param size The minimum length.
+     * @return The borrowed buffer.
+     */
+    public synchronized byte[] acquire(int size) {
+        byte[] best = null;
+        for (byte[] buffer : idle) {
+            if (size <= buffer.length && (best == null || buffer.length < best.length)) {
+                best = buffer;
+            }
+        }
+        if (best == null) {
+            return new byte[size];
+        }
+        idle.remove(best);
+        return best;
+    }
+
+    /**
+     * Return the borrowed buffer. The smallest idle buffer is dropped when the pool is full, and a
+     * buffer above the limit is not kept at all.
+     *
+     * @param buffer The buffer to return.
+     */
+    public synchronized void release(byte[] buffer) {
+        if (limit < buffer.length) {
+            return;
+        }
+
+        if (idle.size() < capacity) {
+            idle.add(buffer);
+        } else {
+            byte[] smallest = buffer;
+            for (byte[] b : idle) {
+                if (b.length < smallest.length) smallest = b;
+            }
+            if (smallest != buffer) {
+                idle.remove(smallest);
+                idle.add(buffer);
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2025 Nameless Production Committee
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://opensource.org/licenses/mit-license.php
+ */
+package walhalla.loader.codec;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Persistent cache of decompressed ALLZ/ALL4 payloads, addressed by the SHA-256 of the decoder
+ * version and the raw file.
+ * <p>
+ * Unchanged assets are served by mapping the cached payload, so only the files touched by a game
+ * patch are decompressed again. Entries are sharded by the first two hex digits of their hash
+ * and written atomically, so concurrent decoders never observe a partial entry.
+ * </p>
+ */
+public class DecodedCache {
+
+    /** The default cache under the data directory. */
+    public static final DecodedCache DEFAULT = new DecodedCache(Path.of(".data/decoded-cache"));
+
+    /**
+     * The version of the decoders' output. Bump it whenever a decoder change may alter what it
+     * produces, so the payloads decoded by the old decoder are not served anymore.
+     */
+    static final int VERSION = 1;
+
+    /** The root directory of the cache. */
+    private final Path root;
+
+    /**
+     * @param root The root directory of the cache.
+     */
+    public DecodedCache(Path root) {
+        this.root = root;
+    }
+
+    /**
+     * Get the decompressed payload of the specified file. Uncompressed files are returned as they
+     * are.
+     *
+     * @param file The raw file.
+     * @return The decompressed payload.
+     */
+    public ByteBuffer decompress(Path file) {
+        ByteBuffer raw = map(file);
+        if (!isCompressed(raw)) {
+            return raw;
+        }
+
+        Path cached = locate(raw);
+        if (Files.isRegularFile(cached)) {
+            return map(cached);
+        }
+
+        byte[] decoded = isAllz(raw) ? AllzDecoder.decode(raw) : All4Decoder.decode(raw);
+        store(cached, decoded);
+        return ByteBuffer.wrap(decoded);
+    }
+
+    /**
+     * Compute the location of the entry for the specified raw data.
+     */
+    private Path locate(ByteBuffer raw) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(ByteBuffer.allocate(4).putInt(0, VERSION));
+            digest.update(raw.duplicate());
+            String hash = HexFormat.of().formatHex(digest.digest());
+            return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Write the entry through a temporary file, then publish it by renaming.
+     */
+    private void store(Path cached, byte[] decoded) {
+        try {
+            Files.createDirectories(cached.getParent());
+            Path temp = Files.createTempFile(cached.getParent(), cached.getFileName().toString(), ".tmp");
+            try {
+                Files.write(temp, decoded);
+                Files.move(temp, cached, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            // the cache is an optimization only, the decoded data is still usable
+            System.err.println("Failed to store the decoded cache " + cached + ": " + e.getMessage());
+        }
+    }
+
+    private static boolean isCompressed(ByteBuffer raw) {
+        return isAllz(raw) || magic(raw) == 0x344C4C41 /* ALL4 */;
+    }
+
+    private static boolean isAllz(ByteBuffer raw) {
+        return magic(raw) == 0x5A4C4C41 /* ALLZ */;
+    }
+
+    private static int magic(ByteBuffer raw) {
+        return raw.remaining() < 4 ? 0 : raw.duplicate().order(ByteOrder.LITTLE_ENDIAN).getInt(raw.position());
+    }
+
+    private static ByteBuffer map(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
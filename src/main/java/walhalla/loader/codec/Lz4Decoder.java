@@ -0,0 +1,447 @@
+/*
+ * Copyright (C) 2025 Nameless Production Committee
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://opensource.org/licenses/mit-license.php
+ */
+package walhalla.loader.codec;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+/**
+ * Pure Java decoder of the LZ4 frame format.
+ * <p>
+ * Blocks are decoded straight into the caller's array, so no intermediate stream buffer is
+ * involved, or streamed into a channel through a pooled buffer of a single block. The block table of a frame is scanned first; when the blocks are independent, every
+ * block but the last is expected to fill the maximum block size as all LZ4 encoders do, which
+ * fixes the output position of each block up front and lets them be decoded in parallel. A frame
+ * which breaks that expectation is simply decoded again sequentially. Linked blocks may refer to
+ * the output of the previous blocks and are always decoded in order.
+ * </p>
+ * <p>
+ * The header checksum, block checksums, content checksum and content size are verified when the
+ * frame declares them. Skippable frames are skipped and concatenated frames are decoded one after
+ * another. Malformed data is rejected by {@link IllegalArgumentException}.
+ * </p>
+ */
+public final class Lz4Decoder {
+
+    private static final VarHandle INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    /** The magic number of a frame. */
+    private static final int MAGIC = 0x184D2204;
+
+    /** The magic numbers of skippable frames, the low 4 bits are free. */
+    private static final int SKIPPABLE = 0x184D2A50;
+
+    /** The distance a match of linked blocks may reach back. */
+    private static final int WINDOW = 64 * 1024;
+
+    /** Frames whose blocks add up to at least this many bytes are decoded in parallel. */
+    static final int PARALLEL_THRESHOLD = 1 << 20;
+
+    /** The compressed data. */
+    private final byte[] src;
+
+    /** The end of the compressed data. */
+    private final int srcEnd;
+
+    /** The current position in the compressed data. */
+    private int sp;
+
+    /** The destination. */
+    private final byte[] dst;
+
+    /** The end of the destination. */
+    private final int dstEnd;
+
+    /** The current position in the destination. */
+    private int dp;
+
+    private Lz4Decoder(byte[] src, int srcOffset, int srcLength, byte[] dst, int dstOffset, int dstLength) {
+        Objects.checkFromIndexSize(srcOffset, srcLength, src.length);
+        Objects.checkFromIndexSize(dstOffset, dstLength, dst.length);
+        this.src = src;
+        this.sp = srcOffset;
+        this.srcEnd = srcOffset + srcLength;
+        this.dst = dst;
+        this.dp = dstOffset;
+        this.dstEnd = dstOffset + dstLength;
+    }
+
+    /**
+     * Decode the LZ4 frames in the source range into the destination range.
+     *
+     * @param src The compressed data.
+     * @param srcOffset The start of the first frame.
+     * @param srcLength The length of the frames.
+     * @param dst The destination.
+     * @param dstOffset The start position in the destination.
+     * @param dstLength The room in the destination.
+     * @return The number of decoded bytes.
+     * @throws IllegalArgumentException If the data is malformed or doesn't fit the destination.
+     */
+    public static int decode(byte[] src, int srcOffset, int srcLength, byte[] dst, int dstOffset, int dstLength) {
+        Lz4Decoder decoder = new Lz4Decoder(src, srcOffset, srcLength, dst, dstOffset, dstLength);
+        while (decoder.sp < decoder.srcEnd) {
+            decoder.frame();
+        }
+        return decoder.dp - dstOffset;
+    }
+
+    /**
+     * Decode the LZ4 frames in the source range block by block into the channel. Only one block
+     * (and the 64 KB window of linked blocks) is held in a pooled buffer, so the whole output never
+     * has to be in memory.
+     *
+     * @param src The compressed data.
+     * @param srcOffset The start of the first frame.
+     * @param srcLength The length of the frames.
+     * @param out The destination channel.
+     * @return The number of decoded bytes.
+     * @throws IllegalArgumentException If the data is malformed.
+     */
+    public static long decode(byte[] src, int srcOffset, int srcLength, WritableByteChannel out) throws IOException {
+        // the blocks are decoded into the pooled buffer, so there is no destination array
+        Lz4Decoder decoder = new Lz4Decoder(src, srcOffset, srcLength, new byte[0], 0, 0);
+        long total = 0;
+        while (decoder.sp < decoder.srcEnd) {
+            total += decoder.stream(out);
+        }
+        return total;
+    }
+
+    /**
+     * Decode the frame at the current position into the destination array.
+     */
+    private void frame() {
+        Frame frame = header();
+        if (frame == null) {
+            return;
+        }
+        int[] blocks = frame.blocks;
+        int count = frame.count;
+        int maxBlock = frame.maxBlock;
+        boolean independent = frame.independent;
+
+        int start = dp;
+        if (!independent || count < 2 || (long) count * maxBlock < PARALLEL_THRESHOLD || !parallel(blocks, count, maxBlock)) {
+            dp = start;
+            for (int i = 0; i < count; i++) {
+                dp = block(blocks[i * 2], blocks[i * 2 + 1], dst, independent ? dp : start, dp, (int) Math.min(dstEnd, (long) dp + maxBlock));
+            }
+        }
+
+        if (frame.contentSize != -1 && frame.contentSize != dp - start) {
+            throw corrupt("Content size mismatch, " + frame.contentSize + " is declared but " + (dp - start));
+        }
+        if (frame.contentChecksum && readInt() != XxHash32.hash(dst, start, dp - start, 0)) {
+            throw corrupt("Content checksum mismatch");
+        }
+    }
+
+    /**
+     * Decode the frame at the current position into the channel, one block at a time.
+     *
+     * @return The number of decoded bytes.
+     */
+    private long stream(WritableByteChannel out) throws IOException {
+        Frame frame = header();
+        if (frame == null) {
+            return 0;
+        }
+
+        // linked blocks may refer to the last 64 KB of the previous blocks, which stay in front
+        int window = frame.independent ? 0 : WINDOW;
+        byte[] buffer = BufferPool.SHARED.acquire(window + frame.maxBlock);
+        XxHash32.Digest digest = frame.contentChecksum ? new XxHash32.Digest(0) : null;
+        long total = 0;
+        try {
+            int kept = 0;
+            for (int i = 0; i < frame.count; i++) {
+                int end = block(frame.blocks[i * 2], frame.blocks[i * 2 + 1], buffer, 0, kept, kept + frame.maxBlock);
+                ByteBuffer view = ByteBuffer.wrap(buffer, kept, end - kept);
+                while (view.hasRemaining()) {
+                    out.write(view);
+                }
+                if (digest != null) {
+                    digest.update(buffer, kept, end - kept);
+                }
+                total += end - kept;
+
+                if (window != 0) {
+                    kept = Math.min(end, window);
+                    System.arraycopy(buffer, end - kept, buffer, 0, kept);
+                }
+            }
+        } finally {
+            BufferPool.SHARED.release(buffer);
+        }
+
+        if (frame.contentSize != -1 && frame.contentSize != total) {
+            throw corrupt("Content size mismatch, " + frame.contentSize + " is declared but " + total);
+        }
+        if (digest != null && readInt() != digest.value()) {
+            throw corrupt("Content checksum mismatch");
+        }
+        return total;
+    }
+
+    /**
+     * Read the frame descriptor and the block table at the current position.
+     *
+     * @return The frame, or null when it was a skippable frame.
+     */
+    private Frame header() {
+        int magic = readInt();
+        if ((magic & 0xFFFFFFF0) == SKIPPABLE) {
+            int size = readInt();
+            if (size < 0 || srcEnd - sp < size) {
+                throw corrupt("Truncated skippable frame");
+            }
+            sp += size;
+            return null;
+        }
+        if (magic != MAGIC) {
+            throw corrupt("Unknown frame magic " + Integer.toHexString(magic));
+        }
+
+        // frame descriptor
+        int descriptor = sp;
+        int flags = readByte();
+        int bd = readByte();
+        if (flags >>> 6 != 1) {
+            throw corrupt("Unsupported version " + (flags >>> 6));
+        }
+        if ((flags & 0x02) != 0 || (bd & 0x8F) != 0 || (bd >>> 4) < 4) {
+            throw corrupt("Invalid frame descriptor");
+        }
+        boolean independent = (flags & 0x20) != 0;
+        boolean blockChecksum = (flags & 0x10) != 0;
+        boolean contentChecksum = (flags & 0x04) != 0;
+        int maxBlock = 1 << (8 + 2 * (bd >>> 4));
+        long contentSize = (flags & 0x08) != 0 ? readLong() : -1;
+        if ((flags & 0x01) != 0) {
+            throw corrupt("Dictionaries are not supported");
+        }
+        int checksum = readByte();
+        if (checksum != (XxHash32.hash(src, descriptor, sp - 1 - descriptor, 0) >>> 8 & 0xFF)) {
+            throw corrupt("Header checksum mismatch");
+        }
+
+        // block table
+        int[] blocks = new int[16];
+        int count = 0;
+        while (true) {
+            int size = readInt();
+            if (size == 0) {
+                break;
+            }
+            int length = size & 0x7FFFFFFF;
+            if (maxBlock < length || srcEnd - sp < length) {
+                throw corrupt("Invalid block size " + length);
+            }
+            if (blocks.length == count) {
+                blocks = Arrays.copyOf(blocks, count * 2);
+            }
+            blocks[count++] = sp;
+            blocks[count++] = size;
+            if (blockChecksum) {
+                int expected = XxHash32.hash(src, sp, length, 0);
+                sp += length;
+                if (readInt() != expected) {
+                    throw corrupt("Block checksum mismatch");
+                }
+            } else {
+                sp += length;
+            }
+        }
+        return new Frame(independent, contentChecksum, maxBlock, contentSize, blocks, count / 2);
+    }
+
+    /**
+     * The frame descriptor and the block table, as pairs of the data position and the size field.
+     */
+    private record Frame(boolean independent, boolean contentChecksum, int maxBlock, long contentSize, int[] blocks, int count) {
+    }
+
+    /**
+     * Decode the independent blocks in parallel at the positions they have when every block but
+     * the last is full.
+     *
+     * @return false when a block was short or broken, the output must be decoded again
+     *         sequentially.
+     */
+    private boolean parallel(int[] blocks, int count, int maxBlock) {
+        int start = dp;
+        long last = start + (long) (count - 1) * maxBlock;
+        if (dstEnd < last) {
+            return false;
+        }
+
+        int[] ends = new int[count];
+        try {
+            IntStream.range(0, count).parallel().forEach(i -> {
+                int from = start + i * maxBlock;
+                ends[i] = block(blocks[i * 2], blocks[i * 2 + 1], dst, from, from, (int) Math.min(dstEnd, (long) from + maxBlock));
+            });
+        } catch (IllegalArgumentException e) {
+            // the sequential pass reports the error at the right position
+            return false;
+        }
+
+        for (int i = 0; i < count - 1; i++) {
+            if (ends[i] != start + (i + 1) * maxBlock) {
+                return false;
+            }
+        }
+        dp = ends[count - 1];
+        return true;
+    }
+
+    /**
+     * Decode the single block.
+     *
+     * @param position The start of the block data.
+     * @param size The block size field, whose highest bit marks uncompressed data.
+     * @param dst The destination.
+     * @param window The lowest position a match may refer to.
+     * @param out The output position.
+     * @param limit The end of the room for the output.
+     * @return The output position after the block.
+     */
+    private int block(int position, int size, byte[] dst, int window, int out, int limit) {
+        int length = size & 0x7FFFFFFF;
+        if (size < 0) {
+            if (limit - out < length) {
+                throw overflow(out);
+            }
+            System.arraycopy(src, position, dst, out, length);
+            return out + length;
+        }
+        return block(src, position, position + length, dst, window, out, limit);
+    }
+
+    /**
+     * Decode the LZ4 block format: sequences of a token, the literals and a match.
+     */
+    private static int block(byte[] src, int sp, int end, byte[] dst, int window, int dp, int limit) {
+        while (true) {
+            if (end <= sp) {
+                throw corrupt("Truncated block");
+            }
+            int token = src[sp++] & 0xFF;
+
+            int literal = token >>> 4;
+            if (literal == 15) {
+                int b;
+                do {
+                    if (end <= sp) {
+                        throw corrupt("Truncated literal length");
+                    }
+                    b = src[sp++] & 0xFF;
+                    literal += b;
+                } while (b == 255);
+            }
+            if (end - sp < literal) {
+                throw corrupt("Truncated literals");
+            }
+            if (limit - dp < literal) {
+                throw overflow(dp);
+            }
+            System.arraycopy(src, sp, dst, dp, literal);
+            sp += literal;
+            dp += literal;
+
+            // the last sequence has no match
+            if (sp == end) {
+                return dp;
+            }
+
+            if (end - sp < 2) {
+                throw corrupt("Truncated match offset");
+            }
+            int offset = (src[sp] & 0xFF) | (src[sp + 1] & 0xFF) << 8;
+            sp += 2;
+            if (offset == 0 || dp - window < offset) {
+                throw corrupt("Invalid match offset " + offset + " at " + dp);
+            }
+
+            int match = token & 15;
+            if (match == 15) {
+                int b;
+                do {
+                    if (end <= sp) {
+                        throw corrupt("Truncated match length");
+                    }
+                    b = src[sp++] & 0xFF;
+                    match += b;
+                } while (b == 255);
+            }
+            match += 4;
+            if (limit - dp < match) {
+                throw overflow(dp);
+            }
+
+            int from = dp - offset;
+            if (match <= offset) {
+                System.arraycopy(dst, from, dst, dp, match);
+            } else {
+                // [from, dp + copied) is periodic, so the copyable chunk doubles every round
+                int copied = 0;
+                while (copied < match) {
+                    int chunk = Math.min(offset + copied, match - copied);
+                    System.arraycopy(dst, from, dst, dp + copied, chunk);
+                    copied += chunk;
+                }
+            }
+            dp += match;
+        }
+    }
+
+    private int readByte() {
+        if (srcEnd <= sp) {
+            throw corrupt("Truncated frame");
+        }
+        return src[sp++] & 0xFF;
+    }
+
+    private int readInt() {
+        if (srcEnd - sp < 4) {
+            throw corrupt("Truncated frame");
+        }
+        int value = (int) INT.get(src, sp);
+        sp += 4;
+        return value;
+    }
+
+    private long readLong() {
+        if (srcEnd - sp < 8) {
+            throw corrupt("Truncated frame");
+        }
+        long value = (long) LONG.get(src, sp);
+        sp += 8;
+        return value;
+    }
+
+    private static IllegalArgumentException overflow(int position) {
+        return new IllegalArgumentException("LZ4 data exceeds the destination at " + position + ".");
+    }
+
+    private static IllegalArgumentException corrupt(String message) {
+        return new IllegalArgumentException("Corrupt LZ4 frame: " + message + ".");
+    }
+}
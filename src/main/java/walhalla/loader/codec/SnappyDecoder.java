@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2025 Nameless Production Committee
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://opensource.org/licenses/mit-license.php
+ */
+package walhalla.loader.codec;
+
+/**
+ * Pure Java decoder of the raw Snappy format, which compresses the XML documents of the game
+ * (lib/decompress.lua of the Lua tools).
+ * <p>
+ * The stream starts with the decoded size as a little-endian varint, followed by elements whose
+ * tag byte tells a literal or a copy with a 1, 2 or 4 byte offset. Malformed data is rejected by
+ * {@link IllegalArgumentException}.
+ * </p>
+ */
+public final class SnappyDecoder {
+
+    private SnappyDecoder() {
+    }
+
+    /**
+     * Decode the whole stream.
+     *
+     * @param src The compressed data.
+     * @return The decoded data.
+     */
+    public static byte[] decode(byte[] src) {
+        int sp = 0;
+        long size = 0;
+        for (int shift = 0;; shift += 7) {
+            if (sp == src.length || 32 < shift) {
+                throw new IllegalArgumentException("Broken Snappy size");
+            }
+            int b = src[sp++] & 0xFF;
+            size |= (long) (b & 0x7F) << shift;
+            if (b < 0x80) break;
+        }
+        if (Integer.MAX_VALUE - 8 < size) {
+            throw new IllegalArgumentException("Snappy size " + size + " is too large");
+        }
+
+        byte[] dst = new byte[(int) size];
+        int dp = 0;
+        while (sp < src.length) {
+            int tag = src[sp++] & 0xFF;
+            int length;
+            int offset;
+            switch (tag & 3) {
+            case 0:
+                length = (tag >>> 2) + 1;
+                if (60 < length) {
+                    int bytes = length - 60;
+                    length = (int) (little(src, sp, bytes) + 1);
+                    sp += bytes;
+                }
+                if (length <= 0 || src.length - sp < length || dst.length - dp < length) {
+                    throw new IllegalArgumentException("Snappy literal of " + length + " bytes at " + (sp - 1) + " is out of range");
+                }
+                System.arraycopy(src, sp, dst, dp, length);
+                sp += length;
+                dp += length;
+                continue;
+            case 1:
+                length = ((tag >>> 2) & 7) + 4;
+                offset = ((tag >>> 5) << 8) | (int) little(src, sp, 1);
+                sp += 1;
+                break;
+            case 2:
+                length = (tag >>> 2) + 1;
+                offset = (int) little(src, sp, 2);
+                sp += 2;
+                break;
+            default:
+                length = (tag >>> 2) + 1;
+                offset = (int) little(src, sp, 4);
+                sp += 4;
+                break;
+            }
+
+            if (offset <= 0 || dp < offset || dst.length - dp < length) {
+                throw new IllegalArgumentException("Snappy copy of " + length + " bytes from " + offset + " back is out of range at " + dp);
+            }
+            // the copy may overlap its own output, so it runs byte by byte
+            for (int i = 0; i < length; i++, dp++) {
+                dst[dp] = dst[dp - offset];
+            }
+        }
+
+        if (dp != dst.length) {
+            throw new IllegalArgumentException("Snappy data ends at " + dp + " of " + dst.length + " bytes");
+        }
+        return dst;
+    }
+
+    /**
+     * Read the little-endian unsigned value of the given number of bytes.
+     */
+    private static long little(byte[] src, int index, int bytes) {
+        if (src.length - index < bytes) {
+            throw new IllegalArgumentException("Snappy data ends at " + index);
+        }
+        long value = 0;
+        for (int i = 0; i < bytes; i++) {
+            value |= (long) (src[index + i] & 0xFF) << (i * 8);
+        }
+        return value;
+    }
+}
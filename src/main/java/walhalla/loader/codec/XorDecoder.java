@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2025 Nameless Production Committee
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://opensource.org/licenses/mit-license.php
+ */
+package walhalla.loader.codec;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Single byte XOR obfuscation, as used by the CDN file list.
+ * <p>
+ * The data is transformed in place eight bytes at a time through a {@code long} view of the array
+ * or buffer, with the key replicated into every byte lane, and only the tail is handled byte by
+ * byte. Writable files are mapped copy-on-write, so decoding never touches the file on disk nor
+ * copies it into the heap up front.
+ * </p>
+ */
+public final class XorDecoder {
+
+    private static final VarHandle ARRAY = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final VarHandle BUFFER = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private XorDecoder() {
+    }
+
+    /**
+     * XOR the whole array in place.
+     *
+     * @param data The data to transform.
+     * @param key The single byte key.
+     */
+    public static void apply(byte[] data, int key) {
+        apply(data, 0, data.length, key);
+    }
+
+    /**
+     * XOR the specified range of the array in place.
+     *
+     * @param data The data to transform.
+     * @param offset The start of the range.
+     * @param length The length of the range.
+     * @param key The single byte key.
+     */
+    public static void apply(byte[] data, int offset, int length, int key) {
+        if (offset < 0 || length < 0 || data.length - offset < length) {
+            throw new IndexOutOfBoundsException("Range [" + offset + ", " + offset + " + " + length + ") is out of " + data.length);
+        }
+
+        long lanes = lanes(key);
+        int end = offset + length;
+        int i = offset;
+        for (; i + 8 <= end; i += 8) {
+            ARRAY.set(data, i, (long) ARRAY.get(data, i) ^ lanes);
+        }
+        for (; i < end; i++) {
+            data[i] ^= key;
+        }
+    }
+
+    /**
+     * XOR the remaining bytes of the buffer in place. The position is not modified.
+     *
+     * @param data The writable heap, direct or mapped buffer.
+     * @param key The single byte key.
+     */
+    public static void apply(ByteBuffer data, int key) {
+        if (data.hasArray()) {
+            apply(data.array(), data.arrayOffset() + data.position(), data.remaining(), key);
+            return;
+        }
+
+        long lanes = lanes(key);
+        int end = data.limit();
+        int i = data.position();
+        for (; i + 8 <= end; i += 8) {
+            BUFFER.set(data, i, (long) BUFFER.get(data, i) ^ lanes);
+        }
+        for (; i < end; i++) {
+            data.put(i, (byte) (data.get(i) ^ key));
+        }
+    }
+
+    /**
+     * Map the file copy-on-write and decode it in place.
+     *
+     * @param file The obfuscated file.
+     * @param key The single byte key.
+     * @param offset The number of leading bytes to skip.
+     * @return The decoded view of the file after the offset.
+     */
+    public static ByteBuffer decode(Path file, int key, int offset) {
+        try {
+            ByteBuffer data;
+            if (Files.isWritable(file)) {
+                // a private mapping requires a writable channel, but the changes never reach the file
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                    data = channel.map(FileChannel.MapMode.PRIVATE, offset, channel.size() - offset);
+                }
+            } else {
+                byte[] bytes = Files.readAllBytes(file);
+                data = ByteBuffer.wrap(bytes, offset, bytes.length - offset).slice();
+            }
+            apply(data, key);
+            return data;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Replicate the key into every byte of the word.
+     */
+    private static long lanes(int key) {
+        return (key & 0xFFL) * 0x0101010101010101L;
+    }
+}
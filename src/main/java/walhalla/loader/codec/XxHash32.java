@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2025 Nameless Production Committee
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://opensource.org/licenses/mit-license.php
+ */
+package walhalla.loader.codec;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * The 32-bit xxHash, which the LZ4 frame format uses for its header, block and content checksums.
+ */
+public final class XxHash32 {
+
+    private static final VarHandle INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final int PRIME1 = 0x9E3779B1;
+
+    private static final int PRIME2 = 0x85EBCA77;
+
+    private static final int PRIME3 = 0xC2B2AE3D;
+
+    private static final int PRIME4 = 0x27D4EB2F;
+
+    private static final int PRIME5 = 0x165667B1;
+
+    private XxHash32() {
+    }
+
+    /**
+     * Hash the byte range.
+     *
+     * @param data The data.
+     * @param offset The start position.
+     * @param length The number of bytes.
+     * @param seed The seed, 0 for the LZ4 checksums.
+     * @return The hash.
+     */
+    public static int hash(byte[] data, int offset, int length, int seed) {
+        int i = offset;
+        int end = offset + length;
+        int hash;
+
+        if (16 <= length) {
+            int v1 = seed + PRIME1 + PRIME2;
+            int v2 = seed + PRIME2;
+            int v3 = seed;
+            int v4 = seed - PRIME1;
+            for (int limit = end - 16; i <= limit; i += 16) {
+                v1 = round(v1, (int) INT.get(data, i));
+                v2 = round(v2, (int) INT.get(data, i + 4));
+                v3 = round(v3, (int) INT.get(data, i + 8));
+                v4 = round(v4, (int) INT.get(data, i + 12));
+            }
+            hash = Integer.rotateLeft(v1, 1) + Integer.rotateLeft(v2, 7) + Integer.rotateLeft(v3, 12) + Integer.rotateLeft(v4, 18);
+        } else {
+            hash = seed + PRIME5;
+        }
+        return finish(hash + length, data, i, end);
+    }
+
+    /**
+     * Mix the trailing bytes which don't fill a stripe of 16 bytes and avalanche the hash.
+     */
+    private static int finish(int hash, byte[] data, int i, int end) {
+        for (; i + 4 <= end; i += 4) {
+            hash = Integer.rotateLeft(hash + (int) INT.get(data, i) * PRIME3, 17) * PRIME4;
+        }
+        for (; i < end; i++) {
+            hash = Integer.rotateLeft(hash + (data[i] & 0xFF) * PRIME5, 11) * PRIME1;
+        }
+
+        hash ^= hash >>> 15;
+        hash *= PRIME2;
+        hash ^= hash >>> 13;
+        hash *= PRIME3;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    private static int round(int acc, int input) {
+        return Integer.rotateLeft(acc + input * PRIME2, 13) * PRIME1;
+    }
+
+    /**
+     * The hash of data which arrives in pieces, such as the content of a streamed LZ4 frame. It
+     * gives the same value as {@link XxHash32#hash(byte[], int, int, int)} over the concatenation.
+     */
+    public static final class Digest {
+
+        private final int seed;
+
+        private int v1, v2, v3, v4;
+
+        /** The bytes which don't fill a stripe yet. */
+        private final byte[] stripe = new byte[16];
+
+        private int buffered;
+
+        private long total;
+
+        /**
+         * @param seed The seed, 0 for the LZ4 checksums.
+         */
+        public Digest(int seed) {
+            this.seed = seed;
+            this.v1 = seed + PRIME1 + PRIME2;
+            this.v2 = seed + PRIME2;
+            this.v3 = seed;
+            this.v4 = seed - PRIME1;
+        }
+
+        /**
+         * Hash the next piece.
+         *
+         * @param data The data.
+         * @param offset The start position.
+         * @param length The number of bytes.
+         */
+        public void update(byte[] data, int offset, int length) {
+            total += length;
+            if (buffered + length < 16) {
+                System.arraycopy(data, offset, stripe, buffered, length);
+                buffered += length;
+                return;
+            }
+
+            int end = offset + length;
+            if (buffered != 0) {
+                int fill = 16 - buffered;
+                System.arraycopy(data, offset, stripe, buffered, fill);
+                stripe(stripe, 0);
+                offset += fill;
+                buffered = 0;
+            }
+            for (; offset + 16 <= end; offset += 16) {
+                stripe(data, offset);
+            }
+            System.arraycopy(data, offset, stripe, 0, end - offset);
+            buffered = end - offset;
+        }
+
+        private void stripe(byte[] data, int i) {
+            v1 = round(v1, (int) INT.get(data, i));
+            v2 = round(v2, (int) INT.get(data, i + 4));
+            v3 = round(v3, (int) INT.get(data, i + 8));
+            v4 = round(v4, (int) INT.get(data, i + 12));
+        }
+
+        /**
+         * @return The hash of all pieces so far.
+         */
+        public int value() {
+            int hash = 16 <= total ? Integer.rotateLeft(v1, 1) + Integer.rotateLeft(v2, 7) + Integer.rotateLeft(v3, 12) + Integer.rotateLeft(v4, 18) : seed + PRIME5;
+            return finish(hash + (int) total, stripe, 0, buffered);
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package walhalla.loader.fuel;
 
+import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
@@ -9,8 +11,13 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 import psychopath.Locator;
+import walhalla.loader.codec.AligDecoder;
+import walhalla.loader.codec.All4Decoder;
+import walhalla.loader.codec.AllzDecoder;
+import walhalla.loader.io.StringPool;
 
 /**
  * AL（Archive Loader）データ解析器
@@ -104,7 +111,7 @@ class Text extends AL {
 
 /**
  * LZ4圧縮されたALL4ファイル用のクラス
- * LZ4FrameInputStreamを使用してフレーム形式を正しく処理
+ * 宣言サイズで確保した配列へLZ4フレームを直接解凍する
  */
 class ALL4 extends AL {
     private byte[] dst;
@@ -115,24 +122,15 @@ class ALL4 extends AL {
         super(buffer);
 
         try {
-            // TypeScript実装: const jump = buffer.slice(12); this.Dst = decompress(jump);
-            byte[] compressedData = Arrays.copyOfRange(buffer, 12, buffer.length);
-
             // ヘッダー情報の取得（参考用）
-            BufferReader br = new BufferReader(buffer);
-            br.readString(4); // "ALL4"
-            br.readByte(); // version
-            br.readByte(); // flag2
-            br.readByte(); // flag3
-            br.readByte(); // flag4
-            int declaredSize = br.readDword(); // 宣言されたサイズ
-
-            System.out.println("ALL4 decompression using LZ4FrameInputStream:");
+            int declaredSize = All4Decoder.declaredSize(java.nio.ByteBuffer.wrap(buffer));
+
+            System.out.println("ALL4 decompression:");
             System.out.println("  Declared size: " + declaredSize);
-            System.out.println("  Compressed data size: " + compressedData.length);
+            System.out.println("  Compressed data size: " + (buffer.length - All4Decoder.HEADER));
 
-            // LZ4FrameInputStreamを使用した解凍
-            this.dst = decompressLZ4Frame(compressedData);
+            // 宣言サイズの配列へ直接解凍
+            this.dst = All4Decoder.decode(buffer);
             this.uncompressedSize = this.dst.length;
 
             System.out.println("  Actual decompressed size: " + this.uncompressedSize);
@@ -148,24 +146,6 @@ class ALL4 extends AL {
         }
     }
 
-    /**
-     * LZ4FrameInputStreamを使用したフレーム形式の解凍
-     */
-    private byte[] decompressLZ4Frame(byte[] compressedData) throws Exception {
-        try (java.io.ByteArrayInputStream bais = new java.io.ByteArrayInputStream(compressedData);
-                net.jpountz.lz4.LZ4FrameInputStream lz4is = new net.jpountz.lz4.LZ4FrameInputStream(bais);
-                java.io.ByteArrayOutputStream baos = new java.io.ByteArrayOutputStream()) {
-
-            byte[] buffer = new byte[8192];
-            int len;
-            while ((len = lz4is.read(buffer)) != -1) {
-                baos.write(buffer, 0, len);
-            }
-
-            return baos.toByteArray();
-        }
-    }
-
     public byte[] getDst() {
         return dst;
     }
@@ -218,91 +198,9 @@ class ALLZ extends AL {
         this.minBitsOffset = br.readByte();
         this.minBitsLiteral = br.readByte();
         this.dstSize = br.readDword();
-        this.dst = new byte[dstSize];
-
-        int dstOffset = 0;
 
         // 解凍処理
-        int literalLength = readControlLiteral(br);
-        dstOffset = copyLiteral(br, dstOffset, literalLength);
-
-        int wordOffset = readControlOffset(br);
-        int wordLength = readControlLength(br);
-
-        String finishFlag = "overflow";
-
-        while (!br.overflow()) {
-            if (dstOffset + wordLength >= this.dstSize) {
-                finishFlag = "word";
-                break;
-            }
-
-            if (br.readBit() == 0) {
-                literalLength = readControlLiteral(br);
-                if (dstOffset + wordLength + literalLength >= this.dstSize) {
-                    finishFlag = "literal";
-                    break;
-                }
-                dstOffset = copyWord(dstOffset, wordOffset, wordLength);
-                dstOffset = copyLiteral(br, dstOffset, literalLength);
-                wordOffset = readControlOffset(br);
-                wordLength = readControlLength(br);
-            } else {
-                dstOffset = copyWord(dstOffset, wordOffset, wordLength);
-                wordOffset = readControlOffset(br);
-                wordLength = readControlLength(br);
-            }
-        }
-
-        switch (finishFlag) {
-        case "word":
-            copyWord(dstOffset, wordOffset, wordLength);
-            break;
-        case "literal":
-            dstOffset = copyWord(dstOffset, wordOffset, wordLength);
-            copyLiteral(br, dstOffset, literalLength);
-            break;
-        case "overflow":
-            throw new RuntimeException("Overflow in ALLZ");
-        }
-    }
-
-    private int readControl(BufferReader br, int minBits) {
-        int u = br.readUnary();
-        int n = br.readBits(u + minBits);
-        if (u > 0) {
-            return n + (((1 << u) - 1) << minBits);
-        } else {
-            return n;
-        }
-    }
-
-    private int readControlLength(BufferReader br) {
-        return 3 + readControl(br, this.minBitsLength);
-    }
-
-    private int readControlOffset(BufferReader br) {
-        return -1 - readControl(br, this.minBitsOffset);
-    }
-
-    private int readControlLiteral(BufferReader br) {
-        return 1 + readControl(br, this.minBitsLiteral);
-    }
-
-    private int copyWord(int dstOffset, int offset, int length) {
-        for (int i = 0; i < length; i++) {
-            int trueOffset = (offset < 0) ? dstOffset + offset : offset;
-            if (trueOffset >= 0 && trueOffset < dstOffset && dstOffset < this.dst.length) {
-                this.dst[dstOffset] = this.dst[trueOffset];
-            }
-            dstOffset++;
-        }
-        return dstOffset;
-    }
-
-    private int copyLiteral(BufferReader br, int dstOffset, int length) {
-        br.copy(this.dst, dstOffset, length);
-        return dstOffset + length;
+        this.dst = AllzDecoder.decode(buffer);
     }
 
     public byte[] getDst() {
@@ -369,8 +267,8 @@ class ALRD extends AL {
             int emptyLength = br.readByte();
             int lengthEN = br.readByte();
             int lengthJP = br.readByte();
-            header.nameEN = br.readString();
-            header.nameJP = br.readString();
+            header.nameEN = StringPool.SHARED.intern(br.readString());
+            header.nameJP = StringPool.SHARED.intern(br.readString());
             br.align(4);
             br.seek(emptyLength, Origin.CURRENT);
             br.align(4);
@@ -459,7 +357,7 @@ class ALTB extends AL {
 
             while (br.getPosition() < this.stringFieldEntry + this.stringFieldSize) {
                 int offset = br.getPosition() - this.stringFieldEntry;
-                String s = br.readString();
+                String s = StringPool.SHARED.intern(br.readString());
                 this.stringField.put(offset, s);
                 this.stringOffsetList.add(offset);
             }
@@ -718,7 +616,8 @@ class ALAR extends AL {
         for (int i = 0; i < this.count; i++) {
             ALAREntry entry = parseTocEntry(br, buffer);
 
-            // ファイル内容を取得
+            // ファイル内容を取得（範囲外を指すエントリは拒否する）
+            Objects.checkFromIndexSize(entry.address, entry.size, buffer.length);
             byte[] fileData = Arrays.copyOfRange(buffer, entry.address, entry.address + entry.size);
 
             // ファイル拡張子に応じて適切なクラスで解析
@@ -918,6 +817,8 @@ class ALTX extends AL {
     private int count;
     private Map<Integer, ALTXFrameTable> sprites = new HashMap<>();
     private byte[] image = new byte[0];
+    private ALIG alig;
+    private BufferedImage atlas;
     private String fakeImage;
     private int width = 0;
     private int height = 0;
@@ -1001,6 +902,7 @@ class ALTX extends AL {
             byte[] alignBuffer = br.readBytes(br.getLength() - br.getPosition());
             try {
                 ALIG alig = new ALIG(alignBuffer);
+                this.alig = alig;
                 this.image = alig.getImage();
                 this.width = alig.getWidth();
                 this.height = alig.getHeight();
@@ -1058,8 +960,13 @@ class ALTX extends AL {
             Files.write(Paths.get(txtPath), result.toString().getBytes(StandardCharsets.UTF_8));
             System.out.println("ALTX sprite info saved to: " + txtPath);
             
-            // 画像データがある場合は適切な形式で保存
-            if (this.image.length > 0) {
+            // 画像データがある場合はPNGに復号して保存し、復号できない場合は適切な形式で保存
+            BufferedImage decoded = toImage();
+            if (decoded != null) {
+                String imagePath = path.replace(".atx", ".png");
+                AligDecoder.png(decoded, Paths.get(imagePath));
+                System.out.println("ALTX image saved to: " + imagePath);
+            } else if (this.image.length > 0) {
                 String imageExtension = determineImageFormat(this.image);
                 String imagePath = path.replace(".atx", imageExtension);
                 Files.write(Paths.get(imagePath), this.image);
@@ -1136,6 +1043,36 @@ class ALTX extends AL {
         return ".bin";
     }
     
+    /**
+     * 埋め込まれたALIG画像を復号する（初回のみ復号し、以降は再利用）
+     *
+     * @return 復号した画像、外部画像や未知の形式の場合はnull
+     */
+    public synchronized BufferedImage toImage() {
+        if (atlas == null && alig != null && AligDecoder.bytesPerPixel(alig.getForm()) != 0) {
+            atlas = alig.toImage();
+        }
+        return atlas;
+    }
+
+    /**
+     * スプライトのフレームを画像から切り出す（画像データは複製せずに共有）
+     *
+     * @param index スプライト番号
+     * @return フレーム画像のリスト
+     */
+    public List<BufferedImage> toFrames(int index) {
+        List<BufferedImage> frames = new ArrayList<>();
+        ALTXFrameTable table = sprites.get(index);
+        BufferedImage atlas = toImage();
+        if (table != null && atlas != null) {
+            for (ALTXFrame frame : table.frames) {
+                frames.add(AligDecoder.frame(atlas, frame.x, frame.y, frame.width, frame.height));
+            }
+        }
+        return frames;
+    }
+
     // Getter methods
     public Map<Integer, ALTXFrameTable> getSprites() { return sprites; }
     public byte[] getImage() { return image; }
@@ -1187,8 +1124,27 @@ class ALIG extends AL {
         System.out.println("ALIG image: " + this.width + "x" + this.height + " (" + this.form + "/" + this.paletteForm + ")");
     }
     
+    /**
+     * 画素データをARGB形式に復号する
+     *
+     * @return 行優先の0xAARRGGBB配列
+     */
+    public int[] toARGB() {
+        return AligDecoder.decode(form, width, height, ByteBuffer.wrap(image));
+    }
+
+    /**
+     * 画素データを画像に復号する
+     *
+     * @return 復号した画像
+     */
+    public BufferedImage toImage() {
+        return AligDecoder.image(form, width, height, ByteBuffer.wrap(image));
+    }
+
     public byte[] getImage() { return image; }
     public int getWidth() { return width; }
     public int getHeight() { return height; }
     public String getForm() { return form; }
+    public String getPaletteForm() { return paletteForm; }
 }
\ No newline at end of file
@@ -1,32 +1,27 @@
 package walhalla.loader.fuel;
 
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.nio.charset.StandardCharsets;
+import walhalla.loader.io.BitReader;
+import walhalla.loader.io.ByteReader;
 
 public class BufferReader {
-    private ByteBuffer buffer;
-    private int position;
-    private int length;
-    private int bits = 0;
-    private int bitsCount = 0;
+    private final ByteReader core;
+    private final BitReader bits;
     
     public BufferReader(byte[] data) {
-        this.buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
-        this.position = 0;
-        this.length = data.length;
+        this.core = new ByteReader(data);
+        this.bits = new BitReader(core);
     }
     
     public int getPosition() {
-        return position;
+        return core.position();
     }
     
     public int getLength() {
-        return length;
+        return core.length();
     }
     
     public boolean overflow() {
-        return position > length;
+        return core.position() > core.length();
     }
     
     public void seek(int offset, Origin origin) {
@@ -36,70 +31,40 @@ public class BufferReader {
                 originPos = 0;
                 break;
             case CURRENT:
-                originPos = this.position;
+                originPos = core.position();
                 break;
             case END:
-                originPos = this.length - 1;
+                originPos = core.length() - 1;
                 offset = -offset;
                 break;
             default:
                 throw new RuntimeException("Unknown origin");
         }
-        this.position = originPos + offset;
+        core.position(originPos + offset);
     }
     
     public void align(int alignment) {
-        if (position % alignment != 0) {
-            position = position + (alignment - (position % alignment));
-        }
+        core.align(alignment);
     }
     
     public String readString() {
-        int start = position;
-        for (int i = 0; i < 0xFFFF; i++) {
-            byte b = buffer.get(position);
-            position++;
-            if (b == 0) {
-                break;
-            }
-        }
-        return new String(buffer.array(), start, position - start - 1, StandardCharsets.UTF_8);
+        return core.readCString(0xFFFF);
     }
     
     public String readString(int length) {
-        if (position + length > this.length) {
-            throw new IndexOutOfBoundsException("Buffer overflow");
-        }
-        String value = new String(buffer.array(), position, length, StandardCharsets.UTF_8);
-        position += length;
-        return value;
+        return core.readText(length);
     }
     
     public int readDword() {
-        if (position + 4 > length) {
-            throw new IndexOutOfBoundsException("Buffer overflow");
-        }
-        int value = buffer.getInt(position);
-        position += 4;
-        return value;
+        return core.readInt();
     }
     
     public int readInt() {
-        if (position + 4 > length) {
-            throw new IndexOutOfBoundsException("Buffer overflow");
-        }
-        int value = buffer.getInt(position);
-        position += 4;
-        return value;
+        return core.readInt();
     }
     
     public int readByte() {
-        if (position >= length) {
-            throw new IndexOutOfBoundsException("Buffer overflow");
-        }
-        int value = buffer.get(position) & 0xFF;
-        position++;
-        return value;
+        return core.readUByte();
     }
     
     public int readUByte() {
@@ -107,12 +72,7 @@ public class BufferReader {
     }
     
     public int readWord() {
-        if (position + 2 > length) {
-            throw new IndexOutOfBoundsException("Buffer overflow");
-        }
-        int value = buffer.getShort(position) & 0xFFFF;
-        position += 2;
-        return value;
+        return core.readUShort();
     }
     
     public int readUWord() {
@@ -120,69 +80,38 @@ public class BufferReader {
     }
     
     public short readShort() {
-        if (position + 2 > length) {
-            throw new IndexOutOfBoundsException("Buffer overflow");
-        }
-        short value = buffer.getShort(position);
-        position += 2;
-        return value;
+        return core.readShort();
     }
     
     public byte[] readBytes(int length) {
-        if (position + length > this.length) {
-            throw new IndexOutOfBoundsException("Buffer overflow");
-        }
-        byte[] bytes = new byte[length];
-        System.arraycopy(buffer.array(), position, bytes, 0, length);
-        position += length;
-        return bytes;
+        return core.readBytes(length);
     }
     
     public float readFloat() {
-        if (position + 4 > length) {
-            throw new IndexOutOfBoundsException("Buffer overflow");
-        }
-        float value = buffer.getFloat(position);
-        position += 4;
-        return value;
+        return core.readFloat();
     }
     
+    // the bit reader prefetches whole words, hand them back so byte reads continue where the bits stopped
     public int readBit() {
-        ensure(1);
-        int result = bits & 1;
-        bits = bits >> 1;
-        bitsCount -= 1;
+        int result = bits.readBit();
+        bits.sync();
         return result;
     }
     
     public int readBits(int count) {
-        ensure(count);
-        int result = bits & ((1 << count) - 1);
-        bits = bits >> count;
-        bitsCount -= count;
+        int result = bits.readBits(count);
+        bits.sync();
         return result;
     }
     
     public int readUnary() {
-        int n = 0;
-        while (readBit() == 1) {
-            n++;
-        }
+        int n = bits.readUnary();
+        bits.sync();
         return n;
     }
     
     public void copy(byte[] dest, int destOffset, int length) {
-        if (position + length > this.length) {
-            throw new IndexOutOfBoundsException("Buffer overflow");
-        }
-        System.arraycopy(buffer.array(), position, dest, destOffset, length);
-        position += length;
-    }
-    
-    private void ensure(int count) {
-        while (bitsCount < count) {
-            bits = bits | (readByte() << bitsCount);
-            bitsCount += 8;
-        }
+        core.getBytes(core.position(), dest, destOffset, length);
+        core.skip(length);
     }
 }
\ No newline at end of file
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2025 Nameless Production Committee
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://opensource.org/licenses/mit-license.php
+ */
+package walhalla.loader.io;
+
+/**
+ * LSB-first bit reader on top of a {@link ByteReader}.
+ * <p>
+ * The bit buffer is refilled a little-endian word at a time where possible, so the underlying
+ * reader may run ahead of the consumed bits. Call {@link #sync()} before reading bytes from the
+ * underlying reader to hand the prefetched whole bytes back; the bits left in a partially consumed
+ * byte stay buffered, exactly as with a byte-wise reader.
+ * </p>
+ */
+public final class BitReader {
+
+    /** The underlying byte source. */
+    private final ByteReader in;
+
+    /** The bit buffer, LSB first. Bits above {@link #count} may hold prefetched data. */
+    private long bits;
+
+    /** The number of valid bits in the buffer. */
+    private int count;
+
+    /**
+     * @param in The underlying byte source, positioned at the first byte of the bit stream.
+     */
+    public BitReader(ByteReader in) {
+        this.in = in;
+    }
+
+    /**
+     * Top up the bit buffer, one little-endian word at a time where possible.
+     */
+    private void refill() {
+        int pos = in.position();
+        if (8 <= in.length() - pos) {
+            bits |= in.getLong(pos) << count;
+            int bytes = (63 - count) >>> 3;
+            in.position(pos + bytes);
+            count += bytes << 3;
+        } else {
+            while (count <= 56 && pos < in.length()) {
+                bits |= (in.getByte(pos++) & 0xFFL) << count;
+                count += 8;
+            }
+            in.position(pos);
+        }
+    }
+
+    /**
+     * @return The next bit.
+     */
+    public int readBit() {
+        if (count == 0) {
+            refill();
+            if (count == 0) throw truncated();
+        }
+        int bit = (int) bits & 1;
+        bits >>>= 1;
+        count--;
+        return bit;
+    }
+
+    /**
+     * @param n The number of bits, up to 31.
+     * @return The next n bits as an unsigned value, the first bit in the least significant place.
+     */
+    public int readBits(int n) {
+        if (n < 0 || 31 < n) {
+            throw new IllegalArgumentException("Invalid bit width: " + n);
+        }
+        if (count < n) {
+            refill();
+            if (count < n) throw truncated();
+        }
+        int value = (int) (bits & ((1L << n) - 1));
+        bits >>>= n;
+        count -= n;
+        return value;
+    }
+
+    /**
+     * Count the run of 1 bits terminated by a 0 bit.
+     *
+     * @return The length of the run.
+     */
+    public int readUnary() {
+        int n = 0;
+        while (true) {
+            if (count == 0) {
+                refill();
+                if (count == 0) throw truncated();
+            }
+
+            int ones = Long.numberOfTrailingZeros(~bits);
+            if (ones < count) {
+                bits >>>= ones + 1;
+                count -= ones + 1;
+                return n + ones;
+            }
+            n += count;
+            bits = 0;
+            count = 0;
+        }
+    }
+
+    /**
+     * Hand the prefetched whole bytes back to the underlying reader, so it is positioned right
+     * after the last byte which bits were taken from.
+     */
+    public void sync() {
+        in.position(in.position() - (count >>> 3));
+        count &= 7;
+        bits &= (1L << count) - 1;
+    }
+
+    private static IndexOutOfBoundsException truncated() {
+        return new IndexOutOfBoundsException("Truncated bit stream.");
+    }
+}
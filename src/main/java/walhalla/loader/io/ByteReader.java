@@ -0,0 +1,387 @@
+/*
+ * Copyright (C) 2025 Nameless Production Committee
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://opensource.org/licenses/mit-license.php
+ */
+package walhalla.loader.io;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The little-endian reader core shared by the {@code fuel} and {@code parser} stacks.
+ * <p>
+ * Heap data is read through {@link VarHandle} array views, so a primitive read is one range check
+ * and one load instead of the position and limit bookkeeping of {@link ByteBuffer}. Direct and
+ * memory-mapped data falls back to absolute {@link ByteBuffer} reads. Decoded strings are kept in
+ * a small cache keyed by their byte range, so names which are read again (column headers, TOC
+ * entries) are decoded only once.
+ * </p>
+ * <p>
+ * The position may be moved past the end freely; only reads are checked. Instances are not
+ * thread-safe, use {@link #duplicate()} to read the same memory from another thread.
+ * </p>
+ */
+public final class ByteReader {
+
+    private static final VarHandle SHORT = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final VarHandle INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    /** The number of slots in the string cache, a power of two. */
+    private static final int CACHE = 256;
+
+    /** The heap data, or null when reading from {@link #buffer}. */
+    private final byte[] array;
+
+    /** The off-heap data, or null when reading from {@link #array}. */
+    private final ByteBuffer buffer;
+
+    /** The start of the data in the array. */
+    private final int offset;
+
+    /** The length of the data. */
+    private final int length;
+
+    /** The current position relative to the start of the data. */
+    private int position;
+
+    /** The byte ranges of the cached strings, packed as offset and length. */
+    private long[] cacheKeys;
+
+    /** The cached strings. */
+    private String[] cacheValues;
+
+    /**
+     * Read the whole array.
+     *
+     * @param data The data.
+     */
+    public ByteReader(byte[] data) {
+        this(data, 0, data.length);
+    }
+
+    /**
+     * Read the specified range of the array. Positions are relative to the start of the range.
+     *
+     * @param data The data.
+     * @param offset The start of the range.
+     * @param length The length of the range.
+     */
+    public ByteReader(byte[] data, int offset, int length) {
+        if (offset < 0 || length < 0 || data.length - offset < length) {
+            throw new IndexOutOfBoundsException("Range [" + offset + ", " + offset + " + " + length + ") is out of " + data.length);
+        }
+        this.array = data;
+        this.buffer = null;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Read the remaining bytes of the buffer without copying them. Positions are relative to the
+     * current position of the buffer, which is never modified.
+     *
+     * @param data The heap, direct or memory-mapped buffer.
+     */
+    public ByteReader(ByteBuffer data) {
+        if (data.hasArray()) {
+            this.array = data.array();
+            this.buffer = null;
+            this.offset = data.arrayOffset() + data.position();
+        } else {
+            this.array = null;
+            this.buffer = data.slice().order(ByteOrder.LITTLE_ENDIAN);
+            this.offset = 0;
+        }
+        this.length = data.remaining();
+    }
+
+    /**
+     * @return The current position.
+     */
+    public int position() {
+        return position;
+    }
+
+    /**
+     * @param position The new position.
+     */
+    public void position(int position) {
+        this.position = position;
+    }
+
+    /**
+     * @return The length of the data.
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * @return The number of bytes between the current position and the end.
+     */
+    public int remaining() {
+        return length - position;
+    }
+
+    /**
+     * Move the position forward.
+     *
+     * @param bytes The number of bytes to skip.
+     */
+    public void skip(int bytes) {
+        position += bytes;
+    }
+
+    /**
+     * Round the position up to the next multiple of the alignment.
+     *
+     * @param alignment The alignment in bytes.
+     */
+    public void align(int alignment) {
+        int mod = position % alignment;
+        if (mod != 0) {
+            position += alignment - mod;
+        }
+    }
+
+    private int check(int index, int size) {
+        if (index < 0 || size < 0 || length - size < index) {
+            throw new IndexOutOfBoundsException("Read of " + size + " bytes at " + index + " is out of " + length);
+        }
+        return offset + index;
+    }
+
+    public byte getByte(int index) {
+        int i = check(index, 1);
+        return array != null ? array[i] : buffer.get(i);
+    }
+
+    public int getUByte(int index) {
+        return getByte(index) & 0xFF;
+    }
+
+    public short getShort(int index) {
+        int i = check(index, 2);
+        return array != null ? (short) SHORT.get(array, i) : buffer.getShort(i);
+    }
+
+    public int getUShort(int index) {
+        return getShort(index) & 0xFFFF;
+    }
+
+    public int getInt(int index) {
+        int i = check(index, 4);
+        return array != null ? (int) INT.get(array, i) : buffer.getInt(i);
+    }
+
+    public long getLong(int index) {
+        int i = check(index, 8);
+        return array != null ? (long) LONG.get(array, i) : buffer.getLong(i);
+    }
+
+    public float getFloat(int index) {
+        return Float.intBitsToFloat(getInt(index));
+    }
+
+    public byte readByte() {
+        byte value = getByte(position);
+        position += 1;
+        return value;
+    }
+
+    public int readUByte() {
+        return readByte() & 0xFF;
+    }
+
+    public short readShort() {
+        short value = getShort(position);
+        position += 2;
+        return value;
+    }
+
+    public int readUShort() {
+        return readShort() & 0xFFFF;
+    }
+
+    public int readInt() {
+        int value = getInt(position);
+        position += 4;
+        return value;
+    }
+
+    public long readLong() {
+        long value = getLong(position);
+        position += 8;
+        return value;
+    }
+
+    public float readFloat() {
+        return Float.intBitsToFloat(readInt());
+    }
+
+    /**
+     * Copy the bytes at the specified range into the given array.
+     *
+     * @param index The absolute start position.
+     * @param dst The destination.
+     * @param dstOffset The start position in the destination.
+     * @param size The number of bytes to copy.
+     */
+    public void getBytes(int index, byte[] dst, int dstOffset, int size) {
+        int i = check(index, size);
+        if (array != null) {
+            System.arraycopy(array, i, dst, dstOffset, size);
+        } else {
+            buffer.get(i, dst, dstOffset, size);
+        }
+    }
+
+    /**
+     * Read the specified number of bytes into a new array.
+     *
+     * @param size The number of bytes.
+     * @return The read bytes.
+     */
+    public byte[] readBytes(int size) {
+        check(position, size);
+        byte[] bytes = new byte[size];
+        getBytes(position, bytes, 0, size);
+        position += size;
+        return bytes;
+    }
+
+    /**
+     * Find the first NUL byte.
+     *
+     * @param from The absolute start position.
+     * @param max The maximum number of bytes to scan.
+     * @return The absolute position of the NUL byte, or -1 when there is none in the range.
+     */
+    public int indexOfNul(int from, int max) {
+        int end = (int) Math.min((long) from + max, length);
+        if (array != null) {
+            for (int i = from; i < end; i++) {
+                if (array[offset + i] == 0) return i;
+            }
+        } else {
+            for (int i = from; i < end; i++) {
+                if (buffer.get(i) == 0) return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Decode UTF-8 text at the specified range. The result is cached by its range.
+     *
+     * @param index The absolute start position.
+     * @param size The byte length of the text.
+     * @return The decoded text.
+     */
+    public String getString(int index, int size) {
+        if (size == 0) {
+            return "";
+        }
+        int i = check(index, size);
+
+        if (cacheKeys == null) {
+            cacheKeys = new long[CACHE];
+            cacheValues = new String[CACHE];
+        }
+        long key = ((long) index << 32) | size;
+        int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 56) & (CACHE - 1);
+        String cached = cacheValues[slot];
+        if (cached != null && cacheKeys[slot] == key) {
+            return cached;
+        }
+
+        String value;
+        if (array != null) {
+            value = new String(array, i, size, StandardCharsets.UTF_8);
+        } else {
+            byte[] bytes = new byte[size];
+            buffer.get(i, bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        cacheKeys[slot] = key;
+        cacheValues[slot] = value;
+        return value;
+    }
+
+    /**
+     * Decode the NUL-terminated UTF-8 text at the specified position.
+     *
+     * @param index The absolute start position.
+     * @param max The maximum byte length of the text.
+     * @return The decoded text without the terminator.
+     */
+    public String getCString(int index, int max) {
+        int end = indexOfNul(index, max);
+        return getString(index, end < 0 ? (int) Math.min(max, (long) length - index) : end - index);
+    }
+
+    /**
+     * Read the specified number of bytes as UTF-8 text, including any embedded NUL.
+     *
+     * @param size The byte length of the text.
+     * @return The decoded text.
+     */
+    public String readText(int size) {
+        String value = getString(position, size);
+        position += size;
+        return value;
+    }
+
+    /**
+     * Read the NUL-terminated text and consume its terminator. When no terminator is found within
+     * the maximum length, the whole range is consumed as text.
+     *
+     * @param max The maximum byte length of the text including the terminator.
+     * @return The decoded text.
+     */
+    public String readCString(int max) {
+        int end = indexOfNul(position, max);
+        if (end < 0) {
+            if (length - position < max) {
+                throw new IndexOutOfBoundsException("Unterminated string at " + position);
+            }
+            return readText(max);
+        }
+        String value = getString(position, end - position);
+        position = end + 1;
+        return value;
+    }
+
+    /**
+     * Create an independent reader over the same memory, positioned at the start.
+     *
+     * @return A new reader sharing the data.
+     */
+    public ByteReader duplicate() {
+        return array != null ? new ByteReader(array, offset, length) : new ByteReader(buffer);
+    }
+
+    /**
+     * Expose the specified range as a read-only little-endian view sharing the memory.
+     *
+     * @param index The absolute start position.
+     * @param size The length of the range.
+     * @return The view of the range.
+     */
+    public ByteBuffer slice(int index, int size) {
+        int i = check(index, size);
+        ByteBuffer view = array != null ? ByteBuffer.wrap(array, i, size).slice() : buffer.slice(i, size);
+        return view.asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
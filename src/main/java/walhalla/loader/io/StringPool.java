@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2025 Nameless Production Committee
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://opensource.org/licenses/mit-license.php
+ */
+package walhalla.loader.io;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Deduplicating pool for the strings of ALTB tables.
+ * <p>
+ * Each table gets a {@link Block} over its string block, which decodes the NUL-terminated string
+ * at a given offset only once. Every decoded value is interned in the pool, so column names and
+ * skill or ability texts which appear in many tables share a single instance when all tables are
+ * loaded together.
+ * </p>
+ * <p>
+ * The pool holds its strings weakly, so it never keeps a string alive by itself. A string stays
+ * pooled while a table which decoded it is reachable, and goes away with the last such table, so
+ * exporting the whole tree one archive at a time doesn't accumulate every string ever read.
+ * </p>
+ */
+public final class StringPool {
+
+    /** The pool shared by all parsers. */
+    public static final StringPool SHARED = new StringPool();
+
+    /** The number of stripes of the pool, a power of two. */
+    private static final int STRIPES = 64;
+
+    /** The interned strings, striped by their hash to spread the locks between threads. */
+    private final Map<String, WeakReference<String>>[] stripes = new Map[STRIPES];
+
+    public StringPool() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new WeakHashMap<>();
+        }
+    }
+
+    /**
+     * Return the shared instance which is equal to the given string.
+     *
+     * @param value The string to intern, may be null.
+     * @return The shared instance.
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+
+        Map<String, WeakReference<String>> stripe = stripe(value);
+        synchronized (stripe) {
+            WeakReference<String> reference = stripe.get(value);
+            String existing = reference == null ? null : reference.get();
+            if (existing != null) {
+                return existing;
+            }
+            stripe.put(value, new WeakReference<>(value));
+            return value;
+        }
+    }
+
+    /**
+     * @return The number of interned strings which are still reachable.
+     */
+    public int size() {
+        int size = 0;
+        for (Map<String, WeakReference<String>> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Drop all interned strings.
+     */
+    public void clear() {
+        for (Map<String, WeakReference<String>> stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    private Map<String, WeakReference<String>> stripe(String value) {
+        int h = value.hashCode() * 0x9E3779B9;
+        return stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+    }
+
+    /**
+     * Create the view of the string block of a single table.
+     *
+     * @param reader The reader of the table.
+     * @param start The absolute start position of the string block.
+     * @param size The byte size of the string block.
+     * @return The view of the block.
+     */
+    public Block block(ByteReader reader, int start, int size) {
+        return new Block(reader, start, size);
+    }
+
+    /**
+     * The string block of a single table, whose strings are keyed by their offset in the block.
+     * The block reads through its own duplicate of the table reader, so it can outlive the parser
+     * and be shared between threads.
+     */
+    public final class Block {
+
+        private final ByteReader reader;
+
+        private final int start;
+
+        private final int size;
+
+        /** The open-addressed offsets, -1 marks an empty slot. */
+        private int[] keys = new int[64];
+
+        private String[] values = new String[64];
+
+        private int count;
+
+        private Block(ByteReader reader, int start, int size) {
+            this.reader = reader.duplicate();
+            this.start = start;
+            this.size = size;
+            Arrays.fill(keys, -1);
+        }
+
+        /**
+         * Test whether the offset points into this block.
+         *
+         * @param offset The offset in the block.
+         * @return true when the offset is inside the block.
+         */
+        public boolean contains(int offset) {
+            return 0 <= offset && offset < size;
+        }
+
+        /**
+         * Get the NUL-terminated string at the offset, decoding it on the first access only.
+         *
+         * @param offset The offset in the block.
+         * @return The shared string instance.
+         */
+        public synchronized String get(int offset) {
+            int mask = keys.length - 1;
+            int slot = mix(offset) & mask;
+            while (keys[slot] != -1) {
+                if (keys[slot] == offset) {
+                    return values[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            String value = intern(reader.getCString(start + offset, size - offset));
+            keys[slot] = offset;
+            values[slot] = value;
+            if (keys.length < ++count * 2) {
+                grow();
+            }
+            return value;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            String[] oldValues = values;
+            keys = new int[oldKeys.length * 2];
+            values = new String[oldKeys.length * 2];
+            Arrays.fill(keys, -1);
+
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != -1) {
+                    int slot = mix(oldKeys[i]) & mask;
+                    while (keys[slot] != -1) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+
+        private int mix(int offset) {
+            int h = offset * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
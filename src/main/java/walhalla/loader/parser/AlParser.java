@@ -1,9 +1,14 @@
 package walhalla.loader.parser;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 
+import walhalla.loader.codec.AligDecoder;
+import walhalla.loader.codec.AllzDecoder;
+import walhalla.loader.io.StringPool;
 import walhalla.loader.parser.data.AlObject;
 import walhalla.loader.parser.data.All4;
 import walhalla.loader.parser.data.Alar;
@@ -19,15 +24,59 @@ import walhalla.loader.parser.io.BinaryReader;
 
 public class AlParser {
 
+    /** The maximum nesting of objects, far above the archives in texture archives of the game. */
+    private static final int MAX_DEPTH = 16;
+
     private BinaryReader reader;
 
     private boolean decompressOnly;
 
+    private boolean lazy;
+
+    /** The number of objects being parsed, which an archive pointing at itself would exhaust. */
+    private int depth;
+
+    /**
+     * In lazy mode, archive entries keep only their table of contents and are parsed on first
+     * access, so looking up a single entry costs a walk over the TOC rather than the whole archive.
+     *
+     * @param lazy true to defer the parsing of archive entries.
+     * @return Chainable API.
+     */
+    public AlParser lazy(boolean lazy) {
+        this.lazy = lazy;
+        return this;
+    }
+
     public AlObject parse(byte[] data) {
         this.reader = new BinaryReader(data);
         return parseObject();
     }
 
+    /**
+     * Parse the specified buffer in place. Archive entries are exposed as views of the given
+     * buffer instead of copied arrays.
+     *
+     * @param data The source buffer.
+     * @return The parsed object.
+     */
+    public AlObject parse(ByteBuffer data) {
+        this.reader = new BinaryReader(data);
+        return parseObject();
+    }
+
+    /**
+     * Parse the specified file through a read-only memory mapping, so the whole file never has
+     * to be loaded into the heap.
+     *
+     * @param file The file to parse.
+     * @return The parsed object.
+     */
+    public AlObject parse(Path file) {
+        this.reader = BinaryReader.map(file);
+        return parseObject();
+    }
+
     public byte[] decompress(byte[] data) {
         this.reader = new BinaryReader(data);
         this.decompressOnly = true;
@@ -43,6 +92,29 @@ public class AlParser {
         String objectType = new String(reader.getBytes(4), StandardCharsets.UTF_8);
         reader.position(startPosition); // Reset position to be read by specific parsers
 
+        if (MAX_DEPTH < ++depth) {
+            throw new IllegalArgumentException("Objects are nested deeper than " + MAX_DEPTH + " at " + startPosition);
+        }
+        try {
+            return parseObject(objectType, startPosition);
+        } finally {
+            depth--;
+        }
+    }
+
+    /**
+     * Parse the nested object which must be of the specified type.
+     */
+    private <T extends AlObject> T parseObject(Class<T> type) {
+        int startPosition = reader.position();
+        AlObject object = parseObject();
+        if (!type.isInstance(object)) {
+            throw new IllegalArgumentException("Expected " + type.getSimpleName() + " but " + object.getClass().getSimpleName() + " at " + startPosition);
+        }
+        return type.cast(object);
+    }
+
+    private AlObject parseObject(String objectType, int startPosition) {
         switch (objectType) {
         case "ALAR":
             return parseAlar();
@@ -74,8 +146,11 @@ public class AlParser {
 
         reader.position(base + 4);
         int version = reader.readUByte();
+        alar.version = version;
+        alar.header = reader.getBytes(base, 0x10);
 
-        int recordCount = reader.readWord();
+        reader.position(base + 6);
+        int recordCount = reader.readUWord();
         reader.position(base + 0x10);
 
         if (version == 3) {
@@ -83,21 +158,24 @@ public class AlParser {
             for (int i = 0; i < recordCount; i++) {
                 reader.readWord(); // toc_offset
             }
-            reader.align(4, 1);
+            reader.align(4);
         }
 
         for (int i = 0; i < recordCount; i++) {
             Alar.AlarEntry entry = new Alar.AlarEntry();
             Alar.TocEntry toc = new Alar.TocEntry();
+            toc.record = reader.getBytes(reader.position(), version == 2 ? 0x10 : 0x12);
             if (version == 2) {
                 toc.index = reader.readWord();
                 reader.readWord(); // unused
                 toc.address = reader.readDword();
                 toc.size = reader.readDword();
                 reader.readDword(); // unused
+                int next = reader.position();
                 reader.position(base + toc.address - 0x22);
                 toc.name = reader.readString(0x20);
                 toc.name = toc.name.trim();
+                reader.position(next);
             } else { // version 3
                 toc.index = reader.readWord();
                 reader.readWord(); // unused
@@ -105,30 +183,60 @@ public class AlParser {
                 toc.size = reader.readDword();
                 reader.position(reader.position() + 6);
                 toc.name = reader.readString();
-                reader.align(4, 1);
+                reader.align(4);
             }
+            entry.name = toc.name;
             entry.toc = toc;
-
-            int currentPos = reader.position();
-            reader.position(base + toc.address);
-            String extension = toc.name.substring(toc.name.lastIndexOf('.') + 1);
-            if (extension.equals("txt") || extension.equals("lua")) {
-                TextObject text = new TextObject();
-                text.type = "TEXT";
-                text.text = new String(reader.getBytes(toc.size), StandardCharsets.UTF_8);
-                entry.value = text;
+            entry.data = reader.slice(base + toc.address, toc.size);
+
+            if (lazy) {
+                BinaryReader source = reader;
+                int address = base + toc.address;
+                entry.defer(() -> {
+                    AlParser child = new AlParser();
+                    child.lazy = true;
+                    child.reader = source.duplicate();
+                    return child.parseEntry(address, toc);
+                });
             } else {
-                entry.value = parseObject();
+                int currentPos = reader.position();
+                entry.value = parseEntry(base + toc.address, toc);
                 if (entry.value instanceof Altx) {
                     alar.textures.add((Altx) entry.value);
                 }
+                reader.position(currentPos);
             }
             alar.entries.add(entry);
-            reader.position(currentPos);
         }
         return alar;
     }
 
+    /**
+     * Test whether the archive entry is parsed as plain text rather than as an AL object.
+     *
+     * @param name The entry name.
+     * @return true for text entries.
+     */
+    public static boolean isText(String name) {
+        String extension = name.substring(name.lastIndexOf('.') + 1);
+        return extension.equals("txt") || extension.equals("lua");
+    }
+
+    /**
+     * Parse the archive entry which starts at the specified absolute position.
+     */
+    private AlObject parseEntry(int address, Alar.TocEntry toc) {
+        reader.position(address);
+        if (isText(toc.name)) {
+            TextObject text = new TextObject();
+            text.type = "TEXT";
+            text.text = reader.readText(toc.size);
+            return text;
+        } else {
+            return parseObject();
+        }
+    }
+
     private All4 parseAll4() {
         All4 all4 = new All4();
         all4.type = "ALL4";
@@ -157,9 +265,9 @@ public class AlParser {
             // Try to read name (assuming null-terminated string)
             entry.name = reader.readString();
             
-            // Read the actual data
+            // Expose the actual data as a view
             int dataStart = reader.position();
-            entry.data = reader.getBytes(entry.size - (dataStart - entryPos));
+            entry.data = reader.slice(dataStart, entry.size - (dataStart - entryPos));
         }
         
         return all4;
@@ -173,9 +281,9 @@ public class AlParser {
 
         int version = reader.readUByte();
         int form = reader.readUByte();
-        int count = reader.readWord();
+        int count = reader.readUWord();
         int unk1 = reader.readWord();
-        int entryOffset = startOffset + reader.readWord();
+        int entryOffset = startOffset + reader.readUWord();
         int size = reader.readDword();
 
         int stringsStart = 0, stringsSize = 0;
@@ -188,71 +296,64 @@ public class AlParser {
         if (form == 0x1e) {
             reader.readDword(); // names_start, not used to set position
         }
+        StringPool.Block strings = stringsStart == 0 ? null : reader.strings(stringsStart, stringsSize);
+        if (stringsStart != 0 && 0 <= stringsSize && stringsStart <= reader.capacity() - stringsSize) {
+            altb.strings = reader.slice(stringsStart, stringsSize);
+        }
 
         String label = reader.readString(4);
 
         altb.header = new Altb.Header();
         altb.header.name = label;
-        altb.header.object = (Alrd) parseObject();
+        altb.header.object = parseObject(Alrd.class);
 
-        reader.align(4, 1);
+        reader.align(4);
+
+        altb.version = version;
+        altb.form = form;
+        altb.rowSize = size;
+        altb.size = count;
+        for (Alrd.AlrdEntry headerEntry : altb.header.object.entries) {
+            altb.columns.add(new Altb.Column(headerEntry, count, strings));
+        }
 
         reader.position(entryOffset);
         for (int i = 0; i < count; i++) {
-            List<Altb.DataEntry> row = new ArrayList<>();
             int rowStartOffset = reader.position();
 
-            for (Alrd.AlrdEntry headerEntry : altb.header.object.entries) {
-                Altb.DataEntry dataEntry = new Altb.DataEntry();
-                dataEntry.key = headerEntry;
-
-                int valueOffset = rowStartOffset + headerEntry.offset;
+            for (Altb.Column column : altb.columns) {
+                int valueOffset = rowStartOffset + column.key.offset;
                 if (valueOffset >= reader.capacity()) {
                     // Skip invalid offset
-                    dataEntry.value = null;
-                    row.add(dataEntry);
+                    column.setMissing(i);
                     continue;
                 }
                 reader.position(valueOffset);
 
-                Object value = null;
-                if (headerEntry.type == 1) {
-                    value = reader.readSDword();
-                } else if (headerEntry.type == 0x20) {
-                    int offset = reader.readSDword();
-                    if (stringsStart != 0 && offset >= 0 && offset < stringsSize) {
-                        int stringOffset = stringsStart + offset;
-                        int savedPos = reader.position();
-                        reader.position(stringOffset);
-                        value = reader.readString();
-                        reader.position(savedPos);
-                    } else {
-                        value = offset;
-                    }
-                } else if (headerEntry.type == 4) {
-                    value = reader.readFloat();
-                } else if (headerEntry.type == 5) {
-                    value = reader.readUByte();
+                int type = column.key.type;
+                if (type == 1 || type == 0x20) {
+                    column.setInt(i, reader.readSDword());
+                } else if (type == 4) {
+                    column.setFloat(i, reader.readFloat());
+                } else if (type == 5) {
+                    column.setByte(i, reader.readUByte());
                 }
-                dataEntry.value = value;
-                row.add(dataEntry);
             }
-            altb.rows.add(row);
             reader.position(rowStartOffset + size);
         }
 
-        reader.align(4, 1);
+        reader.align(4);
 
         if (stringsStart != 0) {
             reader.position(stringsStart + stringsSize);
-            reader.align(4, 1);
+            reader.align(4);
         }
 
         if (form == 0x1e) {
             reader.readDword(); // unk_names
             int nameLen = reader.readUByte();
             altb.name = reader.readString(nameLen);
-            reader.align(4, 1);
+            reader.align(4);
         }
 
         return altb;
@@ -262,6 +363,7 @@ public class AlParser {
         Alrd alrd = new Alrd();
         alrd.type = "ALRD";
         int startOffset = reader.position();
+        alrd.header = reader.getBytes(startOffset, 10);
 
         reader.position(startOffset + 6);
         int count = reader.readUByte();
@@ -278,16 +380,15 @@ public class AlParser {
             int lenEn = reader.readUByte();
             int lenJp = reader.readUByte();
 
-            byte[] enBytes = reader.getBytes(lenEn);
-            entry.nameEn = new String(enBytes, StandardCharsets.UTF_8);
+            entry.nameEn = StringPool.SHARED.intern(reader.readText(lenEn));
             reader.position(reader.position() + 1);
 
-            byte[] jpBytes = reader.getBytes(lenJp);
-            entry.nameJp = new String(jpBytes, StandardCharsets.UTF_8);
+            entry.nameJp = StringPool.SHARED.intern(reader.readText(lenJp));
+            reader.position(reader.position() + 1);
 
-            reader.align(4, 1);
-            reader.position(reader.position() + b);
-            reader.align(4, 1);
+            reader.align(4);
+            entry.extra = reader.getBytes(b);
+            reader.align(4);
 
             alrd.entries.add(entry);
         }
@@ -310,7 +411,7 @@ public class AlParser {
             for (int i = 0; i < count; i++) {
                 blockStarts.add(startOffset + reader.readWord());
             }
-            reader.align(4, 1);
+            reader.align(4);
 
             for (int i = 0; i < count; i++) {
                 String frameName = null;
@@ -344,7 +445,7 @@ public class AlParser {
 
         reader.position(aligOffset);
         if (form == 0) {
-            altx.rawImage = (Alig) parseObject();
+            altx.rawImage = parseObject(Alig.class);
         } else if (form == 0x0e) {
             altx.width = reader.readWord();
             altx.height = reader.readWord();
@@ -356,17 +457,24 @@ public class AlParser {
     private Alig parseAlig() {
         Alig alig = new Alig();
         alig.type = "ALIG";
-        reader.position(reader.position() + 4);
+        int startOffset = reader.position();
+        reader.position(startOffset + 4);
 
         int version = reader.readUByte();
         reader.position(reader.position() + 3);
 
-        String format = reader.readString(4);
-        String paletteFormat = reader.readString(4);
+        alig.format = reader.readString(4);
+        alig.paletteFormat = reader.readString(4);
         alig.width = reader.readDword();
         alig.height = reader.readDword();
 
-        // Skipping image data parsing as per requirements
+        // The pixels follow the header and are exposed as a view, decoded on demand
+        int pixelOffset = startOffset + AligDecoder.HEADER_SIZE;
+        int available = Math.max(0, reader.capacity() - pixelOffset);
+        int bytes = AligDecoder.bytesPerPixel(alig.format);
+        int size = bytes == 0 ? available : (int) Math.min(available, (long) alig.width * alig.height * bytes);
+        alig.pixels = reader.slice(pixelOffset, size);
+        reader.position(pixelOffset + size);
 
         return alig;
     }
@@ -405,7 +513,7 @@ public class AlParser {
                 reader.position((int) field.get("offset"));
                 field.put("name", reader.readString());
             }
-            reader.align(4, 1);
+            reader.align(4);
         } else {
             reader.position(reader.position() + 4);
         }
@@ -430,7 +538,7 @@ public class AlParser {
                 for (int i = 0; i < fieldCountNonStream + fieldCountStream; i++) {
                     fieldDescs.add(reader.readUByte());
                 }
-                reader.align(2, 1);
+                reader.align(2);
 
                 List<Integer> fieldOffsets = new ArrayList<>();
                 for (int i = 0; i < fieldCountNonStream + fieldCountStream; i++) {
@@ -441,29 +549,24 @@ public class AlParser {
                     int fieldDesc = fieldDescs.get(i);
                     int fieldIdx = (fieldDesc & 0x0f);
                     java.util.Map<String, Object> field = fields.get(fieldIdx);
-                    String fieldName = (String) field.get("name");
-
-                    List<Almt.StreamFrame> stream = new ArrayList<>();
-
-                    java.util.function.Supplier<Object> parser = getAlmtFieldParser(fieldName);
+                    Almt.Field target = Almt.Field.of((String) field.get("name"));
 
+                    Almt.Track track;
                     if (i >= fieldCountNonStream) {
+                        track = new Almt.Track(target, true, 16);
                         while (true) {
-                            int time = reader.readWord();
+                            int time = reader.readWord() & 0xffff;
                             if (time == 0xffff) break;
                             if (time == 0x494c) continue;
 
-                            Almt.StreamFrame frame = new Almt.StreamFrame();
-                            frame.time = time;
-                            frame.data = parser.get();
-                            stream.add(frame);
+                            readAlmtValue(track, track.add(time));
                         }
+                        track.trim();
                     } else {
-                        Almt.StreamFrame frame = new Almt.StreamFrame();
-                        frame.data = parser.get();
-                        stream.add(frame);
+                        track = new Almt.Track(target, false, 1);
+                        readAlmtValue(track, track.add(0));
                     }
-                    entry.data.put(fieldName, stream);
+                    entry.tracks.put(target, track);
                 }
             } else {
                 reader.readDword(); // Should be 0
@@ -479,53 +582,26 @@ public class AlParser {
         return almt;
     }
 
-    private java.util.function.Supplier<Object> getAlmtFieldParser(String fieldName) {
-        switch (fieldName) {
-        case "PatternNo":
-        case "BlendMode":
-        case "Disp":
-        case "HFlip":
-        case "VFlip":
-            return () -> reader.readWord();
-        case "Texture0ID":
-            return () -> {
-                java.util.Map<String, Short> t = new java.util.HashMap<>();
-                t.put("id1", reader.readWord());
-                t.put("id2", reader.readWord());
-                return t;
-            };
-        case "Alpha":
-        case "DrawPrioOffset":
-            return () -> reader.readFloat();
-        case "Pos":
-            return () -> {
-                int[] t = new int[3];
-                for (int i = 0; i < 3; i++)
-                    t[i] = reader.readDword();
-                return t;
-            };
-        case "ParentNodeID":
-            return () -> reader.readString(4);
-        case "Rot":
-            return () -> reader.readDword();
-        case "Scale":
-        case "Center":
-            return () -> {
-                java.util.Map<String, Float> t = new java.util.HashMap<>();
-                t.put("x", reader.readFloat());
-                t.put("y", reader.readFloat());
-                t.put("z", reader.readFloat());
-                return t;
-            };
-        case "Color3":
-            return () -> {
-                float[] t = new float[3];
-                for (int i = 0; i < 3; i++)
-                    t[i] = reader.readFloat();
-                return t;
-            };
-        default:
-            throw new UnsupportedOperationException("Unsupported ALMT field: " + fieldName);
+    /**
+     * Read the components of the keyframe into the track.
+     */
+    private void readAlmtValue(Almt.Track track, int frame) {
+        Almt.Field field = track.field;
+        for (int i = 0; i < field.components; i++) {
+            switch (field.kind) {
+            case SHORT:
+                track.setInt(frame, i, reader.readWord());
+                break;
+            case INT:
+                track.setInt(frame, i, reader.readDword());
+                break;
+            case FLOAT:
+                track.setFloat(frame, i, reader.readFloat());
+                break;
+            case NAME:
+                track.setName(frame, reader.readString(4));
+                break;
+            }
         }
     }
 
@@ -558,10 +634,10 @@ public class AlParser {
             reader.position(fieldOffsets.get(i));
             fields.add(reader.readString());
         }
-        reader.align(4, 1);
+        reader.align(4);
 
         for (int i = 0; i < countEntries; i++) {
-            reader.align(4, 1);
+            reader.align(4);
             reader.position(entryOffsets.get(i));
 
             Alod.AlodEntry entry = new Alod.AlodEntry();
@@ -577,7 +653,7 @@ public class AlParser {
             for (int j = 0; j < countEntryFields; j++) {
                 entryFieldIndices.add(reader.readUByte());
             }
-            reader.align(2, 1);
+            reader.align(2);
 
             for (int j = 0; j < countEntryFields; j++) {
                 String field = fields.get(entryFieldIndices.get(j));
@@ -608,7 +684,7 @@ public class AlParser {
 
         if (form == 2) {
             reader.position(mtOffset);
-            alod.mt = (Almt) parseObject();
+            alod.mt = parseObject(Almt.class);
         }
 
         return alod;
@@ -617,97 +693,15 @@ public class AlParser {
     private AlObject parseAllz() {
         Allz allz = new Allz();
         allz.type = "ALLZ";
-        reader.position(reader.position() + 4);
-
-        int version = reader.readUByte();
-        int minBitsLength = reader.readUByte();
-        int minBitsOffset = reader.readUByte();
-        int minBitsLiteral = reader.readUByte();
-        int dstSize = reader.readDword();
-
-        byte[] dst = new byte[dstSize];
-        int[] dstPtr = {0};
-
-        int bits = 0;
-        int bitsCount = 0;
-
-        BitReader bitReader = new BitReader(reader);
-
-        java.util.function.Function<Integer, Integer> readControl = (minBits) -> {
-            int u = bitReader.readUnary();
-            int n = bitReader.readBits(u + minBits);
-            if (u > 0) {
-                return n + (((1 << u) - 1) << minBits);
-            } else {
-                return n;
-            }
-        };
-
-        java.util.function.Supplier<Integer> readControlLiteral = () -> 1 + readControl.apply(minBitsLiteral);
-        java.util.function.Supplier<Integer> readControlOffset = () -> -1 - readControl.apply(minBitsOffset);
-        java.util.function.Supplier<Integer> readControlLength = () -> 3 + readControl.apply(minBitsLength);
-
-        java.util.function.Consumer<Integer> copyLiteral = (control) -> {
-            for (int i = 0; i < control; i++) {
-                dst[dstPtr[0]++] = reader.readByte();
-            }
-        };
-
-        java.util.function.BiConsumer<Integer, Integer> copyWord = (offset, length) -> {
-            for (int i = 0; i < length; i++) {
-                dst[dstPtr[0]] = dst[dstPtr[0] + offset];
-                dstPtr[0]++;
-            }
-        };
-
-        copyLiteral.accept(readControlLiteral.get());
-
-        int wordOff = readControlOffset.get();
-        int wordLen = readControlLength.get();
-
-        while (dstPtr[0] < dstSize) {
-            if (dstPtr[0] + wordLen >= dstSize) {
-                copyWord.accept(wordOff, dstSize - dstPtr[0]);
-                break;
-            }
-
-            if (bitReader.readBit() == 0) {
-                int literal = readControlLiteral.get();
-                if (dstPtr[0] + wordLen + literal >= dstSize) {
-                    copyWord.accept(wordOff, wordLen);
-                    copyLiteral.accept(dstSize - dstPtr[0]);
-                    break;
-                }
-
-                int literalOffset = reader.position();
-                reader.position(reader.position() + literal);
-                int nextOff = readControlOffset.get();
-                int nextLen = readControlLength.get();
-
-                copyWord.accept(wordOff, wordLen);
-
-                int controlOffset = reader.position();
-                reader.position(literalOffset);
-                copyLiteral.accept(literal);
-                reader.position(controlOffset);
-
-                wordOff = nextOff;
-                wordLen = nextLen;
-            } else {
-                int nextOff = readControlOffset.get();
-                int nextLen = readControlLength.get();
-                copyWord.accept(wordOff, wordLen);
-                wordOff = nextOff;
-                wordLen = nextLen;
-            }
-        }
+        int start = reader.position();
 
+        byte[] dst = AllzDecoder.decode(reader.slice(start, reader.capacity() - start));
         allz.setLz(dst);
 
         if (decompressOnly) {
             return allz;
         } else {
-            return new AlParser().parse(dst);
+            return new AlParser().lazy(lazy).parse(dst);
         }
     }
 }
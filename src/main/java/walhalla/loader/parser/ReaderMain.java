@@ -11,13 +11,14 @@ package walhalla.loader.parser;
 
 import psychopath.File;
 import psychopath.Locator;
+import walhalla.loader.codec.DecodedCache;
 import walhalla.loader.parser.data.AlObject;
 
 public class ReaderMain {
 
     public static void main(String[] args) {
         File file = Locator.file("src/main/resources/SkillText.atb");
-        AlObject root = new AlParser().parse(file.bytes());
+        AlObject root = new AlParser().parse(DecodedCache.DEFAULT.decompress(file.asJavaPath()));
         System.out.println(root);
     }
 }
@@ -0,0 +1,222 @@
+/*
+ * Copyright (C) 2025 Nameless Production Committee
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://opensource.org/licenses/mit-license.php
+ */
+package walhalla.loader.parser;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import walhalla.loader.codec.SnappyDecoder;
+import walhalla.loader.codec.XorDecoder;
+import walhalla.loader.io.ByteReader;
+import walhalla.loader.io.StringPool;
+import walhalla.loader.parser.data.Alrd;
+import walhalla.loader.parser.data.Altb;
+
+/**
+ * Reader of the XML documents which the game serves besides the AL files, such as the card table
+ * "cards" (GRs733a4), the same as lib/xmldoc.lua of the Lua tools.
+ * <p>
+ * A document is optionally base64 encoded, obfuscated by a single byte XOR whose key is found by
+ * the known start of the text, and compressed by Snappy. The XML holds one element per column
+ * under the root {@code <DA>}, each typed by its {@code T} attribute (I, F or S) and holding one
+ * child per row. The columns are stored in an {@link Altb}, so the tables read from both kinds of
+ * files are queried the same way.
+ * </p>
+ */
+public final class XmlDocParser {
+
+    /** The prefix of a document served as a data URI. */
+    private static final String DATA_URI = "data:application/octet-stream;base64,";
+
+    /** The known starts of a document, which reveal the XOR key. */
+    private static final List<byte[]> STARTS = List.of("<?xml version=\"".getBytes(StandardCharsets.US_ASCII), "<DA>".getBytes(StandardCharsets.US_ASCII));
+
+    /** The number of leading bytes searched for a known start. */
+    private static final int SEARCH = 100;
+
+    private XmlDocParser() {
+    }
+
+    /**
+     * Decode and parse the document into the table.
+     *
+     * @param data The document as served.
+     * @param name The table name.
+     * @return The table.
+     * @throws IllegalArgumentException If the document is malformed.
+     */
+    public static Altb parse(byte[] data, String name) {
+        return table(decode(data), name);
+    }
+
+    /**
+     * Decode the document into its XML text.
+     *
+     * @param data The document as served.
+     * @return The XML text.
+     * @throws IllegalArgumentException If the document is malformed.
+     */
+    public static byte[] decode(byte[] data) {
+        data = base64(data);
+        XorDecoder.apply(data, key(data));
+        return SnappyDecoder.decode(data);
+    }
+
+    /**
+     * Strip the base64 encoding if the document has one.
+     */
+    private static byte[] base64(byte[] data) {
+        String text = new String(data, StandardCharsets.ISO_8859_1);
+        if (text.startsWith(DATA_URI)) {
+            return Base64.getMimeDecoder().decode(text.substring(DATA_URI.length()));
+        }
+        for (byte b : data) {
+            if (!(('A' <= b && b <= 'Z') || ('a' <= b && b <= 'z') || ('0' <= b && b <= '9') || b == '+' || b == '/' || b == '=')) {
+                return data;
+            }
+        }
+        return Base64.getDecoder().decode(data);
+    }
+
+    /**
+     * Find the XOR key by the first place where the bytes differ from a known start by the same
+     * key throughout.
+     */
+    private static int key(byte[] data) {
+        for (byte[] start : STARTS) {
+            for (int i = 0; i < Math.min(SEARCH, data.length - start.length + 1); i++) {
+                int key = (data[i] ^ start[0]) & 0xFF;
+                int j = 1;
+                while (j < start.length && ((data[i + j] ^ start[j]) & 0xFF) == key) {
+                    j++;
+                }
+                if (j == start.length) {
+                    return key;
+                }
+            }
+        }
+        throw new IllegalArgumentException("The document has no known start, it may not be an XML document.");
+    }
+
+    /**
+     * Read the columns of the XML text into the table.
+     */
+    private static Altb table(byte[] xml, String name) {
+        List<String> names = new ArrayList<>();
+        List<String> types = new ArrayList<>();
+        List<List<String>> values = new ArrayList<>();
+
+        try {
+            XMLInputFactory factory = XMLInputFactory.newFactory();
+            factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+            XMLStreamReader reader = factory.createXMLStreamReader(new ByteArrayInputStream(xml));
+            try {
+                // the depth of 1 is the root, 2 the columns and 3 the cells
+                int depth = 0;
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        depth++;
+                        if (depth == 2) {
+                            String type = reader.getAttributeValue(null, "T");
+                            if (type == null) {
+                                throw new IllegalArgumentException("Column " + reader.getLocalName() + " has no type.");
+                            }
+                            names.add(reader.getLocalName());
+                            types.add(type);
+                            values.add(new ArrayList<>());
+                        } else if (depth == 3) {
+                            values.get(values.size() - 1).add(reader.getElementText().strip());
+                            depth--;
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        depth--;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IllegalArgumentException("The document is not well-formed XML.", e);
+        }
+
+        int size = values.isEmpty() ? 0 : values.get(0).size();
+        StringPool.Block strings = strings(values, types);
+
+        Altb table = new Altb();
+        table.name = name;
+        table.size = size;
+        table.header = new Altb.Header();
+        table.header.name = "DA";
+        table.header.object = new Alrd();
+
+        int offset = 0;
+        for (int i = 0; i < names.size(); i++) {
+            Alrd.AlrdEntry key = new Alrd.AlrdEntry();
+            key.nameEn = names.get(i);
+            key.type = switch (types.get(i)) {
+            case "I" -> 1;
+            case "F" -> 4;
+            case "S" -> 0x20;
+            default -> throw new IllegalArgumentException("Column " + key.nameEn + " has the unknown type " + types.get(i));
+            };
+            table.header.object.entries.add(key);
+
+            List<String> cells = values.get(i);
+            Altb.Column column = new Altb.Column(key, size, strings);
+            for (int row = 0; row < size; row++) {
+                if (cells.size() <= row) {
+                    column.setMissing(row);
+                } else if (key.type == 0x20) {
+                    column.setInt(row, offset);
+                    offset += cells.get(row).getBytes(StandardCharsets.UTF_8).length + 1;
+                } else {
+                    try {
+                        if (key.type == 1) {
+                            column.setInt(row, Integer.parseInt(cells.get(row)));
+                        } else {
+                            column.setFloat(row, Float.parseFloat(cells.get(row)));
+                        }
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Column " + key.nameEn + " has the broken number " + cells.get(row) + " at row " + row, e);
+                    }
+                }
+            }
+            table.columns.add(column);
+        }
+        return table;
+    }
+
+    /**
+     * Collect the string cells into one NUL separated block, in the order the columns are read.
+     */
+    private static StringPool.Block strings(List<List<String>> values, List<String> types) {
+        ByteArrayOutputStream block = new ByteArrayOutputStream();
+        for (int i = 0; i < values.size(); i++) {
+            if (types.get(i).equals("S")) {
+                for (String value : values.get(i)) {
+                    block.writeBytes(value.getBytes(StandardCharsets.UTF_8));
+                    block.write(0);
+                }
+            }
+        }
+        byte[] bytes = block.toByteArray();
+        return StringPool.SHARED.block(new ByteReader(bytes), 0, bytes.length);
+    }
+}
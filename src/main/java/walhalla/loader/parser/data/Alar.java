@@ -1,13 +1,44 @@
 package walhalla.loader.parser.data;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
 
 public class Alar extends AlObject {
+    /** The format version, 2 or 3. */
+    public int version;
+
+    /** The raw first 16 bytes, whose undocumented fields are written back as they were. */
+    public byte[] header;
+
     public List<AlarEntry> entries = new ArrayList<>();
 
+    /** The parsed textures. Lazily parsed archives leave this empty. */
     public List<Altx> textures = new ArrayList<>();
 
+    private Map<String, AlarEntry> index;
+
+    /**
+     * Find the entry by its name in the table of contents. The child object is not parsed until
+     * {@link AlarEntry#value()} is called.
+     *
+     * @param name The entry name (e.g. "SkillText.atb").
+     * @return The matched entry.
+     */
+    public synchronized Optional<AlarEntry> find(String name) {
+        if (index == null) {
+            index = new HashMap<>();
+            for (AlarEntry entry : entries) {
+                index.putIfAbsent(entry.toc.name, entry);
+            }
+        }
+        return Optional.ofNullable(index.get(name));
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -23,6 +54,33 @@ public class Alar extends AlObject {
 
         public TocEntry toc;
 
+        /** The raw bytes of this entry, shared with the archive buffer. */
+        public ByteBuffer data;
+
+        private Supplier<AlObject> loader;
+
+        /**
+         * Defer the parsing of the child object until its first access.
+         *
+         * @param loader The child parser.
+         */
+        public void defer(Supplier<AlObject> loader) {
+            this.loader = loader;
+        }
+
+        /**
+         * Get the child object, parsing it on first access if this entry was read lazily.
+         *
+         * @return The child object.
+         */
+        public synchronized AlObject value() {
+            if (value == null && loader != null) {
+                value = loader.get();
+                loader = null;
+            }
+            return value;
+        }
+
         /**
          * {@inheritDoc}
          */
@@ -41,6 +99,12 @@ public class Alar extends AlObject {
 
         public String name;
 
+        /**
+         * The raw record before the name, 16 bytes in version 2 and 18 bytes in version 3. Its
+         * undocumented fields are written back as they were.
+         */
+        public byte[] record;
+
         /**
          * {@inheritDoc}
          */
@@ -1,7 +1,45 @@
 package walhalla.loader.parser.data;
 
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+
+import walhalla.loader.codec.AligDecoder;
+
 public class Alig extends AlObject {
     public int width;
     public int height;
-    // byte[] image data is omitted as per requirement
+
+    /** The pixel format (e.g. "ABG5", "RGBA"). */
+    public String format;
+
+    public String paletteFormat;
+
+    /** The raw pixels, shared with the source buffer. */
+    public ByteBuffer pixels;
+
+    /**
+     * Decode the pixels.
+     *
+     * @return The pixels as {@code 0xAARRGGBB} in row-major order.
+     */
+    public int[] argb() {
+        return AligDecoder.decode(format, width, height, pixels);
+    }
+
+    /**
+     * Decode the pixels.
+     *
+     * @return The decoded image.
+     */
+    public BufferedImage image() {
+        return AligDecoder.image(format, width, height, pixels);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "Alig [width=" + width + ", height=" + height + ", format=" + format + ", paletteFormat=" + paletteFormat + "]";
+    }
 }
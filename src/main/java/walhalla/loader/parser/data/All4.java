@@ -1,7 +1,7 @@
 package walhalla.loader.parser.data;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 public class All4 extends AlObject {
@@ -26,14 +26,15 @@ public class All4 extends AlObject {
 
         public int size;
 
-        public byte[] data;
+        /** The raw bytes of this entry, shared with the source buffer. */
+        public ByteBuffer data;
 
         /**
          * {@inheritDoc}
          */
         @Override
         public String toString() {
-            return "All4Entry [name=" + name + ", offset=" + offset + ", size=" + size + ", data=" + Arrays.toString(data) + "]";
+            return "All4Entry [name=" + name + ", offset=" + offset + ", size=" + size + ", data=" + data + "]";
         }
     }
 }
@@ -1,6 +1,8 @@
 package walhalla.loader.parser.data;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -13,11 +15,338 @@ public class Almt extends AlObject {
 
     public static class AlmtEntry {
         public String name;
+
+        /**
+         * The frames as objects. The parser leaves this empty for streamed fields, use
+         * {@link #data()} to materialize them on demand.
+         */
         public Map<String, List<StreamFrame>> data = new HashMap<>();
+
+        /** The frames as primitive tracks in the stream order. */
+        public Map<Field, Track> tracks = new EnumMap<>(Field.class);
+
+        /**
+         * Get the frames as objects, building them from the tracks on the first call.
+         *
+         * @return The frames by field name.
+         */
+        public synchronized Map<String, List<StreamFrame>> data() {
+            if (data.isEmpty()) {
+                for (Track track : tracks.values()) {
+                    List<StreamFrame> stream = new ArrayList<>(track.size);
+                    for (int i = 0; i < track.size; i++) {
+                        StreamFrame frame = new StreamFrame();
+                        frame.time = track.times == null ? null : track.times[i];
+                        frame.data = track.get(i);
+                        stream.add(frame);
+                    }
+                    data.put(track.field.name(), stream);
+                }
+            }
+            return data;
+        }
+
+        /**
+         * Find the track of the field.
+         *
+         * @param field The field.
+         * @return The track, or null when this entry doesn't animate the field.
+         */
+        public Track track(Field field) {
+            return tracks.get(field);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return "AlmtEntry [name=" + name + ", tracks=" + tracks.values() + "]";
+        }
     }
 
     public static class StreamFrame {
         public Integer time;
         public Object data;
     }
+
+    /**
+     * The animated fields with the layout of their values.
+     */
+    public enum Field {
+        PatternNo(Kind.SHORT, 1, false),
+        BlendMode(Kind.SHORT, 1, false),
+        Disp(Kind.SHORT, 1, false),
+        HFlip(Kind.SHORT, 1, false),
+        VFlip(Kind.SHORT, 1, false),
+        Texture0ID(Kind.SHORT, 2, false),
+        Alpha(Kind.FLOAT, 1, true),
+        DrawPrioOffset(Kind.FLOAT, 1, true),
+        Pos(Kind.INT, 3, true),
+        ParentNodeID(Kind.NAME, 1, false),
+        Rot(Kind.INT, 1, true),
+        Scale(Kind.FLOAT, 3, true),
+        Center(Kind.FLOAT, 3, true),
+        Color3(Kind.FLOAT, 3, true);
+
+        /** The type of each component. */
+        public final Kind kind;
+
+        /** The number of components of a single value. */
+        public final int components;
+
+        /** true when the values between keyframes are interpolated, false when they step. */
+        public final boolean interpolated;
+
+        private Field(Kind kind, int components, boolean interpolated) {
+            this.kind = kind;
+            this.components = components;
+            this.interpolated = interpolated;
+        }
+
+        /**
+         * Find the field by its name in the file.
+         *
+         * @param name The field name.
+         * @return The field.
+         * @throws UnsupportedOperationException If the field is unknown.
+         */
+        public static Field of(String name) {
+            try {
+                return valueOf(name);
+            } catch (IllegalArgumentException e) {
+                throw new UnsupportedOperationException("Unsupported ALMT field: " + name);
+            }
+        }
+    }
+
+    /**
+     * The storage type of the field components.
+     */
+    public enum Kind {
+        /** 16-bit signed integers, stored in ints. */
+        SHORT,
+
+        /** 32-bit signed integers, stored in ints. */
+        INT,
+
+        /** 32-bit floats, stored in floats. */
+        FLOAT,
+
+        /** 4-byte names, stored in strings. */
+        NAME;
+    }
+
+    /**
+     * The keyframes of a single field as parallel primitive arrays. The components of the i-th
+     * keyframe are stored at {@code i * components} onward.
+     */
+    public static class Track {
+        public final Field field;
+
+        /** The number of keyframes. */
+        public int size;
+
+        /** The keyframe times, or null for a constant field which has a single value. */
+        public int[] times;
+
+        /** The components of {@link Kind#SHORT} and {@link Kind#INT} fields. */
+        public int[] ints;
+
+        /** The components of {@link Kind#FLOAT} fields. */
+        public float[] floats;
+
+        /** The values of {@link Kind#NAME} fields. */
+        public String[] names;
+
+        /**
+         * @param field The field.
+         * @param stream true for keyframes with times, false for a constant value.
+         * @param capacity The initial number of keyframes.
+         */
+        public Track(Field field, boolean stream, int capacity) {
+            this.field = field;
+            this.times = stream ? new int[capacity] : null;
+            int length = capacity * field.components;
+            this.ints = field.kind == Kind.SHORT || field.kind == Kind.INT ? new int[length] : null;
+            this.floats = field.kind == Kind.FLOAT ? new float[length] : null;
+            this.names = field.kind == Kind.NAME ? new String[capacity] : null;
+        }
+
+        /**
+         * Append the keyframe and return its index. Fill its components through
+         * {@link #setInt(int, int, int)}, {@link #setFloat(int, int, float)} or
+         * {@link #setName(int, String)}.
+         *
+         * @param time The keyframe time, ignored for a constant field.
+         * @return The keyframe index.
+         */
+        public int add(int time) {
+            if (times != null && times.length == size) {
+                int capacity = Math.max(4, size * 2);
+                times = Arrays.copyOf(times, capacity);
+                if (ints != null) ints = Arrays.copyOf(ints, capacity * field.components);
+                if (floats != null) floats = Arrays.copyOf(floats, capacity * field.components);
+                if (names != null) names = Arrays.copyOf(names, capacity);
+            }
+            if (times != null) times[size] = time;
+            return size++;
+        }
+
+        /**
+         * Release the unused capacity.
+         */
+        public void trim() {
+            if (times != null && times.length != size) {
+                times = Arrays.copyOf(times, size);
+                if (ints != null) ints = Arrays.copyOf(ints, size * field.components);
+                if (floats != null) floats = Arrays.copyOf(floats, size * field.components);
+                if (names != null) names = Arrays.copyOf(names, size);
+            }
+        }
+
+        public void setInt(int frame, int component, int value) {
+            ints[frame * field.components + component] = value;
+        }
+
+        public void setFloat(int frame, int component, float value) {
+            floats[frame * field.components + component] = value;
+        }
+
+        public void setName(int frame, String value) {
+            names[frame] = value;
+        }
+
+        public int getInt(int frame, int component) {
+            checkNumeric();
+            return ints != null ? ints[frame * field.components + component] : (int) floats[frame * field.components + component];
+        }
+
+        public float getFloat(int frame, int component) {
+            checkNumeric();
+            return floats != null ? floats[frame * field.components + component] : ints[frame * field.components + component];
+        }
+
+        public String getName(int frame) {
+            return names[frame];
+        }
+
+        /**
+         * Get the boxed value of the keyframe, the same as {@link StreamFrame#data}.
+         *
+         * @param frame The keyframe index.
+         * @return The value.
+         */
+        public Object get(int frame) {
+            switch (field) {
+            case Texture0ID:
+                Map<String, Short> id = new HashMap<>();
+                id.put("id1", (short) getInt(frame, 0));
+                id.put("id2", (short) getInt(frame, 1));
+                return id;
+            case Pos:
+                return new int[] {getInt(frame, 0), getInt(frame, 1), getInt(frame, 2)};
+            case Scale:
+            case Center:
+                Map<String, Float> vector = new HashMap<>();
+                vector.put("x", getFloat(frame, 0));
+                vector.put("y", getFloat(frame, 1));
+                vector.put("z", getFloat(frame, 2));
+                return vector;
+            case Color3:
+                return new float[] {getFloat(frame, 0), getFloat(frame, 1), getFloat(frame, 2)};
+            default:
+                switch (field.kind) {
+                case SHORT:
+                    return (short) getInt(frame, 0);
+                case INT:
+                    return getInt(frame, 0);
+                case FLOAT:
+                    return getFloat(frame, 0);
+                default:
+                    return getName(frame);
+                }
+            }
+        }
+
+        /**
+         * Sample the component at the time. Interpolated fields are linearly interpolated between
+         * the surrounding keyframes, the others hold the value of the last keyframe at or before
+         * the time. Times outside the keyframes are clamped to the first or last keyframe.
+         *
+         * @param time The time in the same unit as the keyframe times.
+         * @param component The component index.
+         * @return The sampled value.
+         * @throws UnsupportedOperationException If the field has names instead of numbers.
+         */
+        public float sample(float time, int component) {
+            checkNumeric();
+            if (size == 0) {
+                throw new IllegalStateException("Track " + field + " has no keyframe.");
+            }
+            if (times == null || size == 1 || time <= times[0]) {
+                return getFloat(0, component);
+            }
+            if (times[size - 1] <= time) {
+                return getFloat(size - 1, component);
+            }
+
+            int next = search(time);
+            int previous = next - 1;
+            float from = getFloat(previous, component);
+            if (!field.interpolated) {
+                return from;
+            }
+            float ratio = (time - times[previous]) / (times[next] - times[previous]);
+            return from + (getFloat(next, component) - from) * ratio;
+        }
+
+        /**
+         * Sample every component at the time into the array.
+         *
+         * @param time The time in the same unit as the keyframe times.
+         * @param values The destination whose length is at least the number of components.
+         * @return The destination.
+         */
+        public float[] sample(float time, float[] values) {
+            for (int i = 0; i < field.components; i++) {
+                values[i] = sample(time, i);
+            }
+            return values;
+        }
+
+        /**
+         * Reject the fields whose values are not numbers, such as {@link Field#ParentNodeID}.
+         */
+        private void checkNumeric() {
+            if (field.kind == Kind.NAME) {
+                throw new UnsupportedOperationException("Track " + field + " has names, use getName instead.");
+            }
+        }
+
+        /**
+         * Find the first keyframe whose time is after the specified time.
+         */
+        private int search(float time) {
+            int low = 0;
+            int high = size - 1;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (times[middle] <= time) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return "Track [field=" + field + ", size=" + size + "]";
+        }
+    }
 }
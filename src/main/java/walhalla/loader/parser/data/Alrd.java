@@ -4,6 +4,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class Alrd extends AlObject {
+    /** The raw first 10 bytes, whose undocumented fields are written back as they were. */
+    public byte[] header;
+
     public List<AlrdEntry> entries = new ArrayList<>();
 
     /**
@@ -23,6 +26,9 @@ public class Alrd extends AlObject {
 
         public String nameJp;
 
+        /** The undocumented bytes which follow the names. */
+        public byte[] extra;
+
         /**
          * {@inheritDoc}
          */
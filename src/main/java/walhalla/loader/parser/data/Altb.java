@@ -1,21 +1,153 @@
 package walhalla.loader.parser.data;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+
+import walhalla.loader.io.StringPool;
 
 public class Altb extends AlObject {
     public Header header;
 
+    /**
+     * The cells as objects. The parser leaves this empty, use {@link #rows()} to materialize them
+     * on demand. A hand-built table fills this directly.
+     */
     public List<List<DataEntry>> rows = new ArrayList<>();
 
+    /** The cells as primitive columns in the header order. */
+    public List<Column> columns = new ArrayList<>();
+
+    /** The number of rows. */
+    public int size;
+
+    /** The format version, always 1. */
+    public int version;
+
+    /** The header layout: 0x10 without strings, 0x14 with strings and 0x1e with the name too. */
+    public int form;
+
+    /** The byte size of a row. */
+    public int rowSize;
+
+    /** The raw string block, shared with the source buffer. It is null without strings. */
+    public ByteBuffer strings;
+
     public String name;
 
+    private Map<String, Column> index;
+
+    /** Whether {@link #rows} was built from the columns or filled by hand. */
+    private boolean materialized;
+
+    private final Map<String, ColumnIndex> indexes = new HashMap<>();
+
+    /**
+     * Get the cells as objects, building them from the columns on the first call.
+     * <p>
+     * This is the editable view of the table which {@link walhalla.loader.writer.AlEncoder}
+     * writes, rows may be changed, added or removed. The edits are not copied back to the
+     * columns, so {@link #column(String)}, {@link #index(String)}, the queries and
+     * {@link walhalla.loader.writer.TableWriter} keep reading the parsed values.
+     * </p>
+     *
+     * @return The rows.
+     */
+    public synchronized List<List<DataEntry>> rows() {
+        if (!materialized) {
+            materialized = true;
+
+            // a hand-built table has filled the rows itself
+            if (rows.isEmpty()) {
+                for (int i = 0; i < size; i++) {
+                    List<DataEntry> row = new ArrayList<>(columns.size());
+                    for (Column column : columns) {
+                        DataEntry entry = new DataEntry();
+                        entry.key = column.key;
+                        entry.value = column.get(i);
+                        row.add(entry);
+                    }
+                    rows.add(row);
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Find the column by its English name.
+     *
+     * @param name The column name (e.g. "Attack").
+     * @return The column.
+     * @throws IllegalArgumentException If there is no such column.
+     */
+    public Column column(String name) {
+        Column column = index().get(name);
+        if (column == null) {
+            throw new IllegalArgumentException("Table " + this.name + " has no column " + name);
+        }
+        return column;
+    }
+
+    /**
+     * Test whether the table has the column.
+     *
+     * @param name The column name.
+     * @return true if the column exists.
+     */
+    public boolean has(String name) {
+        return index().containsKey(name);
+    }
+
+    private synchronized Map<String, Column> index() {
+        if (index == null) {
+            index = new HashMap<>();
+            for (Column column : columns) {
+                index.putIfAbsent(column.key.nameEn, column);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Get the hash index of the column, building it on first use. The index is cached with this
+     * table, so every query over the table shares it.
+     *
+     * @param column The column name (e.g. "CardID").
+     * @return The index.
+     */
+    public ColumnIndex index(String column) {
+        Column target = column(column);
+        synchronized (indexes) {
+            return indexes.computeIfAbsent(column, name -> new ColumnIndex(target, size));
+        }
+    }
+
+    public int getInt(int row, String column) {
+        return column(column).getInt(row);
+    }
+
+    public float getFloat(int row, String column) {
+        return column(column).getFloat(row);
+    }
+
+    public String getString(int row, String column) {
+        return column(column).getString(row);
+    }
+
+    public Object get(int row, String column) {
+        return column(column).get(row);
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public String toString() {
-        return "Altb [header=" + header + ", rows=" + rows + ", name=" + name + "]";
+        return "Altb [header=" + header + ", size=" + size + ", name=" + name + "]";
     }
 
     public static class Header {
@@ -46,4 +178,105 @@ public class Altb extends AlObject {
             return "DataEntry [key=" + key + ", value=" + value + "]";
         }
     }
+
+    /**
+     * The values of a single column, stored in the primitive array which matches its type. String
+     * cells keep their offset into the string block and are decoded on first access.
+     */
+    public static class Column {
+        public final Alrd.AlrdEntry key;
+
+        /** The values of int (1) and string offset (0x20) columns. */
+        private final int[] ints;
+
+        /** The values of float (4) columns. */
+        private final float[] floats;
+
+        /** The values of unsigned byte (5) columns. */
+        private final byte[] bytes;
+
+        /** The string block, or null when the string offsets can't be resolved. */
+        private final StringPool.Block strings;
+
+        /** The rows whose cell lies outside the data, lazily created. */
+        private BitSet missing;
+
+        public Column(Alrd.AlrdEntry key, int size, StringPool.Block strings) {
+            this.key = key;
+            this.ints = key.type == 1 || key.type == 0x20 ? new int[size] : null;
+            this.floats = key.type == 4 ? new float[size] : null;
+            this.bytes = key.type == 5 ? new byte[size] : null;
+            this.strings = key.type == 0x20 ? strings : null;
+        }
+
+        public void setInt(int row, int value) {
+            ints[row] = value;
+        }
+
+        public void setFloat(int row, float value) {
+            floats[row] = value;
+        }
+
+        public void setByte(int row, int value) {
+            bytes[row] = (byte) value;
+        }
+
+        public void setMissing(int row) {
+            if (missing == null) missing = new BitSet();
+            missing.set(row);
+        }
+
+        public boolean isMissing(int row) {
+            return missing != null && missing.get(row);
+        }
+
+        public int getInt(int row) {
+            if (ints != null) return ints[row];
+            if (bytes != null) return bytes[row] & 0xFF;
+            if (floats != null) return (int) floats[row];
+            throw new IllegalStateException("Column " + key.nameEn + " has unknown type " + key.type);
+        }
+
+        public float getFloat(int row) {
+            return floats != null ? floats[row] : getInt(row);
+        }
+
+        /**
+         * @return true when the cells of this column are strings.
+         */
+        public boolean isString() {
+            return strings != null;
+        }
+
+        public String getString(int row) {
+            int offset = ints == null ? -1 : ints[row];
+            if (strings == null || !strings.contains(offset)) {
+                throw new IllegalStateException("Column " + key.nameEn + " has no string at row " + row);
+            }
+            return strings.get(offset);
+        }
+
+        /**
+         * Get the boxed value, the same as {@link DataEntry#value}.
+         *
+         * @param row The row index.
+         * @return The value, or null for cells of an unknown type or outside the data.
+         */
+        public Object get(int row) {
+            if (isMissing(row)) return null;
+            if (strings != null && strings.contains(ints[row])) return strings.get(ints[row]);
+            if (ints != null) return ints[row];
+            if (floats != null) return floats[row];
+            if (bytes != null) return bytes[row] & 0xFF;
+            return null;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return "Column [key=" + key + "]";
+        }
+    }
 }
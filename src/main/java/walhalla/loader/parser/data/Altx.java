@@ -1,8 +1,13 @@
 package walhalla.loader.parser.data;
 
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import walhalla.loader.codec.AligDecoder;
+
 public class Altx extends AlObject {
     public Map<Integer, Sprite> sprites = new HashMap<>();
     public Alig rawImage;
@@ -10,6 +15,39 @@ public class Altx extends AlObject {
     public int width;
     public int height;
 
+    private BufferedImage atlas;
+
+    /**
+     * Decode the embedded image on first access.
+     *
+     * @return The atlas, or null when the image is stored in an external file.
+     */
+    public synchronized BufferedImage image() {
+        if (atlas == null && rawImage != null) {
+            atlas = rawImage.image();
+        }
+        return atlas;
+    }
+
+    /**
+     * Slice the frames of the sprite out of the atlas. The frames share the raster of the atlas.
+     *
+     * @param index The sprite index.
+     * @return The frames in order, empty when there is no such sprite or no embedded image.
+     */
+    public List<BufferedImage> frames(int index) {
+        List<BufferedImage> images = new ArrayList<>();
+        Sprite sprite = sprites.get(index);
+        BufferedImage atlas = image();
+        if (sprite != null && atlas != null) {
+            for (int i = 0; i < sprite.frames.size(); i++) {
+                Frame frame = sprite.frames.get(i);
+                images.add(AligDecoder.frame(atlas, frame.x, frame.y, frame.width, frame.height));
+            }
+        }
+        return images;
+    }
+
     public static class Sprite {
         public String name;
         public Map<Integer, Frame> frames = new HashMap<>();
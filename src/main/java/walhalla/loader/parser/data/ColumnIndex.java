@@ -0,0 +1,162 @@
+package walhalla.loader.parser.data;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hash index from the values of an {@link Altb.Column} to its rows.
+ * <p>
+ * Numeric keys live in an open-addressed {@code int} table and string keys in a map, and rows
+ * which share a key are chained through a {@code next} array, so a lookup allocates nothing
+ * beyond the returned row array. Build it through {@link Altb#index(String)} to share it with
+ * every other user of the table.
+ * </p>
+ */
+public class ColumnIndex {
+
+    /** The indexed column. */
+    public final Altb.Column column;
+
+    /** The open-addressed numeric keys, valid where {@link #heads} is not -1. */
+    private final int[] keys;
+
+    /** The first row of each numeric slot, or -1 for empty slots. */
+    private final int[] heads;
+
+    /** The first row of each string key. */
+    private final Map<String, Integer> stringHeads;
+
+    /** The next row with the same key, or -1. */
+    private final int[] next;
+
+    /**
+     * @param column The column to index.
+     * @param size The number of rows.
+     */
+    public ColumnIndex(Altb.Column column, int size) {
+        this.column = column;
+        this.next = new int[size];
+
+        if (column.isString()) {
+            this.keys = null;
+            this.heads = null;
+            this.stringHeads = new HashMap<>();
+            // insert backwards, so the chains run in row order
+            for (int row = size - 1; 0 <= row; row--) {
+                Object value = column.get(row);
+                if (value instanceof String) {
+                    Integer head = stringHeads.put((String) value, row);
+                    next[row] = head == null ? -1 : head;
+                } else {
+                    next[row] = -1;
+                }
+            }
+        } else {
+            int capacity = Integer.highestOneBit(Math.max(4, size * 2 - 1)) << 1;
+            this.keys = new int[capacity];
+            this.heads = new int[capacity];
+            this.stringHeads = null;
+            Arrays.fill(heads, -1);
+
+            int mask = capacity - 1;
+            for (int row = size - 1; 0 <= row; row--) {
+                if (column.isMissing(row)) {
+                    next[row] = -1;
+                    continue;
+                }
+                int key = column.getInt(row);
+                int slot = mix(key) & mask;
+                while (heads[slot] != -1 && keys[slot] != key) {
+                    slot = (slot + 1) & mask;
+                }
+                next[row] = heads[slot];
+                keys[slot] = key;
+                heads[slot] = row;
+            }
+        }
+    }
+
+    /**
+     * Find the first row with the key.
+     *
+     * @param key The numeric key.
+     * @return The row index, or -1 when there is none.
+     */
+    public int first(int key) {
+        if (heads == null) {
+            throw new IllegalStateException("Column " + column.key.nameEn + " is indexed by string.");
+        }
+        int mask = heads.length - 1;
+        int slot = mix(key) & mask;
+        while (heads[slot] != -1) {
+            if (keys[slot] == key) {
+                return heads[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Find the first row with the key.
+     *
+     * @param key The string key.
+     * @return The row index, or -1 when there is none.
+     */
+    public int first(String key) {
+        if (stringHeads == null) {
+            throw new IllegalStateException("Column " + column.key.nameEn + " is indexed by number.");
+        }
+        Integer head = stringHeads.get(key);
+        return head == null ? -1 : head;
+    }
+
+    /**
+     * Find all rows with the key in row order.
+     *
+     * @param key The numeric key.
+     * @return The row indices.
+     */
+    public int[] rows(int key) {
+        return collect(first(key));
+    }
+
+    /**
+     * Find all rows with the key in row order.
+     *
+     * @param key The string key.
+     * @return The row indices.
+     */
+    public int[] rows(String key) {
+        return collect(first(key));
+    }
+
+    /**
+     * Find the row which follows the given row with the same key.
+     *
+     * @param row The row index.
+     * @return The next row index, or -1 when there is none.
+     */
+    public int next(int row) {
+        return next[row];
+    }
+
+    private int[] collect(int head) {
+        int count = 0;
+        for (int row = head; row != -1; row = next[row]) {
+            count++;
+        }
+
+        int[] rows = new int[count];
+        for (int i = 0, row = head; row != -1; i++, row = next[row]) {
+            rows[i] = row;
+        }
+        return rows;
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -1,36 +1,73 @@
 package walhalla.loader.parser.io;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import walhalla.loader.io.ByteReader;
+import walhalla.loader.io.StringPool;
 
 public class BinaryReader {
 
-    private final ByteBuffer buffer;
+    private final ByteReader core;
 
     public BinaryReader(byte[] data) {
-        this.buffer = ByteBuffer.wrap(data);
-        this.buffer.order(ByteOrder.LITTLE_ENDIAN);
+        this.core = new ByteReader(data);
+    }
+
+    /**
+     * Read from the given buffer (heap, direct or memory-mapped) without copying it. The reader
+     * works on its own view, so the position of the source buffer is never touched.
+     *
+     * @param data The source buffer.
+     */
+    public BinaryReader(ByteBuffer data) {
+        this.core = new ByteReader(data);
+    }
+
+    private BinaryReader(ByteReader core) {
+        this.core = core;
+    }
+
+    /**
+     * Map the specified file into memory and read it directly from the page cache.
+     *
+     * @param file The file to map.
+     * @return A reader backed by the mapped file.
+     */
+    public static BinaryReader map(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new BinaryReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     public int position() {
-        return buffer.position();
+        return core.position();
     }
 
     public void position(int newPosition) {
-        buffer.position(newPosition);
+        core.position(newPosition);
     }
 
     public int capacity() {
-        return buffer.capacity();
+        return core.length();
     }
 
     public short readWord() {
-        return buffer.getShort();
+        return core.readShort();
+    }
+
+    public int readUWord() {
+        return core.readUShort();
     }
 
     public int readDword() {
-        return buffer.getInt();
+        return core.readInt();
     }
 
     public int readUnsignedDword() {
@@ -42,64 +79,92 @@ public class BinaryReader {
     }
 
     public float readFloat() {
-        return buffer.getFloat();
+        return core.readFloat();
     }
 
     public String readString(int maxLength) {
-        byte[] bytes = new byte[maxLength];
-        buffer.get(bytes);
-        int length = 0;
-        while (length < maxLength && bytes[length] != 0) {
-            length++;
-        }
-        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+        int start = core.position();
+        core.position(start + maxLength);
+        return core.getCString(start, maxLength);
     }
 
     public String readString() {
-        int start = buffer.position();
-        while (buffer.get() != 0);
-        int end = buffer.position();
-        byte[] bytes = new byte[end - start - 1];
-        buffer.position(start);
-        buffer.get(bytes);
-        buffer.get(); // Skip null terminator
-        return new String(bytes, StandardCharsets.UTF_8);
-    }
-
-    public void align(int alignment, int n) {
-        while (buffer.position() < buffer.capacity()) {
-            int currentAlign = buffer.position() % alignment;
-            if (currentAlign == n) {
-                return;
-            }
-            buffer.position(buffer.position() + 1);
-        }
+        return core.readCString(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Read the specified number of bytes as UTF-8 text, including any embedded NUL.
+     *
+     * @param length The byte length of the text.
+     * @return The decoded text.
+     */
+    public String readText(int length) {
+        return core.readText(length);
+    }
+
+    /**
+     * Round the position up to the next multiple of the alignment. This is {@code align(offset,
+     * alignment, 1)} of the 1-based Lua reference.
+     *
+     * @param alignment The alignment in bytes.
+     */
+    public void align(int alignment) {
+        core.align(alignment);
     }
 
     public byte readByte() {
-        return buffer.get();
+        return core.readByte();
     }
 
     public int readUByte() {
-        return buffer.get() & 0xFF;
+        return core.readUByte();
     }
 
     public byte get(int index) {
-        return buffer.get(index);
+        return core.getByte(index);
     }
 
     public byte[] getBytes(int length) {
-        byte[] bytes = new byte[length];
-        buffer.get(bytes);
-        return bytes;
+        return core.readBytes(length);
     }
 
     public byte[] getBytes(int offset, int length) {
         byte[] bytes = new byte[length];
-        int currentPos = buffer.position();
-        buffer.position(offset);
-        buffer.get(bytes);
-        buffer.position(currentPos);
+        core.getBytes(offset, bytes, 0, length);
         return bytes;
     }
+
+    /**
+     * Expose the specified string block through the {@link StringPool#SHARED shared pool}. The
+     * block reads at absolute positions, so it never moves this reader.
+     *
+     * @param offset The absolute start position of the block.
+     * @param length The byte size of the block.
+     * @return The view of the block.
+     */
+    public StringPool.Block strings(int offset, int length) {
+        return StringPool.SHARED.block(core, offset, length);
+    }
+
+    /**
+     * Create an independent reader over the same memory, so it can be positioned without
+     * disturbing this one.
+     *
+     * @return A new reader sharing the underlying buffer.
+     */
+    public BinaryReader duplicate() {
+        return new BinaryReader(core.duplicate());
+    }
+
+    /**
+     * Expose the specified absolute range as a read-only view which shares its memory with this
+     * reader. Nothing is copied, so slices of a mapped file stay off-heap.
+     *
+     * @param offset The absolute start position.
+     * @param length The length of the range.
+     * @return A little-endian view of the range.
+     */
+    public ByteBuffer slice(int offset, int length) {
+        return core.slice(offset, length);
+    }
 }
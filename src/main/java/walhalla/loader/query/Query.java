@@ -0,0 +1,280 @@
+/*
+ * Copyright (C) 2025 Nameless Production Committee
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://opensource.org/licenses/mit-license.php
+ */
+package walhalla.loader.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+import walhalla.loader.parser.data.Altb;
+import walhalla.loader.parser.data.ColumnIndex;
+
+/**
+ * Small relational query over decoded {@link Altb} tables.
+ * <p>
+ * A query starts from the rows of one table and joins further tables through the cached
+ * {@link Altb#index(String) column indexes}, so every lookup is a hash probe instead of a scan.
+ * The result is a list of row tuples; the n-th element of a tuple is the row in the n-th table,
+ * or -1 when a left join found no match.
+ * </p>
+ * <pre>
+ * Query.from(cards).where("Rare", rare -> rare >= 5)
+ *         .join("SkillID", skills, "SkillID")
+ *         .leftJoin("ClassID", classes, "ClassID")
+ *         .forEach(row -> row.getString(1, "Name"));
+ * </pre>
+ */
+public class Query {
+
+    /** The joined tables in the join order. */
+    private final List<Altb> tables;
+
+    /** The matched row tuples. */
+    private final List<int[]> tuples;
+
+    private Query(List<Altb> tables, List<int[]> tuples) {
+        this.tables = tables;
+        this.tuples = tuples;
+    }
+
+    /**
+     * Start the query from all rows of the table.
+     *
+     * @param table The first table.
+     * @return The new query.
+     */
+    public static Query from(Altb table) {
+        List<int[]> tuples = new ArrayList<>(table.size);
+        for (int row = 0; row < table.size; row++) {
+            tuples.add(new int[] {row});
+        }
+        return new Query(List.of(table), tuples);
+    }
+
+    /**
+     * Keep the tuples whose numeric value in the first table matches.
+     *
+     * @param column The column of the first table.
+     * @param condition The condition.
+     * @return The filtered query.
+     */
+    public Query where(String column, IntPredicate condition) {
+        return where(0, column, condition);
+    }
+
+    /**
+     * Keep the tuples whose numeric value in the specified table matches. Unmatched rows of a left
+     * join and missing cells never match.
+     *
+     * @param table The table position in the join order.
+     * @param column The column of the table.
+     * @param condition The condition.
+     * @return The filtered query.
+     */
+    public Query where(int table, String column, IntPredicate condition) {
+        Altb.Column target = tables.get(table).column(column);
+        List<int[]> matched = new ArrayList<>();
+        for (int[] tuple : tuples) {
+            if (tuple[table] != -1 && !target.isMissing(tuple[table]) && condition.test(target.getInt(tuple[table]))) {
+                matched.add(tuple);
+            }
+        }
+        return new Query(tables, matched);
+    }
+
+    /**
+     * Keep the tuples whose string value in the specified table matches. Unmatched rows of a left
+     * join and missing cells never match.
+     *
+     * @param table The table position in the join order.
+     * @param column The string column of the table.
+     * @param condition The condition.
+     * @return The filtered query.
+     */
+    public Query whereString(int table, String column, Predicate<String> condition) {
+        Altb.Column target = tables.get(table).column(column);
+        List<int[]> matched = new ArrayList<>();
+        for (int[] tuple : tuples) {
+            if (tuple[table] != -1 && !target.isMissing(tuple[table]) && condition.test(target.getString(tuple[table]))) {
+                matched.add(tuple);
+            }
+        }
+        return new Query(tables, matched);
+    }
+
+    /**
+     * Inner join the table on the key column of the first table.
+     *
+     * @param column The key column of the first table.
+     * @param other The joined table.
+     * @param otherColumn The indexed key column of the joined table.
+     * @return The joined query.
+     */
+    public Query join(String column, Altb other, String otherColumn) {
+        return join(0, column, other, otherColumn, false);
+    }
+
+    /**
+     * Left join the table on the key column of the first table. Unmatched tuples get -1 for the
+     * joined table.
+     *
+     * @param column The key column of the first table.
+     * @param other The joined table.
+     * @param otherColumn The indexed key column of the joined table.
+     * @return The joined query.
+     */
+    public Query leftJoin(String column, Altb other, String otherColumn) {
+        return join(0, column, other, otherColumn, true);
+    }
+
+    /**
+     * Join the table on the key column of any table already in the query. Every matching row of
+     * the joined table produces its own tuple. A string key never matches a numeric key, and the
+     * other way around.
+     *
+     * @param table The table position in the join order which holds the key.
+     * @param column The key column of that table.
+     * @param other The joined table.
+     * @param otherColumn The indexed key column of the joined table.
+     * @param outer true to keep unmatched tuples (left join).
+     * @return The joined query.
+     */
+    public Query join(int table, String column, Altb other, String otherColumn, boolean outer) {
+        Altb.Column key = tables.get(table).column(column);
+        ColumnIndex index = other.index(otherColumn);
+        boolean byString = index.column.isString();
+        // a string cell holds its offset in the string block, which is no number to compare
+        boolean comparable = key.isString() == byString;
+
+        List<int[]> joined = new ArrayList<>(tuples.size());
+        for (int[] tuple : tuples) {
+            int row = tuple[table];
+            int match = !comparable || row == -1 || key.isMissing(row) ? -1 : byString ? first(index, key.get(row)) : index.first(key.getInt(row));
+
+            if (match == -1) {
+                if (outer) joined.add(extend(tuple, -1));
+            } else {
+                for (; match != -1; match = index.next(match)) {
+                    joined.add(extend(tuple, match));
+                }
+            }
+        }
+
+        List<Altb> next = new ArrayList<>(tables);
+        next.add(other);
+        return new Query(List.copyOf(next), joined);
+    }
+
+    /**
+     * Find the first row of the string index, treating a key cell which is not a string (an int
+     * column or an unresolved offset) as no match like the index itself does.
+     */
+    private static int first(ColumnIndex index, Object key) {
+        return key instanceof String ? index.first((String) key) : -1;
+    }
+
+    private static int[] extend(int[] tuple, int row) {
+        int[] extended = Arrays.copyOf(tuple, tuple.length + 1);
+        extended[tuple.length] = row;
+        return extended;
+    }
+
+    /**
+     * @return The number of matched tuples.
+     */
+    public int size() {
+        return tuples.size();
+    }
+
+    /**
+     * @param index The tuple index.
+     * @return The tuple at the index.
+     */
+    public Row get(int index) {
+        return new Row(tuples.get(index));
+    }
+
+    /**
+     * @return All matched tuples.
+     */
+    public List<Row> rows() {
+        List<Row> rows = new ArrayList<>(tuples.size());
+        for (int[] tuple : tuples) {
+            rows.add(new Row(tuple));
+        }
+        return rows;
+    }
+
+    /**
+     * Visit every matched tuple.
+     *
+     * @param action The visitor.
+     */
+    public void forEach(Consumer<Row> action) {
+        for (int[] tuple : tuples) {
+            action.accept(new Row(tuple));
+        }
+    }
+
+    /**
+     * The single matched tuple.
+     */
+    public class Row {
+
+        private final int[] tuple;
+
+        private Row(int[] tuple) {
+            this.tuple = tuple;
+        }
+
+        /**
+         * @param table The table position in the join order.
+         * @return The row in the table, or -1 when a left join found no match.
+         */
+        public int row(int table) {
+            return tuple[table];
+        }
+
+        /**
+         * @param table The table position in the join order.
+         * @return true when the table has a matched row.
+         */
+        public boolean has(int table) {
+            return tuple[table] != -1;
+        }
+
+        public int getInt(int table, String column) {
+            return tables.get(table).getInt(tuple[table], column);
+        }
+
+        public float getFloat(int table, String column) {
+            return tables.get(table).getFloat(tuple[table], column);
+        }
+
+        public String getString(int table, String column) {
+            return tables.get(table).getString(tuple[table], column);
+        }
+
+        public Object get(int table, String column) {
+            return tuple[table] == -1 ? null : tables.get(table).get(tuple[table], column);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return Arrays.toString(tuple);
+        }
+    }
+}
@@ -0,0 +1,500 @@
+/*
+ * Copyright (C) 2025 Nameless Production Committee
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://opensource.org/licenses/mit-license.php
+ */
+package walhalla.loader.writer;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import walhalla.loader.codec.AllzDecoder;
+import walhalla.loader.codec.AllzEncoder;
+import walhalla.loader.parser.AlParser;
+import walhalla.loader.parser.data.AlObject;
+import walhalla.loader.parser.data.Alar;
+import walhalla.loader.parser.data.Alrd;
+import walhalla.loader.parser.data.Altb;
+import walhalla.loader.parser.data.TextObject;
+
+/**
+ * Binary writer of {@link Altb}, {@link Alrd} and {@link Alar} objects, the inverse of
+ * {@link AlParser}.
+ * <p>
+ * Offsets, counts and sizes are computed from the objects, while the undocumented header fields
+ * the parser keeps ({@link Alar#header}, {@link Alar.TocEntry#record}, {@link Alrd#header} and
+ * {@link Alrd.AlrdEntry#extra}) are written back as they were. String cells which still hold the
+ * string of their original offset keep that offset in the original {@link Altb#strings string
+ * block}, and new strings are appended to it. So a parsed file which was not modified is written
+ * byte for byte as it was read.
+ * </p>
+ * <p>
+ * Archive entries which were never parsed, as in a lazily parsed archive, and entries of the types
+ * this writer doesn't know (textures, images, motions and so on) are copied from their
+ * {@link Alar.AlarEntry#data raw bytes}. An entry whose raw bytes are an ALLZ stream is compressed
+ * again by {@link AllzEncoder}, which is readable by the game but not identical to its own
+ * compressor.
+ * </p>
+ */
+public final class AlEncoder {
+
+    private AlEncoder() {
+    }
+
+    /**
+     * Encode the object by its type.
+     *
+     * @param object The object to encode.
+     * @return The binary.
+     * @throws IllegalArgumentException If the object type can't be encoded or the object can't
+     *             be represented in the format.
+     */
+    public static byte[] encode(AlObject object) {
+        switch (object.type) {
+        case "ALTB":
+            return encode((Altb) object);
+        case "ALRD":
+            return encode((Alrd) object);
+        case "ALAR":
+            return encode((Alar) object);
+        case "TEXT":
+            return ((TextObject) object).text.getBytes(StandardCharsets.UTF_8);
+        default:
+            throw new IllegalArgumentException("Can't encode " + object.type);
+        }
+    }
+
+    /**
+     * Encode the table.
+     *
+     * @param altb The table to encode.
+     * @return The binary.
+     * @throws IllegalArgumentException If the table can't be represented in the format.
+     */
+    public static byte[] encode(Altb altb) {
+        int form = altb.form == 0 ? 0x1e : altb.form;
+        if (form != 0x10 && form != 0x14 && form != 0x1e) {
+            throw new IllegalArgumentException("Unknown ALTB form " + form);
+        }
+
+        Alrd alrd = altb.header == null ? null : altb.header.object;
+        if (alrd == null) {
+            alrd = new Alrd();
+            for (Altb.Column column : altb.columns) {
+                alrd.entries.add(column.key);
+            }
+        }
+
+        int rowSize = altb.rowSize;
+        if (rowSize == 0) {
+            for (Alrd.AlrdEntry key : alrd.entries) {
+                rowSize = Math.max(rowSize, key.offset + width(key.type));
+            }
+            rowSize = align(rowSize);
+        }
+
+        // the header, the label and the row definition
+        int headerSize = form == 0x10 ? 0x14 : form == 0x14 ? 0x1c : 0x20;
+        byte[] definition = encode(alrd, rowSize);
+        int entryOffset = align(headerSize + definition.length);
+        if (0xFFFF < entryOffset) {
+            throw new IllegalArgumentException("Row definition is too large: " + entryOffset);
+        }
+
+        // the rows and the strings they refer to, rows may have been added to or removed from the
+        // list so it decides the row count
+        Strings strings = form == 0x10 ? null : new Strings(altb.strings);
+        List<List<Altb.DataEntry>> cells = altb.rows();
+        if (0xFFFF < cells.size()) {
+            throw new IllegalArgumentException("ALTB can't hold " + cells.size() + " rows");
+        }
+        ByteBuffer rows = ByteBuffer.allocate(cells.size() * rowSize).order(ByteOrder.LITTLE_ENDIAN);
+        for (int row = 0; row < cells.size(); row++) {
+            List<Altb.DataEntry> cellsOfRow = cells.get(row);
+            for (int i = 0; i < cellsOfRow.size(); i++) {
+                Altb.DataEntry cell = cellsOfRow.get(i);
+                if (cell.value != null) {
+                    writeCell(altb, rows, row * rowSize, rowSize, i, row, cell, strings);
+                }
+            }
+        }
+        int stringsOffset = align(entryOffset + rows.capacity());
+        byte[] block = strings == null ? new byte[0] : strings.toByteArray();
+        int namesOffset = align(stringsOffset + block.length);
+
+        Out out = new Out();
+        out.ascii("ALTB").bytes(altb.version == 0 ? 1 : altb.version, form).word(cells.size()).word(headerSize).word(entryOffset).dword(rowSize);
+        if (form != 0x10) {
+            out.dword(block.length).dword(stringsOffset);
+        }
+        if (form == 0x1e) {
+            out.dword(namesOffset);
+        }
+        out.fixed(altb.header == null ? null : altb.header.name, 4);
+        out.bytes(definition).align();
+        out.bytes(rows.array()).align();
+        if (form != 0x10) {
+            out.bytes(block).align();
+        }
+        if (form == 0x1e) {
+            byte[] name = (altb.name == null ? "" : altb.name).getBytes(StandardCharsets.UTF_8);
+            if (0xFF < name.length) {
+                throw new IllegalArgumentException("Table name is too long: " + altb.name);
+            }
+            out.dword(1).bytes(name.length).bytes(name).align();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Write the cell into its row.
+     */
+    private static void writeCell(Altb altb, ByteBuffer rows, int base, int rowSize, int column, int row, Altb.DataEntry cell, Strings strings) {
+        Alrd.AlrdEntry key = cell.key;
+        int width = width(key.type);
+        if (width == 0) {
+            return;
+        }
+        if (key.offset < 0 || rowSize < key.offset + width) {
+            throw new IllegalArgumentException("Column " + key.nameEn + " lies outside the row of " + rowSize + " bytes");
+        }
+
+        int at = base + key.offset;
+        switch (key.type) {
+        case 4:
+            rows.putFloat(at, ((Number) cell.value).floatValue());
+            break;
+        case 5:
+            rows.put(at, (byte) ((Number) cell.value).intValue());
+            break;
+        case 0x20:
+            if (cell.value instanceof String) {
+                if (strings == null) {
+                    throw new IllegalArgumentException("ALTB form 0x10 has no strings: " + key.nameEn);
+                }
+                rows.putInt(at, strings.offset((String) cell.value, original(altb, column, row, cell.value)));
+                break;
+            }
+            // the offset which didn't point into the string block is kept as it is
+        default:
+            rows.putInt(at, ((Number) cell.value).intValue());
+            break;
+        }
+    }
+
+    /**
+     * Find the offset the string cell was read from, if it still holds that string.
+     *
+     * @return The offset in the original string block, or -1.
+     */
+    private static int original(Altb altb, int column, int row, Object value) {
+        if (altb.strings == null || altb.columns.size() <= column || altb.size <= row) {
+            return -1;
+        }
+        Altb.Column source = altb.columns.get(column);
+        return source.isString() && value.equals(source.get(row)) ? source.getInt(row) : -1;
+    }
+
+    /**
+     * Get the byte size of the cell type, 0 for unknown types.
+     */
+    private static int width(int type) {
+        switch (type) {
+        case 1:
+        case 4:
+        case 0x20:
+            return 4;
+        case 5:
+            return 1;
+        default:
+            return 0;
+        }
+    }
+
+    /**
+     * Encode the row definition.
+     *
+     * @param alrd The row definition to encode.
+     * @return The binary.
+     * @throws IllegalArgumentException If the definition can't be represented in the format.
+     */
+    public static byte[] encode(Alrd alrd) {
+        int size = 0;
+        for (Alrd.AlrdEntry key : alrd.entries) {
+            size = Math.max(size, key.offset + width(key.type));
+        }
+        return encode(alrd, align(size));
+    }
+
+    /**
+     * Encode the row definition of the table whose rows have the given size.
+     */
+    private static byte[] encode(Alrd alrd, int rowSize) {
+        if (0xFF < alrd.entries.size()) {
+            throw new IllegalArgumentException("ALRD can't hold " + alrd.entries.size() + " columns");
+        }
+
+        Out out = new Out();
+        if (alrd.header != null && alrd.header.length == 10) {
+            out.bytes(alrd.header);
+        } else {
+            out.ascii("ALRD").bytes(1, 0, 0, 0).word(rowSize);
+        }
+        out.patch(6, alrd.entries.size());
+
+        for (Alrd.AlrdEntry key : alrd.entries) {
+            byte[] en = text(key.nameEn);
+            byte[] jp = text(key.nameJp);
+            byte[] extra = key.extra == null ? new byte[0] : key.extra;
+            if (0xFF < en.length || 0xFF < jp.length || 0xFF < extra.length) {
+                throw new IllegalArgumentException("Column " + key.nameEn + " doesn't fit in ALRD");
+            }
+            out.word(key.offset).bytes(key.type, extra.length, en.length, jp.length);
+            out.bytes(en).bytes(0).bytes(jp).bytes(0).align();
+            out.bytes(extra).align();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Encode the archive.
+     *
+     * @param alar The archive to encode.
+     * @return The binary.
+     * @throws IllegalArgumentException If an entry can't be encoded or the archive can't be
+     *             represented in the format.
+     */
+    public static byte[] encode(Alar alar) {
+        int version = alar.version == 0 ? 3 : alar.version;
+        if (version != 2 && version != 3) {
+            throw new IllegalArgumentException("Unknown ALAR version " + version);
+        }
+        int count = alar.entries.size();
+        if (0xFFFF < count) {
+            throw new IllegalArgumentException("ALAR can't hold " + count + " entries");
+        }
+
+        List<byte[]> contents = new ArrayList<>(count);
+        for (Alar.AlarEntry entry : alar.entries) {
+            contents.add(content(entry));
+        }
+
+        Out out = new Out();
+        if (alar.header != null && alar.header.length == 0x10) {
+            out.bytes(alar.header);
+        } else {
+            out.ascii("ALAR").bytes(version, 0).word(count).bytes(new byte[8]);
+        }
+        out.patch(4, version).patch(6, count).patch(7, count >>> 8);
+
+        if (version == 2) {
+            // the name lies right before the data, which stays aligned for the nested objects
+            int[] addresses = new int[count];
+            int address = 0x10 + count * 0x10;
+            for (int i = 0; i < count; i++) {
+                addresses[i] = align(address + 0x22);
+                record(out, alar.entries.get(i), i, addresses[i], contents.get(i).length, 0x10);
+                address = addresses[i] + contents.get(i).length;
+            }
+            for (int i = 0; i < count; i++) {
+                out.bytes(new byte[addresses[i] - 0x22 - out.size()]);
+                out.fixed(name(alar.entries.get(i)), 0x20).word(0).bytes(contents.get(i));
+            }
+            out.align();
+        } else {
+            // the table of contents is laid out first to know where the data starts
+            Out toc = new Out();
+            int tocStart = align(0x10 + 2 + count * 2);
+            int[] records = new int[count];
+            for (int i = 0; i < count; i++) {
+                records[i] = tocStart + toc.size();
+                record(toc, alar.entries.get(i), i, 0, contents.get(i).length, 0x12);
+                toc.bytes(text(name(alar.entries.get(i)))).bytes(0).align();
+            }
+
+            int address = tocStart + toc.size();
+            out.word(address);
+            for (int record : records) {
+                out.word(record);
+            }
+            out.align();
+
+            byte[] table = toc.toByteArray();
+            ByteBuffer view = ByteBuffer.wrap(table).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < count; i++) {
+                view.putInt(records[i] - tocStart + 4, address);
+                address = align(address + contents.get(i).length);
+            }
+            out.bytes(table);
+            for (byte[] content : contents) {
+                out.bytes(content).align();
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Write the record of the table of contents without its name.
+     */
+    private static void record(Out out, Alar.AlarEntry entry, int index, int address, int size, int length) {
+        Alar.TocEntry toc = entry.toc;
+        int start = out.size();
+        if (toc != null && toc.record != null && toc.record.length == length) {
+            out.bytes(toc.record);
+        } else {
+            out.bytes(new byte[length]);
+        }
+        int value = toc == null ? index : toc.index;
+        out.patch(start, value).patch(start + 1, value >>> 8);
+        for (int i = 0; i < 4; i++) {
+            out.patch(start + 4 + i, address >>> (i * 8)).patch(start + 8 + i, size >>> (i * 8));
+        }
+    }
+
+    /**
+     * Get the binary of the archive entry.
+     */
+    private static byte[] content(Alar.AlarEntry entry) {
+        AlObject value = entry.value;
+        if (value == null || !isEncodable(value)) {
+            if (entry.data == null) {
+                throw new IllegalArgumentException("Archive entry " + name(entry) + " has neither an encodable value nor raw data");
+            }
+            return bytes(entry.data);
+        }
+
+        byte[] encoded = encode(value);
+        if (!(value instanceof TextObject) && entry.data != null && isAllz(entry.data)) {
+            // the game's compressor is not ours, so an unchanged entry keeps its compressed bytes
+            if (Arrays.equals(encoded, AllzDecoder.decode(entry.data.duplicate()))) {
+                return bytes(entry.data);
+            }
+            encoded = AllzEncoder.encode(encoded);
+        }
+        return encoded;
+    }
+
+    private static boolean isEncodable(AlObject value) {
+        return value instanceof Altb || value instanceof Alrd || value instanceof Alar || value instanceof TextObject;
+    }
+
+    private static boolean isAllz(ByteBuffer data) {
+        return 4 <= data.remaining() && data.getInt(data.position()) == 0x5A4C4C41 /* ALLZ */;
+    }
+
+    private static String name(Alar.AlarEntry entry) {
+        return entry.name != null ? entry.name : entry.toc != null ? entry.toc.name : "";
+    }
+
+    private static byte[] bytes(ByteBuffer data) {
+        byte[] bytes = new byte[data.remaining()];
+        data.duplicate().get(bytes);
+        return bytes;
+    }
+
+    private static byte[] text(String value) {
+        return value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int align(int value) {
+        return (value + 3) & ~3;
+    }
+
+    /**
+     * The string block of a table: the original block followed by the new strings.
+     */
+    private static class Strings extends ByteArrayOutputStream {
+
+        private final Map<String, Integer> added = new HashMap<>();
+
+        private Strings(ByteBuffer original) {
+            if (original != null) {
+                writeBytes(bytes(original));
+            }
+        }
+
+        /**
+         * Locate the string, appending it to the block unless it keeps its original offset.
+         */
+        private int offset(String value, int original) {
+            if (0 <= original) {
+                return original;
+            }
+            return added.computeIfAbsent(value, key -> {
+                int offset = size();
+                writeBytes(text(key));
+                write(0);
+                return offset;
+            });
+        }
+    }
+
+    /**
+     * Little-endian byte sink. Every object starts 4 byte aligned, so the alignment is counted from
+     * the start of the object.
+     */
+    private static class Out extends ByteArrayOutputStream {
+
+        private Out bytes(int... values) {
+            for (int value : values) {
+                write(value);
+            }
+            return this;
+        }
+
+        private Out bytes(byte[] values) {
+            writeBytes(values);
+            return this;
+        }
+
+        private Out ascii(String value) {
+            return bytes(value.getBytes(StandardCharsets.US_ASCII));
+        }
+
+        private Out word(int value) {
+            return bytes(value & 0xFF, (value >>> 8) & 0xFF);
+        }
+
+        private Out dword(int value) {
+            return word(value).word(value >>> 16);
+        }
+
+        /**
+         * Write the text into the NUL padded field of the given size.
+         */
+        private Out fixed(String value, int size) {
+            byte[] text = text(value);
+            if (size < text.length) {
+                throw new IllegalArgumentException("Text " + value + " is longer than " + size + " bytes");
+            }
+            writeBytes(text);
+            return bytes(new byte[size - text.length]);
+        }
+
+        private Out align() {
+            while (count % 4 != 0) {
+                write(0);
+            }
+            return this;
+        }
+
+        /**
+         * Overwrite the byte which has already been written.
+         */
+        private Out patch(int index, int value) {
+            buf[index] = (byte) value;
+            return this;
+        }
+    }
+}
@@ -7,7 +7,13 @@ import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import walhalla.loader.parser.AlParser;
 import walhalla.loader.parser.data.AlObject;
 import walhalla.loader.parser.data.Alar;
 import walhalla.loader.parser.data.Almt;
@@ -19,15 +25,91 @@ public class AlWriter {
 
     private final Path outputDir;
 
+    private TableFormat format = TableFormat.TEXT;
+
     public AlWriter(String outputDir) {
         this.outputDir = Paths.get(outputDir);
     }
 
+    /**
+     * Configure the output format of the tables. The tables are streamed in every format.
+     *
+     * @param format The table format, {@link TableFormat#TEXT} by default.
+     * @return Chainable API.
+     */
+    public AlWriter format(TableFormat format) {
+        this.format = format;
+        return this;
+    }
+
     public void write(AlObject obj) throws IOException {
         Files.createDirectories(outputDir);
         writeObject(obj, outputDir);
     }
 
+    /**
+     * Write the object like {@link #write(AlObject)}, but write each top-level entry of an archive
+     * as an independent task on a bounded pool. The entry directories are created up front in one
+     * pass, and every task writes only below its own directory, so the output is byte-identical to
+     * the sequential writer. Other objects are written on the calling thread.
+     *
+     * @param obj The object to write.
+     * @param parallelism The maximum number of entries written at the same time.
+     * @return The throughput report.
+     * @throws IOException If any entry can't be written. The other entries are still written.
+     */
+    public Report write(AlObject obj, int parallelism) throws IOException {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+
+        long start = System.nanoTime();
+        Files.createDirectories(outputDir);
+        if (!(obj instanceof Alar)) {
+            writeObject(obj, outputDir);
+            return new Report(1, 0, System.nanoTime() - start);
+        }
+
+        Alar alar = (Alar) obj;
+        List<Callable<Void>> tasks = new ArrayList<>(alar.entries.size());
+        long bytes = 0;
+        for (int i = 0; i < alar.entries.size(); i++) {
+            Alar.AlarEntry entry = alar.entries.get(i);
+            Path entryPath = prepare(entry, i, outputDir);
+            bytes += entry.toc.size;
+            tasks.add(() -> {
+                writeObject(entry.value(), entryPath);
+                return null;
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, Math.max(1, tasks.size())));
+        try {
+            IOException error = null;
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    IOException cause = e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+                    if (error == null) {
+                        error = cause;
+                    } else {
+                        error.addSuppressed(cause);
+                    }
+                }
+            }
+            if (error != null) {
+                throw error;
+            }
+            return new Report(tasks.size(), bytes, System.nanoTime() - start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Export was interrupted.", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     private void writeObject(AlObject obj, Path currentDir) throws IOException {
         switch (obj.type) {
         case "ALAR":
@@ -56,48 +138,24 @@ public class AlWriter {
     private void writeAlar(Alar alar, Path currentDir) throws IOException {
         for (int i = 0; i < alar.entries.size(); i++) {
             Alar.AlarEntry entry = alar.entries.get(i);
-            String name = String.format("%03d_%s", i + 1, entry.toc.name);
-            Path entryPath = currentDir.resolve(name);
-            if (entry.value.type.equals("TEXT")) {
-                writeObject(entry.value, entryPath);
-            } else {
-                Files.createDirectories(entryPath);
-                writeObject(entry.value, entryPath);
-            }
+            writeObject(entry.value(), prepare(entry, i, currentDir));
         }
     }
 
-    private void writeAltb(Altb altb, Path currentDir) throws IOException {
-        Path filePath = currentDir.resolve("ALTB_" + altb.header.name + ".txt");
-        StringBuilder sb = new StringBuilder();
-
-        List<Integer> widths = new ArrayList<>();
-        for (int i = 0; i < altb.header.object.entries.size(); i++) {
-            widths.add(altb.header.object.entries.get(i).nameEn.length());
-        }
-
-        for (List<Altb.DataEntry> row : altb.rows) {
-            for (int i = 0; i < row.size(); i++) {
-                String valueStr = valueToString(row.get(i).value, row.get(i).key.nameEn);
-                widths.set(i, Math.max(widths.get(i), valueStr.length()));
-            }
-        }
-
-        for (int i = 0; i < altb.header.object.entries.size(); i++) {
-            Alrd.AlrdEntry header = altb.header.object.entries.get(i);
-            sb.append(pad(header.nameEn, widths.get(i), header.type == 0x20)).append(" ");
+    /**
+     * Compute the output path of the archive entry and create its directory unless the entry is a
+     * text file. The entry is not parsed.
+     */
+    private Path prepare(Alar.AlarEntry entry, int index, Path currentDir) throws IOException {
+        Path entryPath = currentDir.resolve(String.format("%03d_%s", index + 1, entry.toc.name));
+        if (!AlParser.isText(entry.toc.name)) {
+            Files.createDirectories(entryPath);
         }
-        sb.append("\n");
+        return entryPath;
+    }
 
-        for (List<Altb.DataEntry> row : altb.rows) {
-            for (int i = 0; i < row.size(); i++) {
-                Altb.DataEntry entry = row.get(i);
-                String valueStr = valueToString(entry.value, entry.key.nameEn);
-                sb.append(pad(valueStr, widths.get(i), entry.key.type == 0x20)).append(" ");
-            }
-            sb.append("\n");
-        }
-        Files.write(filePath, sb.toString().getBytes());
+    private void writeAltb(Altb altb, Path currentDir) throws IOException {
+        TableWriter.write(altb, format, currentDir.resolve("ALTB_" + altb.header.name + "." + format.extension));
     }
 
     private void writeAlrd(Alrd alrd, Path currentDir) throws IOException {
@@ -119,7 +177,7 @@ public class AlWriter {
 
         for (Almt.AlmtEntry entry : almt.entries) {
             sb.append("entry: ").append(entry.name).append("\n");
-            entry.data.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(fieldEntry -> {
+            entry.data().entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(fieldEntry -> {
                 sb.append("  ").append(fieldEntry.getKey()).append("\n");
                 List<Almt.StreamFrame> stream = fieldEntry.getValue();
                 for (int i = 0; i < stream.size(); i++) {
@@ -135,35 +193,6 @@ public class AlWriter {
         Files.write(filePath, sb.toString().getBytes());
     }
 
-    private String pad(String str, int n, boolean left) {
-        int padLen = n - str.length();
-        if (padLen <= 0) return str;
-        StringBuilder sb = new StringBuilder();
-        if (left) {
-            sb.append(str);
-            for (int i = 0; i < padLen; i++)
-                sb.append(" ");
-        } else {
-            for (int i = 0; i < padLen; i++)
-                sb.append(" ");
-            sb.append(str);
-        }
-        return sb.toString();
-    }
-
-    private String valueToString(Object value, String key) {
-        if (value instanceof String) {
-            return "\"" + ((String) value).replace("\n", "\\n") + "\"";
-        }
-        if (value instanceof Boolean) {
-            return (Boolean) value ? "true" : "false";
-        }
-        if (key.equals("PatternID")) {
-            return String.format("0x%08x", (int) value);
-        }
-        return String.valueOf(value);
-    }
-
     private String streamFrameDataToString(String fieldName, Object data) {
         if (fieldName.equals("Scale") || fieldName.equals("Center")) {
             @SuppressWarnings("unchecked")
@@ -176,4 +205,40 @@ public class AlWriter {
     private void writeText(TextObject text, Path filePath) throws IOException {
         Files.write(filePath, text.text.getBytes());
     }
+
+    /**
+     * The throughput of the parallel export.
+     */
+    public static class Report {
+
+        /** The number of written entries. */
+        public final int entries;
+
+        /** The total size of the written entries in the archive. */
+        public final long bytes;
+
+        /** The elapsed time. */
+        public final long nanos;
+
+        Report(int entries, long bytes, long nanos) {
+            this.entries = entries;
+            this.bytes = bytes;
+            this.nanos = nanos;
+        }
+
+        /**
+         * @return The archive bytes written per second.
+         */
+        public double throughput() {
+            return nanos == 0 ? 0 : bytes * 1e9 / nanos;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return String.format("Wrote %d entries (%.1f MB) in %.2fs : %.1f MB/s", entries, bytes / 1024d / 1024d, nanos / 1e9, throughput() / 1024d / 1024d);
+        }
+    }
 }
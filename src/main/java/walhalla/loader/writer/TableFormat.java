@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2025 Nameless Production Committee
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://opensource.org/licenses/mit-license.php
+ */
+package walhalla.loader.writer;
+
+/**
+ * The output formats of {@link TableWriter}.
+ */
+public enum TableFormat {
+
+    /** Space padded columns for reading by eye, the classic {@link AlWriter} output. */
+    TEXT("txt"),
+
+    /** RFC 4180 comma separated values with a header line. */
+    CSV("csv"),
+
+    /** One JSON object per row. */
+    NDJSON("ndjson"),
+
+    /** Little-endian column blocks, see {@link TableWriter#writeColumnar}. */
+    COLUMNAR("bin");
+
+    /** The file extension without the dot. */
+    public final String extension;
+
+    private TableFormat(String extension) {
+        this.extension = extension;
+    }
+}
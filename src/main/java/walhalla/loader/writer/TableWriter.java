@@ -0,0 +1,402 @@
+/*
+ * Copyright (C) 2025 Nameless Production Committee
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://opensource.org/licenses/mit-license.php
+ */
+package walhalla.loader.writer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import walhalla.loader.parser.data.Altb;
+
+/**
+ * Streaming writer of {@link Altb} tables.
+ * <p>
+ * Cells are read straight from the primitive columns and written through a fixed size buffer, so
+ * a table is never rendered into one big string and memory stays flat however many tables are
+ * exported. The padded text format needs the column widths up front; they are computed by a
+ * pre-pass which counts digits and string lengths without formatting anything except floats.
+ * </p>
+ * <p>
+ * The {@link TableFormat#COLUMNAR columnar} format is little-endian: the magic "WCOL", the version
+ * 1, the row count and the column count as int32, then per column its UTF-8 name (int32 length and
+ * bytes) and its type byte (1 int32, 4 float32, 5 uint8, 0x20 string, 0 unknown). The column
+ * blocks follow in the same order, each starting with a bitmap of the missing cells (one bit per
+ * row, LSB first) followed by the values. A string is written as its int32 UTF-8 length and bytes,
+ * or -1 when the cell has no string.
+ * </p>
+ */
+public class TableWriter {
+
+    /** The size of the output buffer. */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final byte[] MAGIC = {'W', 'C', 'O', 'L'};
+
+    private TableWriter() {
+    }
+
+    /**
+     * Write the table to the file in the specified format.
+     *
+     * @param table The table to write.
+     * @param format The output format.
+     * @param file The output file.
+     * @throws IOException If the file can't be written.
+     */
+    public static void write(Altb table, TableFormat format, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            write(table, format, channel);
+        }
+    }
+
+    /**
+     * Write the table to the stream in the specified format. The stream is flushed but not closed.
+     *
+     * @param table The table to write.
+     * @param format The output format.
+     * @param out The output stream.
+     * @throws IOException If the stream can't be written.
+     */
+    public static void write(Altb table, TableFormat format, OutputStream out) throws IOException {
+        write(table, format, Channels.newChannel(out));
+        out.flush();
+    }
+
+    private static void write(Altb table, TableFormat format, WritableByteChannel channel) throws IOException {
+        if (format == TableFormat.COLUMNAR) {
+            writeColumnar(table, channel);
+            return;
+        }
+
+        Writer out = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8), BUFFER_SIZE);
+        switch (format) {
+        case TEXT:
+            writeText(table, out);
+            break;
+        case CSV:
+            writeCsv(table, out);
+            break;
+        case NDJSON:
+            writeNdjson(table, out);
+            break;
+        default:
+            throw new IllegalArgumentException("Unsupported format: " + format);
+        }
+        out.flush();
+    }
+
+    /**
+     * Write the space padded table, string columns aligned to the left and the others to the
+     * right.
+     */
+    static void writeText(Altb table, Writer out) throws IOException {
+        List<Altb.Column> columns = table.columns;
+        int[] widths = new int[columns.size()];
+        for (int i = 0; i < widths.length; i++) {
+            Altb.Column column = columns.get(i);
+            int width = column.key.nameEn.length();
+            for (int row = 0; row < table.size; row++) {
+                width = Math.max(width, length(column, row));
+            }
+            widths[i] = width;
+        }
+
+        for (int i = 0; i < widths.length; i++) {
+            Altb.Column column = columns.get(i);
+            pad(out, column.key.nameEn, widths[i], column.key.type == 0x20);
+            out.write(' ');
+        }
+        out.write('\n');
+
+        for (int row = 0; row < table.size; row++) {
+            for (int i = 0; i < widths.length; i++) {
+                Altb.Column column = columns.get(i);
+                pad(out, text(column, row), widths[i], column.key.type == 0x20);
+                out.write(' ');
+            }
+            out.write('\n');
+        }
+    }
+
+    /**
+     * Compute the length of {@link #text(Altb.Column, int)} without building it, except for
+     * floats.
+     */
+    static int length(Altb.Column column, int row) {
+        Object value = column.get(row);
+        if (value instanceof String) {
+            String text = (String) value;
+            int length = text.length() + 2;
+            for (int i = 0; i < text.length(); i++) {
+                if (text.charAt(i) == '\n') length++;
+            }
+            return length;
+        }
+        if (value instanceof Integer) {
+            return isPattern(column) ? 10 : digits((Integer) value);
+        }
+        return String.valueOf(value).length();
+    }
+
+    /**
+     * Render the cell for the text format.
+     */
+    static String text(Altb.Column column, int row) {
+        Object value = column.get(row);
+        if (value instanceof String) {
+            return "\"" + ((String) value).replace("\n", "\\n") + "\"";
+        }
+        if (value instanceof Integer && isPattern(column)) {
+            return String.format("0x%08x", (int) value);
+        }
+        return String.valueOf(value);
+    }
+
+    private static boolean isPattern(Altb.Column column) {
+        return column.key.nameEn.equals("PatternID");
+    }
+
+    private static int digits(int value) {
+        if (value == Integer.MIN_VALUE) return 11;
+        int length = value < 0 ? 2 : 1;
+        for (long abs = Math.abs((long) value); 10 <= abs; abs /= 10) {
+            length++;
+        }
+        return length;
+    }
+
+    private static void pad(Writer out, String text, int width, boolean left) throws IOException {
+        if (left) out.write(text);
+        for (int i = text.length(); i < width; i++) {
+            out.write(' ');
+        }
+        if (!left) out.write(text);
+    }
+
+    /**
+     * Write the comma separated values with the header line of the column names.
+     */
+    static void writeCsv(Altb table, Writer out) throws IOException {
+        List<Altb.Column> columns = table.columns;
+        for (int i = 0; i < columns.size(); i++) {
+            if (i != 0) out.write(',');
+            csv(out, columns.get(i).key.nameEn);
+        }
+        out.write("\r\n");
+
+        for (int row = 0; row < table.size; row++) {
+            for (int i = 0; i < columns.size(); i++) {
+                if (i != 0) out.write(',');
+                Object value = columns.get(i).get(row);
+                if (value instanceof String) {
+                    csv(out, (String) value);
+                } else if (value != null) {
+                    out.write(value.toString());
+                }
+            }
+            out.write("\r\n");
+        }
+    }
+
+    private static void csv(Writer out, String text) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < text.length() && !quote; i++) {
+            char c = text.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+
+        if (!quote) {
+            out.write(text);
+        } else {
+            out.write('"');
+            out.write(text.replace("\"", "\"\""));
+            out.write('"');
+        }
+    }
+
+    /**
+     * Write one JSON object per row keyed by the column names.
+     */
+    static void writeNdjson(Altb table, Writer out) throws IOException {
+        List<Altb.Column> columns = table.columns;
+        for (int row = 0; row < table.size; row++) {
+            out.write('{');
+            for (int i = 0; i < columns.size(); i++) {
+                Altb.Column column = columns.get(i);
+                if (i != 0) out.write(',');
+                json(out, column.key.nameEn);
+                out.write(':');
+
+                Object value = column.get(row);
+                if (value instanceof String) {
+                    json(out, (String) value);
+                } else if (value instanceof Float && !Float.isFinite((Float) value)) {
+                    out.write("null");
+                } else {
+                    out.write(String.valueOf(value));
+                }
+            }
+            out.write("}\n");
+        }
+    }
+
+    private static void json(Writer out, String text) throws IOException {
+        out.write('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+            case '"':
+                out.write("\\\"");
+                break;
+            case '\\':
+                out.write("\\\\");
+                break;
+            case '\n':
+                out.write("\\n");
+                break;
+            case '\r':
+                out.write("\\r");
+                break;
+            case '\t':
+                out.write("\\t");
+                break;
+            default:
+                if (c < 0x20) {
+                    out.write(String.format("\\u%04x", (int) c));
+                } else {
+                    out.write(c);
+                }
+            }
+        }
+        out.write('"');
+    }
+
+    /**
+     * Write the column blocks described in the class documentation.
+     */
+    static void writeColumnar(Altb table, WritableByteChannel channel) throws IOException {
+        Sink out = new Sink(channel);
+        out.bytes(MAGIC).int32(1).int32(table.size).int32(table.columns.size());
+        for (Altb.Column column : table.columns) {
+            out.string(column.key.nameEn).int8(type(column));
+        }
+
+        for (Altb.Column column : table.columns) {
+            int type = type(column);
+            for (int row = 0; row < table.size; row += 8) {
+                int bits = 0;
+                for (int i = 0; i < 8 && row + i < table.size; i++) {
+                    if (column.get(row + i) == null || type == 0) bits |= 1 << i;
+                }
+                out.int8(bits);
+            }
+
+            for (int row = 0; row < table.size; row++) {
+                boolean missing = column.isMissing(row);
+                switch (type) {
+                case 1:
+                    out.int32(missing ? 0 : column.getInt(row));
+                    break;
+                case 4:
+                    out.float32(missing ? 0 : column.getFloat(row));
+                    break;
+                case 5:
+                    out.int8(missing ? 0 : column.getInt(row));
+                    break;
+                case 0x20:
+                    Object value = column.get(row);
+                    if (value instanceof String) {
+                        out.string((String) value);
+                    } else {
+                        out.int32(-1);
+                    }
+                    break;
+                }
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Detect the type of the column block. String columns without a string block hold plain ints.
+     */
+    private static int type(Altb.Column column) {
+        int type = column.key.type;
+        if (type == 0x20) return column.isString() ? 0x20 : 1;
+        return type == 1 || type == 4 || type == 5 ? type : 0;
+    }
+
+    /**
+     * Little-endian output through a fixed size buffer.
+     */
+    private static class Sink {
+
+        private final WritableByteChannel channel;
+
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+        private Sink(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        private Sink ensure(int size) throws IOException {
+            if (buffer.remaining() < size) flush();
+            return this;
+        }
+
+        private Sink int8(int value) throws IOException {
+            ensure(1).buffer.put((byte) value);
+            return this;
+        }
+
+        private Sink int32(int value) throws IOException {
+            ensure(4).buffer.putInt(value);
+            return this;
+        }
+
+        private Sink float32(float value) throws IOException {
+            ensure(4).buffer.putFloat(value);
+            return this;
+        }
+
+        private Sink bytes(byte[] value) throws IOException {
+            for (int i = 0; i < value.length;) {
+                int size = Math.min(value.length - i, ensure(1).buffer.remaining());
+                buffer.put(value, i, size);
+                i += size;
+            }
+            return this;
+        }
+
+        private Sink string(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            return int32(bytes.length).bytes(bytes);
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
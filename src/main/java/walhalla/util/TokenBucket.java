@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2025 Nameless Production Committee
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://opensource.org/licenses/mit-license.php
+ */
+package walhalla.util;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * スレッドセーフなトークンバケットです。トークンは一定間隔で補充され、最大でバースト数まで貯めておけます。
+ * </p>
+ * <p>
+ * 各リクエストは次にトークンが使える時刻を予約するだけなので、ロックを握ったまま待つことはありません。
+ * 同時に呼び出されても予約の順に間隔が空けられます。{@link #schedule()}を使えばスレッドを眠らせずに
+ * トークンが使える時刻に処理を続けられます。
+ * </p>
+ */
+public final class TokenBucket {
+
+    /**
+     * トークン1個が補充されるまでの時間（ナノ秒）。
+     */
+    private final long interval;
+
+    /**
+     * 貯めておけるトークンの最大数。
+     */
+    private final int burst;
+
+    /**
+     * 次のトークンが補充される理論上の時刻（ナノ秒）。
+     */
+    private long next;
+
+    /**
+     * トークンを待っている予約の数。
+     */
+    private final AtomicInteger queued = new AtomicInteger();
+
+    /**
+     * 払い出したトークンの数。
+     */
+    private final LongAdder granted = new LongAdder();
+
+    /**
+     * 予約が待たされた時間の合計（ナノ秒）。
+     */
+    private final LongAdder waited = new LongAdder();
+
+    /**
+     * @param interval トークン1個が補充されるまでの時間
+     * @param burst 貯めておけるトークンの最大数
+     */
+    public TokenBucket(Duration interval, int burst) {
+        if (interval.isNegative() || burst < 1) {
+            throw new IllegalArgumentException("Invalid token bucket: interval " + interval + " burst " + burst);
+        }
+        this.interval = interval.toNanos();
+        this.burst = burst;
+        this.next = System.nanoTime();
+    }
+
+    /**
+     * トークンを1個予約し、それが使えるようになるまでの待ち時間を返します。
+     *
+     * @return 待ち時間（ナノ秒）、すぐに使える場合は0
+     */
+    public synchronized long reserve() {
+        long now = System.nanoTime();
+        long start = Math.max(next, now);
+        next = start + interval;
+        long wait = Math.max(0, start - (burst - 1) * interval - now);
+
+        granted.increment();
+        waited.add(wait);
+        return wait;
+    }
+
+    /**
+     * トークンを1個取得します。トークンが無い場合は補充されるまで呼び出したスレッドを待たせます。
+     * 割り込まれた場合は割り込み状態を戻して即座に復帰します。
+     */
+    public void acquire() {
+        long wait = reserve();
+        if (0 < wait) {
+            queued.incrementAndGet();
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                queued.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * トークンを1個予約し、それが使えるようになった時に完了するFutureを返します。
+     * 呼び出したスレッドは待たされず、続きの処理は共通のスケジューラから実行されます。
+     *
+     * @return トークンが使えるようになった時に完了するFuture
+     */
+    public CompletableFuture<Void> schedule() {
+        long wait = reserve();
+        if (wait == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        queued.incrementAndGet();
+        return CompletableFuture.runAsync(queued::decrementAndGet, CompletableFuture.delayedExecutor(wait, TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * トークンを待っている予約の数を返します。
+     *
+     * @return 待ち行列の長さ
+     */
+    public int queued() {
+        return queued.get();
+    }
+
+    /**
+     * これまでに払い出したトークンの数を返します。
+     *
+     * @return トークンの数
+     */
+    public long granted() {
+        return granted.sum();
+    }
+
+    /**
+     * これまでに予約が待たされた時間の合計を返します。
+     *
+     * @return 待ち時間の合計
+     */
+    public Duration waited() {
+        return Duration.ofNanos(waited.sum());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "TokenBucket[interval=" + Duration.ofNanos(interval) + ", burst=" + burst + "]";
+    }
+}
@@ -0,0 +1,338 @@
+/*
+ * Copyright (C) 2025 Nameless Production Committee
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://opensource.org/licenses/mit-license.php
+ */
+package walhalla.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * <p>
+ * Webページのディスクキャッシュです。エントリはURLのSHA-256で名付けられ、先頭2桁の16進数ごとのサブディレクトリに
+ * 分けて置かれます。
+ * </p>
+ * <ul>
+ * <li>エントリには圧縮しないヘッダーとしてバージョン、取得時刻、URL、検証用のレスポンスヘッダーが置かれ、
+ * 続けて本文がDeflate圧縮で保存されます。読み出し時にURLを照合するので、別のURLの内容を返すことはありません。</li>
+ * <li>再検証で変更が無かった場合は、ヘッダーの取得時刻だけをその場で書き換えます。</li>
+ * <li>書き込みは一時ファイルを経由した名前の変更で行うので、並行して読み出しても書きかけのエントリは見えません。</li>
+ * <li>エントリのファイルの最終更新時刻は最後に読み書きされた時刻です。合計サイズが上限を超えると古いものから削除します。</li>
+ * <li>ルート直下に残っている以前の形式のエントリは、最初に合計サイズを数える時に削除します。</li>
+ * </ul>
+ */
+public class WebCache {
+
+    /** エントリの形式のバージョン。 */
+    private static final int VERSION = 2;
+
+    /** 圧縮されていないヘッダーのうち、バージョンと取得時刻の大きさ。 */
+    private static final int HEADER = 12;
+
+    /** 以前の形式のエントリの名前。URLのhashCodeとその検証用ヘッダーのファイルです。 */
+    private static final Pattern LEGACY = Pattern.compile("-?\\d+(\\.validator)?");
+
+    /** 上限を超えた時にこの割合まで削除し、削除が続けて起きないようにします。 */
+    private static final double EVICTION_RATIO = 0.9;
+
+    /** キャッシュのルートディレクトリ。 */
+    private final Path root;
+
+    /** エントリの合計サイズの上限（バイト）。 */
+    private final long capacity;
+
+    /** エントリの合計サイズ（バイト）。最初に必要になった時に数えます。 */
+    private long size = -1;
+
+    /**
+     * @param root キャッシュのルートディレクトリ
+     * @param capacity エントリの合計サイズの上限（バイト）
+     */
+    public WebCache(Path root, long capacity) {
+        this.root = root;
+        this.capacity = capacity;
+    }
+
+    /**
+     * 指定したURLのエントリを読み出します。
+     *
+     * @param uri エントリのURL
+     * @return エントリ、存在しないか読み出せない場合はnull
+     */
+    public Entry read(String uri) {
+        Path file = locate(uri);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != VERSION) {
+                return null;
+            }
+            long stored = in.readLong();
+            if (!readString(in).equals(uri)) {
+                return null;
+            }
+
+            Map<String, String> validators = new LinkedHashMap<>();
+            for (int i = in.readInt(); 0 < i; i--) {
+                validators.put(readString(in), readString(in));
+            }
+            String text;
+            try (InflaterInputStream body = new InflaterInputStream(in)) {
+                text = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            Entry entry = new Entry(uri, stored, validators, text);
+
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return entry;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            // a broken entry is downloaded again
+            System.err.println("Failed to read the web cache for " + uri + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 指定したURLのエントリを現在時刻で書き込みます。既にある場合は置き換えます。
+     *
+     * @param uri エントリのURL
+     * @param text 本文
+     * @param validators 検証用のレスポンスヘッダー
+     */
+    public void write(String uri, String text, Map<String, String> validators) {
+        Path file = locate(uri);
+        size(); // count the existing entries before this one is added
+
+        try {
+            Files.createDirectories(file.getParent());
+            Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                    out.writeInt(VERSION);
+                    out.writeLong(System.currentTimeMillis());
+                    writeString(out, uri);
+                    out.writeInt(validators.size());
+                    for (Map.Entry<String, String> validator : validators.entrySet()) {
+                        writeString(out, validator.getKey());
+                        writeString(out, validator.getValue());
+                    }
+
+                    try (DeflaterOutputStream body = new DeflaterOutputStream(out)) {
+                        body.write(text.getBytes(StandardCharsets.UTF_8));
+                    }
+                }
+
+                long written = Files.size(temp);
+                long replaced = Files.isRegularFile(file) ? Files.size(file) : 0;
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                grow(written - replaced);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            // the cache is an optimization only, the downloaded text is still usable
+            System.err.println("Failed to store the web cache for " + uri + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * 指定したURLのエントリの取得時刻だけを現在時刻にします。本文は読み書きしません。
+     *
+     * @param uri エントリのURL
+     * @return 更新できた場合はtrue、エントリが無いか別の形式の場合はfalse
+     */
+    public boolean touch(String uri) {
+        Path file = locate(uri);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            while (header.hasRemaining() && channel.read(header) != -1) {
+                // read the whole header
+            }
+            if (header.hasRemaining() || header.getInt(0) != VERSION) {
+                return false;
+            }
+
+            // the time is a fixed 8 bytes in the uncompressed header, so it is updated in place
+            long now = System.currentTimeMillis();
+            header.putLong(4, now).position(4);
+            channel.write(header, 4);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(now));
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        } catch (IOException e) {
+            System.err.println("Failed to touch the web cache for " + uri + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * エントリの合計サイズを返します。
+     *
+     * @return 合計サイズ（バイト）
+     */
+    public synchronized long size() {
+        if (size == -1) {
+            removeLegacy();
+
+            size = 0;
+            for (Path file : entries()) {
+                size += sizeOf(file);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * ルート直下に置かれた以前の形式のエントリ（URLのhashCodeで名付けた非圧縮のファイル）を削除します。
+     */
+    private void removeLegacy() {
+        if (Files.isDirectory(root)) {
+            try (Stream<Path> list = Files.list(root)) {
+                Iterable<Path> files = list.filter(path -> LEGACY.matcher(path.getFileName().toString()).matches())
+                        .filter(Files::isRegularFile)::iterator;
+                for (Path file : files) {
+                    Files.deleteIfExists(file);
+                }
+            } catch (IOException e) {
+                System.err.println("Failed to remove the legacy web cache in " + root + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 合計サイズを更新し、上限を超えた場合は最後に使われた時刻が古いエントリから削除します。
+     */
+    private synchronized void grow(long delta) {
+        size += delta;
+        if (size <= capacity) {
+            return;
+        }
+
+        record Used(Path file, long time, long size) {
+        }
+
+        List<Used> used = new ArrayList<>();
+        for (Path file : entries()) {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                used.add(new Used(file, attributes.lastModifiedTime().toMillis(), attributes.size()));
+            } catch (IOException e) {
+                // deleted by another process
+            }
+        }
+        used.sort(Comparator.comparingLong(Used::time));
+
+        size = used.stream().mapToLong(Used::size).sum();
+        long target = (long) (capacity * EVICTION_RATIO);
+        for (int i = 0; i < used.size() && target < size; i++) {
+            try {
+                Files.deleteIfExists(used.get(i).file);
+                size -= used.get(i).size;
+            } catch (IOException e) {
+                // retried on the next eviction
+            }
+        }
+    }
+
+    /**
+     * 全てのエントリのファイルを列挙します。書き込み中の一時ファイルは含みません。
+     */
+    private List<Path> entries() {
+        List<Path> files = new ArrayList<>();
+        if (Files.isDirectory(root)) {
+            try (Stream<Path> walk = Files.walk(root, 2)) {
+                walk.filter(path -> path.getParent() != null && !path.getParent().equals(root))
+                        .filter(path -> !path.getFileName().toString().endsWith(".tmp"))
+                        .filter(Files::isRegularFile)
+                        .forEach(files::add);
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to list the web cache " + root, e);
+            }
+        }
+        return files;
+    }
+
+    /**
+     * 指定したURLのエントリの場所を計算します。
+     */
+    private Path locate(String uri) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            String hash = HexFormat.of().formatHex(digest.digest(uri.getBytes(StandardCharsets.UTF_8)));
+            return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * 文字列をUTF-8のバイト数に続けて書き込みます。{@link DataOutputStream#writeUTF(String)}と違い長さの制限はありません。
+     */
+    private static void writeString(DataOutputStream out, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Broken string length " + length);
+        }
+        byte[] bytes = in.readNBytes(length);
+        if (bytes.length != length) {
+            throw new EOFException();
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * キャッシュのエントリ。
+     *
+     * @param uri エントリのURL
+     * @param stored 本文を取得または検証した時刻（ミリ秒）
+     * @param validators 検証用のレスポンスヘッダー
+     * @param text 本文
+     */
+    public record Entry(String uri, long stored, Map<String, String> validators, String text) {
+    }
+}
@@ -9,11 +9,30 @@
  */
 package walhalla.util;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+
 import kiss.I;
 import kiss.XML;
-import psychopath.Directory;
-import psychopath.File;
-import psychopath.Locator;
 
 /**
  * <p>
@@ -21,22 +40,103 @@ import psychopath.Locator;
  * キャッシュが存在し有効な場合はキャッシュを返し、期限切れや未取得の場合はサーバーからデータを取得してキャッシュします。
  * </p>
  * <ul>
- * <li>キャッシュディレクトリは「.data/cache」配下に作成されます。</li>
+ * <li>キャッシュディレクトリは「.data/cache」配下に作成され、{@link WebCache}が圧縮して保存します。</li>
  * <li>キャッシュの有効期限（TTL）はデフォルト14日間ですが、Astro.FORCE_UPDATEに含まれる場合は即時更新されます。</li>
- * <li>サーバーへのリクエスト間隔（interval）はURLにより異なります。</li>
+ * <li>期限切れのキャッシュはETagやLast-Modifiedで再検証し、変更されていなければ期限を延ばすだけで本文は取得しません。</li>
+ * <li>サーバーへのリクエスト間隔（interval）とバースト数はホストごとに{@link #limit(String, Duration, int)}で設定でき、
+ * ホストが違えば並行してリクエストできます。</li>
+ * <li>全てのリクエストは接続を使い回す1つのHTTP/2クライアントから送られ、同じURIへの同時のリクエストは1つにまとめられます。</li>
+ * <li>ホストごとの通信量や待ち時間は{@link #traffic()}で確認できます。</li>
  * </ul>
  */
 public class WebPage {
 
     /**
-     * キャッシュデータを保存するディレクトリ。
+     * キャッシュの最大サイズ（バイト）。
+     */
+    private static final long CACHE_CAPACITY = 512L * 1024 * 1024;
+
+    /**
+     * 取得したデータのキャッシュ。
+     */
+    private static volatile WebCache CACHE = new WebCache(Path.of(".data/cache"), CACHE_CAPACITY);
+
+    /**
+     * 制限が設定されていないホストへのリクエスト間隔（ミリ秒）。
+     */
+    private static final long DEFAULT_INTERVAL = 250;
+
+    /**
+     * 全てのリクエストで共有するHTTPクライアント。同じホストへの接続は使い回されます。
+     */
+    private static volatile HttpClient CLIENT = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(Duration.ofSeconds(30))
+            .build();
+
+    /**
+     * サーバーから取得中のURIとその結果。同じURIへの同時のリクエストを1つにまとめます。
+     */
+    static final Map<String, CompletableFuture<String>> DOWNLOADING = new ConcurrentHashMap<>();
+
+    /**
+     * ホストごとのリクエスト制限と通信量。
+     */
+    private static final Map<String, Host> HOSTS = new ConcurrentHashMap<>();
+
+    /**
+     * キャッシュに保存する検証用のレスポンスヘッダーと、それを送り返す条件付きリクエストのヘッダー。
+     */
+    private static final Map<String, String> CONDITIONS = Map.of("ETag", "If-None-Match", "Last-Modified", "If-Modified-Since");
+
+    static {
+        limit("wikiwiki.jp", Duration.ofSeconds(1), 1);
+    }
+
+    /**
+     * キャッシュの保存先とHTTPクライアントを差し替えます。テストでローカルのサーバーと一時ディレクトリを使うためのものです。
+     *
+     * @param root キャッシュの保存先
+     * @param client HTTPクライアント
+     */
+    static void use(Path root, HttpClient client) {
+        CACHE = new WebCache(root, CACHE_CAPACITY);
+        CLIENT = client;
+    }
+
+    /**
+     * 指定したホストへのリクエスト間隔とバースト数を設定します。既に設定されている場合は置き換えます。
+     *
+     * @param host ホスト名（例: "aigis.fandom.com"）
+     * @param interval リクエスト間隔
+     * @param burst 間隔を空けずに続けて送れるリクエストの最大数
      */
-    private static final Directory CACHE_DIR = Locator.directory(".data/cache");
+    public static void limit(String host, Duration interval, int burst) {
+        TokenBucket bucket = new TokenBucket(interval, burst);
+        HOSTS.compute(host, (name, current) -> {
+            if (current == null) {
+                return new Host(name, bucket);
+            }
+            current.bucket = bucket;
+            return current;
+        });
+    }
 
     /**
-     * 最後にサーバーへリクエストした時刻（ミリ秒）。
+     * ホストごとの通信状況を返します。
+     *
+     * @return ホスト名順の通信状況
      */
-    private static long lastRequestTime = 0;
+    public static List<Traffic> traffic() {
+        List<Traffic> list = new ArrayList<>();
+        for (Host host : HOSTS.values()) {
+            TokenBucket bucket = host.bucket;
+            list.add(new Traffic(host.name, host.requests.sum(), host.bytes.sum(), bucket.queued(), bucket.waited()));
+        }
+        list.sort(Comparator.comparing(Traffic::host));
+        return list;
+    }
 
     /**
      * 指定したURIからデータを取得します。キャッシュが有効な場合はキャッシュを返し、
@@ -57,7 +157,7 @@ public class WebPage {
      * @return データの文字列
      */
     public static String fetchText(String uri, long ttl) {
-        return fetchText(uri, ttl, computeInteval(uri));
+        return fetchText(uri, ttl, DEFAULT_INTERVAL);
     }
 
     /**
@@ -65,40 +165,191 @@ public class WebPage {
      *
      * @param uri データ取得先のURI
      * @param ttl キャッシュの有効期限（ミリ秒）
-     * @param interval サーバーリクエスト間隔（ミリ秒）
+     * @param interval ホストの制限が未設定の場合に使うサーバーリクエスト間隔（ミリ秒）
      * @return データの文字列
      */
     public static String fetchText(String uri, long ttl, long interval) {
-        String hash = String.valueOf(uri.hashCode());
-        File file = CACHE_DIR.file(hash);
+        try {
+            return fetchTextAsync(uri, ttl, interval).join();
+        } catch (CompletionException e) {
+            throw I.quiet(e.getCause());
+        }
+    }
+
+    /**
+     * 指定したURIからデータを非同期に取得します。キャッシュが有効な場合は完了済みのFutureを返します。
+     *
+     * @param uri データ取得先のURI
+     * @return データの文字列を返すFuture
+     */
+    public static CompletableFuture<String> fetchTextAsync(String uri) {
+        return fetchTextAsync(uri, 21 * 24 * 60 * 60 * 1000);
+    }
+
+    /**
+     * 指定したURIからデータを非同期に取得します。キャッシュの有効期限（ttl）を指定できます。
+     *
+     * @param uri データ取得先のURI
+     * @param ttl キャッシュの有効期限（ミリ秒）
+     * @return データの文字列を返すFuture
+     */
+    public static CompletableFuture<String> fetchTextAsync(String uri, long ttl) {
+        return fetchTextAsync(uri, ttl, DEFAULT_INTERVAL);
+    }
 
-        if (file.isPresent()) {
-            long lastModified = file.lastModifiedMilli();
-            long currentTime = System.currentTimeMillis();
+    /**
+     * 指定したURIからデータを非同期に取得します。キャッシュの有効期限（ttl）とリクエスト間隔（interval）を指定できます。
+     * 同じURIを取得中の場合は新しいリクエストを送らず、その結果を共有します。
+     *
+     * @param uri データ取得先のURI
+     * @param ttl キャッシュの有効期限（ミリ秒）
+     * @param interval ホストの制限が未設定の場合に使うサーバーリクエスト間隔（ミリ秒）
+     * @return データの文字列を返すFuture
+     */
+    public static CompletableFuture<String> fetchTextAsync(String uri, long ttl, long interval) {
+        WebCache.Entry cached = CACHE.read(uri);
+        if (cached != null && System.currentTimeMillis() - cached.stored() < ttl) {
+            return CompletableFuture.completedFuture(cached.text());
+        }
 
-            if (currentTime - lastModified < ttl) {
-                return file.text();
+        CompletableFuture<String> download = new CompletableFuture<>();
+        CompletableFuture<String> current = DOWNLOADING.putIfAbsent(uri, download);
+        if (current != null) {
+            return current.copy();
+        }
+
+        // the previous download of this URI may have finished between the first read and here
+        WebCache.Entry latest = CACHE.read(uri);
+        if (latest != null && System.currentTimeMillis() - latest.stored() < ttl) {
+            DOWNLOADING.remove(uri, download);
+            download.complete(latest.text());
+            return download.copy();
+        }
+
+        // the request is built inside the chain, so an invalid URI fails the shared future
+        // instead of leaving it in the map forever
+        CompletableFuture.completedFuture(latest).thenCompose(stale -> download(uri, stale, interval)).whenComplete((text, error) -> {
+            DOWNLOADING.remove(uri, download);
+            if (error == null) {
+                download.complete(text);
+            } else {
+                download.completeExceptionally(error instanceof CompletionException ? error.getCause() : error);
             }
+        });
+        return download.copy();
+    }
+
+    /**
+     * サーバーからデータを取得してキャッシュします。期限切れのキャッシュがある場合は、変更されていなければ
+     * 本文無しの304で済ませます。
+     *
+     * @param uri データ取得先のURI
+     * @param cached 期限切れのキャッシュ、無い場合はnull
+     * @param interval ホストの制限が未設定の場合に使うサーバーリクエスト間隔（ミリ秒）
+     * @return データの文字列を返すFuture
+     */
+    private static CompletableFuture<String> download(String uri, WebCache.Entry cached, long interval) {
+        Host host = HOSTS.computeIfAbsent(host(uri), name -> new Host(name, new TokenBucket(Duration.ofMillis(interval), 1)));
+        String encoded = encode(uri);
+        // non-ASCII characters of the wiki page names are sent as percent-encoded UTF-8
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(URI.create(encoded).toASCIIString()))
+                .header("Accept-Encoding", "gzip")
+                .header("User-Agent", "walhalla (https://github.com/teletha/walhalla)");
+
+        if (cached != null) {
+            cached.validators().forEach((name, value) -> builder.header(CONDITIONS.get(name), value));
         }
 
-        long currentTime = System.currentTimeMillis();
-        if (currentTime - lastRequestTime < interval) {
-            try {
-                Thread.sleep(interval - (currentTime - lastRequestTime));
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
+        return host.bucket.schedule().thenCompose(ready -> {
+            System.out.println("Downloading " + encoded);
+            return CLIENT.sendAsync(builder.build(), BodyHandlers.ofByteArray());
+        }).thenApply(response -> {
+            host.record(response);
+
+            if (response.statusCode() == 304 && cached != null) {
+                if (!CACHE.touch(uri)) {
+                    CACHE.write(uri, cached.text(), cached.validators());
+                }
+                return cached.text();
+            }
+
+            String data = text(response);
+
+            Map<String, String> validators = new LinkedHashMap<>();
+            for (String name : CONDITIONS.keySet()) {
+                response.headers().firstValue(name).ifPresent(value -> validators.put(name, value));
             }
+            CACHE.write(uri, data, validators);
+
+            return data;
+        });
+    }
+
+    /**
+     * レスポンスの本文を文字列として読み出します。
+     *
+     * @param response サーバーからのレスポンス
+     * @return 本文の文字列
+     */
+    private static String text(HttpResponse<byte[]> response) {
+        if (response.statusCode() / 100 != 2) {
+            throw new IllegalStateException("Failed to download " + response.uri() + " (HTTP " + response.statusCode() + ")");
         }
 
-        uri = uri.replace(" ", "%20").replace("(", "%28").replace(")", "%29").replace("'", "%27");
+        byte[] body = response.body();
+        if (response.headers().firstValue("Content-Encoding").orElse("").equalsIgnoreCase("gzip")) {
+            try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+                body = in.readAllBytes();
+            } catch (IOException e) {
+                throw I.quiet(e);
+            }
+        }
+        return new String(body, charset(response.headers().firstValue("Content-Type").orElse("")));
+    }
 
-        System.out.println("Downloading " + uri);
-        String data = I.http(uri, String.class).waitForTerminate().to().exact();
+    /**
+     * Content-Typeで指定された文字コードを返します。指定が無いか不明な場合はUTF-8とみなします。
+     *
+     * @param type Content-Typeヘッダー
+     * @return 文字コード
+     */
+    private static Charset charset(String type) {
+        int index = type.toLowerCase().indexOf("charset=");
+        if (index != -1) {
+            String name = type.substring(index + 8).split(";")[0].trim().replace("\"", "");
+            try {
+                return Charset.forName(name);
+            } catch (IllegalArgumentException e) {
+                // fall back to UTF-8
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
 
-        file.text(data);
-        lastRequestTime = System.currentTimeMillis();
+    /**
+     * URIのホスト部分を取り出します。URIとして厳密には不正な文字を含んでいても構いません。
+     *
+     * @param uri データ取得先のURI
+     * @return ホスト名
+     */
+    static String host(String uri) {
+        int start = uri.indexOf("://");
+        start = start == -1 ? 0 : start + 3;
+        int end = start;
+        while (end < uri.length() && "/?#:".indexOf(uri.charAt(end)) == -1) {
+            end++;
+        }
+        return uri.substring(start, end);
+    }
 
-        return data;
+    /**
+     * URIに含まれるままではリクエストできない文字をエスケープします。
+     *
+     * @param uri データ取得先のURI
+     * @return エスケープしたURI
+     */
+    private static String encode(String uri) {
+        return uri.replace(" ", "%20").replace("(", "%28").replace(")", "%29").replace("'", "%27");
     }
 
     /**
@@ -120,7 +371,7 @@ public class WebPage {
      * @return XMLデータ
      */
     public static XML fetchXML(String uri, long ttl) {
-        return fetchXML(uri, ttl, computeInteval(uri));
+        return fetchXML(uri, ttl, DEFAULT_INTERVAL);
     }
 
     /**
@@ -128,7 +379,7 @@ public class WebPage {
      *
      * @param uri データ取得先のURI
      * @param ttl キャッシュの有効期限（ミリ秒）
-     * @param interval サーバーリクエスト間隔（ミリ秒）
+     * @param interval ホストの制限が未設定の場合に使うサーバーリクエスト間隔（ミリ秒）
      * @return XMLデータ
      */
     public static XML fetchXML(String uri, long ttl, long interval) {
@@ -136,12 +387,47 @@ public class WebPage {
     }
 
     /**
-     * URIに応じてサーバーリクエスト間隔（ミリ秒）を計算します。
+     * 1つのホストへのリクエスト制限と通信量。
+     */
+    private static final class Host {
+
+        /** ホスト名。 */
+        private final String name;
+
+        /** 受信したバイト数（圧縮されたままの大きさ）。 */
+        private final LongAdder bytes = new LongAdder();
+
+        /** 完了したリクエストの数。 */
+        private final LongAdder requests = new LongAdder();
+
+        /** リクエスト間隔を守るトークンバケット。 */
+        private volatile TokenBucket bucket;
+
+        private Host(String name, TokenBucket bucket) {
+            this.name = name;
+            this.bucket = bucket;
+        }
+
+        /**
+         * レスポンスを通信量として記録します。
+         *
+         * @param response サーバーからのレスポンス
+         */
+        private void record(HttpResponse<byte[]> response) {
+            requests.increment();
+            bytes.add(response.body().length);
+        }
+    }
+
+    /**
+     * ホストごとの通信状況。
      *
-     * @param uri データ取得先のURI
-     * @return リクエスト間隔（ミリ秒）
+     * @param host ホスト名
+     * @param requests 完了したリクエストの数
+     * @param bytes 受信したバイト数
+     * @param queued リクエスト間隔を待っているリクエストの数
+     * @param waited リクエスト間隔を待った時間の合計
      */
-    private static long computeInteval(String uri) {
-        return uri.startsWith("https://wikiwiki.jp/aigiszuki/") ? 1000 : 250;
+    public record Traffic(String host, long requests, long bytes, int queued, Duration waited) {
     }
-}
\ No newline at end of file
+}
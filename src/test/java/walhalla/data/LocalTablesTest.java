@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2025 Nameless Production Committee
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://opensource.org/licenses/mit-license.php
+ */
+package walhalla.data;
+
+import static walhalla.loader.Samples.table;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class LocalTablesTest {
+
+    /** The columns of the card table, in the order of the cards document. */
+    private static final String[] CARDS = {"CardID", "Rare", "Kind", "InitClassID", "ClassLV0SkillID", "ClassLV1SkillID", "Ability_Default", "Ability"};
+
+    private final LocalTables tables = new LocalTables( //
+            table("cards", CARDS, //
+                    new Object[] {1, 0, 0, 100, 0, 0, 0, 0}, //
+                    new Object[] {3, 3, 0, 700, 1, 2, 0, 1}, //
+                    new Object[] {2, 4, 0, 301, 2, 0, 1, 0}, //
+                    new Object[] {4, 4, 0, 100, 0, 0, 0, 0}, //
+                    new Object[] {5, 5, 0, 100, 0, 0, 0, 0}, //
+                    new Object[] {6, 0, 1, 100, 0, 0, 0, 0}, //
+                    new Object[] {7, 2, 0, 9900, 0, 0, 0, 0}), //
+            table("ClassData", new String[] {"ClassID", "ApproachFlag", "JobChange"}, //
+                    new Object[] {100, 1, 101}, //
+                    new Object[] {101, 1, 0}, //
+                    new Object[] {301, 1, 0}, //
+                    new Object[] {700, 0, 0}), //
+            table("ClassBattleStyleConfig", new String[] {"Data_ID", "Type_BattleStyle", "_Range_01"}, //
+                    new Object[] {100, 0, 0}, //
+                    new Object[] {300, 1, 150}), //
+            table("TokenUnitConfig", new String[] {"Param_SummonUnit"}, //
+                    new Object[] {6}), //
+            table("NameText", new String[] {"Message"}, //
+                    new Object[] {"王子"}, //
+                    new Object[] {"アンナ"}, //
+                    new Object[] {"ソーマ"}, //
+                    new Object[] {"英傑"}, //
+                    new Object[] {"英傑"}, //
+                    new Object[] {"盾"}, //
+                    new Object[] {"謎"}), //
+            table("SkillList", new String[] {"SkillName", "ID_Text"}, //
+                    new Object[] {"なし", 0}, //
+                    new Object[] {"鼓舞", 1}, //
+                    new Object[] {"天よりの雷", 0}), //
+            table("SkillText", new String[] {"Data_Text"}, //
+                    new Object[] {"攻撃力が上昇"}, //
+                    new Object[] {"周囲の味方を鼓舞する"}), //
+            table("AbilityList", new String[] {"AbilityName", "AbilityTextID"}, //
+                    new Object[] {"なし", 0}, //
+                    new Object[] {"魔法剣", 0}), //
+            table("AbilityText", new String[] {"AbilityText"}, //
+                    new Object[] {"攻撃が魔法攻撃になる"}));
+
+    @Test
+    void card() {
+        // the n-th name is the card whose id is n + 1
+        assert tables.id(tables.card("王子", Rarity.鉄)) == 1;
+        assert tables.id(tables.card("ソーマ", Rarity.金)) == 3;
+        assert tables.card("ソーマ", Rarity.金) == 1;
+        assert tables.card("ケイティ", Rarity.金) == -1;
+    }
+
+    @Test
+    void heroes() {
+        // the heroes share their name and are told apart by the rarity
+        assert tables.id(tables.card("英傑", Rarity.白)) == 4;
+        assert tables.id(tables.card("英傑", Rarity.黒)) == 5;
+        assert tables.card("英傑", Rarity.金) == -1;
+    }
+
+    @Test
+    void rarity() {
+        assert tables.rarity(tables.card("王子", Rarity.鉄)) == Rarity.鉄;
+        assert tables.rarity(tables.card("アンナ", Rarity.白)) == Rarity.白;
+    }
+
+    @Test
+    void place() {
+        assert tables.place(tables.card("王子", Rarity.鉄)) == PlaceType.近接;
+        assert tables.place(tables.card("ソーマ", Rarity.金)) == PlaceType.遠距離;
+
+        // the battle style of the class family 300 has a range
+        assert tables.place(tables.card("アンナ", Rarity.白)) == PlaceType.遠近両用;
+
+        // summoned by some unit
+        assert tables.place(tables.card("盾", Rarity.鉄)) == PlaceType.トークン;
+
+        // the class is unknown
+        assert tables.place(tables.card("謎", Rarity.銀)) == PlaceType.未定;
+    }
+
+    @Test
+    void missingColumn() {
+        LocalTables old = new LocalTables( //
+                table("cards", new String[] {"CardID"}, new Object[] {1}), //
+                table("ClassData", new String[] {"ClassID", "ApproachFlag"}, new Object[] {100, 1}), //
+                table("ClassBattleStyleConfig", new String[] {"Data_ID", "_Range_01"}, new Object[] {100, 0}), //
+                table("TokenUnitConfig", new String[] {"Param_SummonUnit"}, new Object[] {0}), //
+                table("NameText", new String[] {"Message"}, new Object[] {"王子"}), //
+                table("SkillList", new String[] {"SkillName", "ID_Text"}, new Object[] {"なし", 0}), //
+                table("SkillText", new String[] {"Data_Text"}, new Object[] {"なし"}), //
+                table("AbilityList", new String[] {"AbilityName", "AbilityTextID"}, new Object[] {"なし", 0}), //
+                table("AbilityText", new String[] {"AbilityText"}, new Object[] {"なし"}));
+
+        int card = old.card("王子", Rarity.鉄);
+        assert old.id(card) == 1;
+        try {
+            old.place(card);
+            assert false;
+        } catch (IllegalStateException e) {
+            assert e.getMessage().contains("InitClassID");
+        }
+    }
+
+    @Test
+    void skill() {
+        int card = tables.card("ソーマ", Rarity.金);
+        assert tables.skill(card, false).equals(List.of("鼓舞", "周囲の味方を鼓舞する"));
+        assert tables.skill(card, true).equals(List.of("天よりの雷", "攻撃力が上昇"));
+        assert tables.skill(tables.card("王子", Rarity.鉄), false).isEmpty();
+        assert tables.skill(tables.card("アンナ", Rarity.白), true).isEmpty();
+    }
+
+    @Test
+    void ability() {
+        assert tables.ability(tables.card("アンナ", Rarity.白), false).equals(List.of("魔法剣", "攻撃が魔法攻撃になる"));
+        assert tables.ability(tables.card("アンナ", Rarity.白), true).isEmpty();
+        assert tables.ability(tables.card("ソーマ", Rarity.金), true).equals(List.of("魔法剣", "攻撃が魔法攻撃になる"));
+    }
+
+    @Test
+    void available() {
+        assert !LocalTables.available(Path.of("not-exist"));
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright (C) 2025 Nameless Production Committee
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://opensource.org/licenses/mit-license.php
+ */
+package walhalla.loader;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+public class FileListSyncTest {
+
+    @TempDir
+    Path dir;
+
+    /** The served files by path. */
+    private final Map<String, byte[]> files = new ConcurrentHashMap<>();
+
+    /** The received requests as "path range". */
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+
+    /** true to answer a range request with the whole file as if it were the requested part. */
+    private volatile boolean misaligned;
+
+    private HttpServer server;
+
+    private URI base;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::serve);
+        server.start();
+        base = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+    }
+
+    @AfterEach
+    void stop() {
+        server.stop(0);
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        requests.add(path + " " + range);
+
+        byte[] body = files.get(path);
+        if (body == null) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+
+        int status = 200;
+        if (range != null) {
+            int from = misaligned ? 0 : Integer.parseInt(range.substring(6, range.length() - 1));
+            exchange.getResponseHeaders().add("Content-Range", "bytes " + from + "-" + (body.length - 1) + "/" + body.length);
+            body = Arrays.copyOfRange(body, from, body.length);
+            status = 206;
+        }
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private FileListSync.Entry serve(String hash, String name, String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        files.put("/dir/" + hash, bytes);
+        return new FileListSync.Entry("dir", hash, "5", bytes.length, name);
+    }
+
+    private String read(String name) throws IOException {
+        return Files.readString(dir.resolve(name), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void parse() {
+        List<FileListSync.Entry> entries = FileListSync.parse("aa,bb,5,000000000012,A.atb\ncc,dd,5,000000000034,B.aar\n");
+        assert entries.size() == 2;
+        assert entries.get(0).directory.equals("aa");
+        assert entries.get(0).hash.equals("bb");
+        assert entries.get(0).size == 12;
+        assert entries.get(1).name.equals("B.aar");
+        assert entries.get(1).toString().equals("cc,dd,5,000000000034,B.aar");
+    }
+
+    @Test
+    void downloadOnlyChanged() throws IOException {
+        FileListSync sync = new FileListSync(base, dir, 2);
+        FileListSync.Entry a = serve("a1", "A.atb", "first");
+        FileListSync.Entry b = serve("b1", "B.atb", "second");
+
+        FileListSync.Report report = sync.sync(List.of(a, b));
+        assert report.results.size() == 2;
+        assert report.failures() == 0;
+        assert read("A.atb").equals("first");
+        assert read("B.atb").equals("second");
+
+        // nothing changed
+        requests.clear();
+        report = sync.sync(List.of(a, b));
+        assert report.results.isEmpty();
+        assert report.skipped.size() == 2;
+        assert requests.isEmpty();
+
+        // only B was patched
+        FileListSync.Entry b2 = serve("b2", "B.atb", "patched");
+        report = new FileListSync(base, dir, 2).sync(List.of(a, b2));
+        assert report.results.size() == 1;
+        assert report.skipped.size() == 1;
+        assert requests.equals(List.of("/dir/b2 null"));
+        assert read("B.atb").equals("patched");
+    }
+
+    @Test
+    void failureIsRetried() throws IOException {
+        FileListSync.Entry a = new FileListSync.Entry("dir", "missing", "5", 3, "A.atb");
+
+        FileListSync.Report report = new FileListSync(base, dir, 1).sync(List.of(a));
+        assert report.failures() == 1;
+        assert Files.notExists(dir.resolve("A.atb"));
+
+        serve("missing", "A.atb", "now");
+        report = new FileListSync(base, dir, 1).sync(List.of(a));
+        assert report.failures() == 0;
+        assert read("A.atb").equals("now");
+    }
+
+    @Test
+    void resume() throws IOException {
+        FileListSync.Entry a = serve("a1", "A.atb", "0123456789");
+        Files.writeString(dir.resolve("A.atb.a1.part"), "0123");
+
+        FileListSync.Report report = new FileListSync(base, dir, 1).sync(List.of(a));
+        assert report.failures() == 0;
+        assert requests.equals(List.of("/dir/a1 bytes=4-"));
+        assert read("A.atb").equals("0123456789");
+        assert Files.notExists(dir.resolve("A.atb.a1.part"));
+    }
+
+    @Test
+    void missingFileIsRestored() throws IOException {
+        FileListSync.Entry a = serve("a1", "A.atb", "content");
+        new FileListSync(base, dir, 1).sync(List.of(a));
+        Files.delete(dir.resolve("A.atb"));
+
+        FileListSync.Report report = new FileListSync(base, dir, 1).sync(List.of(a));
+        assert report.results.size() == 1;
+        assert read("A.atb").equals("content");
+    }
+
+    @Test
+    void shortBodyIsNotPublished() throws IOException {
+        serve("a1", "A.atb", "short");
+        FileListSync.Entry a = new FileListSync.Entry("dir", "a1", "5", 10, "A.atb");
+
+        FileListSync.Report report = new FileListSync(base, dir, 1).sync(List.of(a));
+        assert report.failures() == 1;
+        assert Files.notExists(dir.resolve("A.atb"));
+
+        // the entry is not recorded, so the next sync tries again from the received part
+        requests.clear();
+        serve("a1", "A.atb", "short body");
+        report = new FileListSync(base, dir, 1).sync(List.of(a));
+        assert report.failures() == 0;
+        assert requests.equals(List.of("/dir/a1 bytes=5-"));
+        assert read("A.atb").equals("short body");
+    }
+
+    @Test
+    void longBodyIsDiscarded() throws IOException {
+        serve("a1", "A.atb", "longer than listed");
+        FileListSync.Entry a = new FileListSync.Entry("dir", "a1", "5", 4, "A.atb");
+
+        FileListSync.Report report = new FileListSync(base, dir, 1).sync(List.of(a));
+        assert report.failures() == 1;
+        assert Files.notExists(dir.resolve("A.atb"));
+        assert Files.notExists(dir.resolve("A.atb.a1.part"));
+    }
+
+    @Test
+    void misalignedRangeIsRejected() throws IOException {
+        FileListSync.Entry a = serve("a1", "A.atb", "0123456789");
+        Files.writeString(dir.resolve("A.atb.a1.part"), "0123");
+        misaligned = true;
+
+        FileListSync.Report report = new FileListSync(base, dir, 1).sync(List.of(a));
+        assert report.failures() == 1;
+        assert Files.notExists(dir.resolve("A.atb"));
+        assert Files.readString(dir.resolve("A.atb.a1.part")).equals("0123");
+    }
+}
@@ -0,0 +1,315 @@
+/*
+ * Copyright (C) 2025 Nameless Production Committee
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://opensource.org/licenses/mit-license.php
+ */
+package walhalla.loader;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Mutation fuzzer for the AL readers.
+ * <p>
+ * Inputs are derived from the seed files by bit flips, interesting values, chunk copies, inserts
+ * and truncations. Without bytecode instrumentation the feedback is the outcome of each run: the
+ * exception type and the loader frame which threw it, or the success. An input which produces an
+ * outcome never seen before joins the corpus, so the mutations keep digging into every branch the
+ * readers have already reported. The run is fully determined by the random seed, and every
+ * failure reports the seed and the hex dump of the input to replay it.
+ * </p>
+ * <p>
+ * A reader may reject malformed input only with one of the {@link #expected} exceptions; any other
+ * throwable, or a run exceeding the {@link #timeout}, is a failure.
+ * </p>
+ */
+public class Fuzzer {
+
+    /** The values which are likely to hit boundaries of sizes, counts and offsets. */
+    private static final int[] INTERESTING = {0, 1, -1, 0x7F, 0x80, 0xFF, 0x100, 0x7FFF, 0x8000, 0xFFFF, 0x10000, Integer.MAX_VALUE,
+            Integer.MIN_VALUE};
+
+    /** The maximum size of a mutated input. */
+    private static final int MAX_SIZE = 1 << 20;
+
+    private final long seed;
+
+    private final Random random;
+
+    private final List<byte[]> corpus = new ArrayList<>();
+
+    /** The number of inputs which reached each outcome. */
+    private final Map<String, Integer> outcomes = new LinkedHashMap<>();
+
+    /** The failures with the hex dump of their first input. */
+    private final Map<String, String> failures = new LinkedHashMap<>();
+
+    private final List<Class<? extends RuntimeException>> expected = new ArrayList<>();
+
+    /** The exception types which are expected only as themselves, not as their subclasses. */
+    private final List<Class<? extends RuntimeException>> exact = new ArrayList<>();
+
+    private long timeout = 2000;
+
+    private int executions;
+
+    /**
+     * @param seed The random seed which determines the whole run.
+     */
+    public Fuzzer(long seed) {
+        this.seed = seed;
+        this.random = new Random(seed);
+        this.expected.addAll(List.of(IndexOutOfBoundsException.class, IllegalArgumentException.class, IllegalStateException.class,
+                UnsupportedOperationException.class));
+    }
+
+    /**
+     * Add the seed inputs.
+     *
+     * @param inputs The well-formed files to start from.
+     * @return Chainable API.
+     */
+    public Fuzzer seed(byte[]... inputs) {
+        corpus.addAll(Arrays.asList(inputs));
+        return this;
+    }
+
+    /**
+     * Accept the additional exception type as a rejection of malformed input.
+     *
+     * @param type The exception type.
+     * @return Chainable API.
+     */
+    public Fuzzer expect(Class<? extends RuntimeException> type) {
+        expected.add(type);
+        return this;
+    }
+
+    /**
+     * Accept the exception of exactly the type, but none of its subclasses, as a rejection of
+     * malformed input. Readers which reject by a plain {@link RuntimeException} still fail on a
+     * {@link NullPointerException} or a {@link ClassCastException}.
+     *
+     * @param type The exception type.
+     * @return Chainable API.
+     */
+    public Fuzzer expectExactly(Class<? extends RuntimeException> type) {
+        exact.add(type);
+        return this;
+    }
+
+    /**
+     * Configure the time limit of a single run.
+     *
+     * @param millis The time limit in milliseconds.
+     * @return Chainable API.
+     */
+    public Fuzzer timeout(long millis) {
+        this.timeout = millis;
+        return this;
+    }
+
+    /**
+     * Run the target over the seeds and the given number of mutated inputs.
+     *
+     * @param iterations The number of mutated inputs.
+     * @param target The reader under test.
+     * @return Chainable API.
+     */
+    public Fuzzer run(int iterations, Consumer<byte[]> target) {
+        ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "fuzzer");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            for (byte[] input : new ArrayList<>(corpus)) {
+                execute(worker, target, input);
+            }
+            for (int i = 0; i < iterations && failures.isEmpty(); i++) {
+                byte[] parent = corpus.get(random.nextInt(corpus.size()));
+                byte[] input = mutate(parent);
+                if (execute(worker, target, input)) {
+                    corpus.add(input);
+                }
+            }
+        } finally {
+            worker.shutdownNow();
+        }
+        return this;
+    }
+
+    /**
+     * Run the input and record its outcome.
+     *
+     * @return true when the outcome is new.
+     */
+    private boolean execute(ExecutorService worker, Consumer<byte[]> target, byte[] input) {
+        executions++;
+        Future<?> future = worker.submit(() -> target.accept(input.clone()));
+
+        String outcome;
+        try {
+            future.get(timeout, TimeUnit.MILLISECONDS);
+            outcome = "ok";
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            outcome = "timeout";
+            failures.putIfAbsent(outcome, dump(input));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (Exception e) {
+            Throwable cause = e.getCause();
+            outcome = cause.getClass().getSimpleName() + " at " + origin(cause);
+            if (!isExpected(cause)) {
+                failures.putIfAbsent(outcome, dump(input));
+            }
+        }
+        return outcomes.merge(outcome, 1, Integer::sum) == 1;
+    }
+
+    private boolean isExpected(Throwable e) {
+        for (Class<? extends RuntimeException> type : expected) {
+            if (type.isInstance(e)) {
+                return true;
+            }
+        }
+        return exact.contains(e.getClass());
+    }
+
+    /**
+     * Find the loader frame which threw, so the same exception from different sites counts as
+     * different outcomes.
+     */
+    private static String origin(Throwable e) {
+        for (StackTraceElement frame : e.getStackTrace()) {
+            if (frame.getClassName().startsWith("walhalla.")) {
+                return frame.getClassName().substring(frame.getClassName().lastIndexOf('.') + 1) + ":" + frame.getLineNumber();
+            }
+        }
+        return "?";
+    }
+
+    /**
+     * Derive the new input from the parent by one to four mutations.
+     */
+    private byte[] mutate(byte[] parent) {
+        byte[] data = parent.clone();
+        for (int round = 1 + random.nextInt(4); 0 < round; round--) {
+            data = mutateOnce(data);
+        }
+        return data;
+    }
+
+    private byte[] mutateOnce(byte[] data) {
+        if (data.length == 0) {
+            return new byte[] {(byte) random.nextInt()};
+        }
+
+        int at = random.nextInt(data.length);
+        switch (random.nextInt(7)) {
+        case 0: // flip a bit
+            data[at] ^= 1 << random.nextInt(8);
+            return data;
+
+        case 1: // random byte
+            data[at] = (byte) random.nextInt();
+            return data;
+
+        case 2: // interesting little-endian value of 1, 2 or 4 bytes
+            int value = INTERESTING[random.nextInt(INTERESTING.length)];
+            int width = 1 << random.nextInt(3);
+            for (int i = 0; i < width && at + i < data.length; i++) {
+                data[at + i] = (byte) (value >>> (i * 8));
+            }
+            return data;
+
+        case 3: // add a small delta to a 16-bit word
+            if (at + 1 < data.length) {
+                int word = (data[at] & 0xFF | (data[at + 1] & 0xFF) << 8) + random.nextInt(33) - 16;
+                data[at] = (byte) word;
+                data[at + 1] = (byte) (word >>> 8);
+            }
+            return data;
+
+        case 4: // copy a chunk over another place
+            int length = 1 + random.nextInt(Math.min(32, data.length));
+            int from = random.nextInt(data.length - length + 1);
+            int to = random.nextInt(data.length - length + 1);
+            System.arraycopy(data, from, data, to, length);
+            return data;
+
+        case 5: // insert a chunk
+            if (MAX_SIZE <= data.length) {
+                return data;
+            }
+            int size = 1 + random.nextInt(Math.min(64, data.length));
+            byte[] inserted = new byte[data.length + size];
+            System.arraycopy(data, 0, inserted, 0, at);
+            System.arraycopy(data, random.nextInt(data.length - size + 1), inserted, at, size);
+            System.arraycopy(data, at, inserted, at + size, data.length - at);
+            return inserted;
+
+        default: // truncate
+            return Arrays.copyOf(data, at);
+        }
+    }
+
+    private static String dump(byte[] input) {
+        String hex = HexFormat.of().formatHex(input, 0, Math.min(input.length, 256));
+        return input.length + " bytes [" + new String(input, 0, Math.min(4, input.length), StandardCharsets.ISO_8859_1) + "] " + hex;
+    }
+
+    /**
+     * Get the number of executed inputs.
+     *
+     * @return The number of executions.
+     */
+    public int executions() {
+        return executions;
+    }
+
+    /**
+     * Get the distinct outcomes with the number of inputs which reached each.
+     *
+     * @return The outcomes.
+     */
+    public Map<String, Integer> outcomes() {
+        return outcomes;
+    }
+
+    /**
+     * Get the unexpected outcomes with the dump of the input which first reached each.
+     *
+     * @return The failures, empty when every run succeeded or was rejected properly.
+     */
+    public Map<String, String> failures() {
+        return failures;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "Fuzzer [seed=" + seed + ", executions=" + executions + ", corpus=" + corpus.size() + ", outcomes=" + outcomes.size() + ", failures=" + failures + "]";
+    }
+}
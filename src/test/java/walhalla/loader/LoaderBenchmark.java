@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2025 Nameless Production Committee
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://opensource.org/licenses/mit-license.php
+ */
+package walhalla.loader;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import walhalla.loader.codec.AligDecoder;
+import walhalla.loader.codec.All4Decoder;
+import walhalla.loader.codec.AllzDecoder;
+import walhalla.loader.parser.AlParser;
+import walhalla.loader.parser.data.Alar;
+import walhalla.loader.parser.data.Altb;
+import walhalla.loader.parser.data.Altx;
+
+/**
+ * Throughput of parsing and decompressing each object type over the synthetic files and, when
+ * present, the raw assets under {@code .data/raw}.
+ * <p>
+ * Every case is warmed up, then measured in timed rounds; the report shows the median of the
+ * rounds in operations and input megabytes per second, so a performance change to the loader can
+ * be compared run by run. Run {@link #main(String[])} for the figures; the test only checks that
+ * every case works on its input.
+ * </p>
+ */
+public class LoaderBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int rounds = args.length == 0 ? 10 : Integer.parseInt(args[0]);
+        for (Case bench : cases(Path.of(".data/raw"))) {
+            System.out.println(bench.measure(rounds, 200_000_000L));
+        }
+    }
+
+    /**
+     * Build the benchmark cases.
+     *
+     * @param raw The directory of the raw assets, which may not exist.
+     * @return The cases.
+     */
+    static List<Case> cases(Path raw) throws Exception {
+        byte[] table = Samples.altb(2000);
+        byte[] archive = Samples.alar(16, 200);
+        byte[] allz = Samples.allz(1 << 20, 1);
+        byte[] all4 = Samples.all4(Samples.payload(1 << 20, 1));
+        byte[] texture = Samples.altx(512, 512);
+
+        List<Case> cases = new ArrayList<>();
+        cases.add(new Case("ALTB parse", table, data -> new AlParser().parse(data)));
+        cases.add(new Case("ALTB parse rows", table, data -> ((Altb) new AlParser().parse(data)).rows()));
+        cases.add(new Case("ALAR parse", archive, data -> new AlParser().parse(data)));
+        cases.add(new Case("ALAR lazy lookup", archive, data -> ((Alar) new AlParser().lazy(true).parse(data)).find("Table8.atb").get().value()));
+        cases.add(new Case("ALLZ decompress", allz, AllzDecoder::decode));
+        cases.add(new Case("ALL4 decompress", all4, All4Decoder::decode));
+        cases.add(new Case("ALTX parse", texture, data -> new AlParser().parse(data)));
+        cases.add(new Case("ALTX decode image", texture, data -> ((Altx) new AlParser().parse(data)).image()));
+
+        // the largest real file of each kind
+        if (Files.isDirectory(raw)) {
+            for (String extension : List.of("atb", "aar", "atx")) {
+                try (Stream<Path> files = Files.walk(raw)) {
+                    Path largest = files.filter(path -> path.toString().endsWith("." + extension))
+                            .max((a, b) -> Long.compare(a.toFile().length(), b.toFile().length()))
+                            .orElse(null);
+                    if (largest != null) {
+                        byte[] data = Files.readAllBytes(largest);
+                        cases.add(new Case(largest.getFileName() + " decompress", data, bytes -> new AlParser().decompress(bytes)));
+                        cases.add(new Case(largest.getFileName() + " parse", data, bytes -> new AlParser().parse(bytes)));
+                    }
+                }
+            }
+        }
+        return cases;
+    }
+
+    @Test
+    void cases() throws Exception {
+        for (Case bench : cases(Path.of(".data/missing"))) {
+            assert bench.run() != null : bench.name;
+        }
+    }
+
+    @Test
+    void samples() {
+        Altb table = (Altb) new AlParser().parse(Samples.altb(100));
+        assert table.size == 100;
+        assert table.getInt(99, "CardID") == 98999;
+        assert table.getString(65, "Name").equals("王子0");
+
+        Alar archive = (Alar) new AlParser().parse(Samples.alar(3, 10));
+        assert archive.entries.size() == 3;
+        assert ((Altb) archive.entries.get(2).value()).size == 10;
+
+        byte[] payload = Samples.payload(10_000, 7);
+        assert Arrays.equals(AllzDecoder.decode(Samples.allz(10_000, 7)), payload);
+        assert Arrays.equals(All4Decoder.decode(ByteBuffer.wrap(Samples.all4(payload))), payload);
+        assert Samples.allz(10_000, 7).length < payload.length / 2;
+        for (int size = 1; size < 40; size++) {
+            assert Arrays.equals(AllzDecoder.decode(Samples.allz(size, size)), Samples.payload(size, size)) : size;
+        }
+
+        Altx texture = (Altx) new AlParser().parse(Samples.altx(8, 4));
+        assert texture.rawImage.width == 8;
+        assert texture.frames(7).size() == 2;
+        assert texture.image().getRGB(1, 0) == AligDecoder.decode("RGBA", 1, 1, ByteBuffer.wrap(new byte[] {7, 5, 3, 1}))[0];
+    }
+
+    /**
+     * A single benchmark case.
+     */
+    static class Case {
+
+        final String name;
+
+        private final byte[] input;
+
+        private final Function<byte[], Object> operation;
+
+        /** Keeps the results reachable, so the operation can't be optimized away. */
+        private Object sink;
+
+        Case(String name, byte[] input, Function<byte[], Object> operation) {
+            this.name = name;
+            this.input = input;
+            this.operation = operation;
+        }
+
+        Object run() {
+            return sink = operation.apply(input);
+        }
+
+        /**
+         * Warm up for the given time, then run the timed rounds of the same length.
+         *
+         * @param rounds The number of timed rounds.
+         * @param nanos The length of each round.
+         * @return The report line.
+         */
+        String measure(int rounds, long nanos) {
+            round(nanos * 2);
+
+            double[] rates = new double[rounds];
+            for (int i = 0; i < rounds; i++) {
+                rates[i] = round(nanos);
+            }
+            Arrays.sort(rates);
+            double median = rates[rounds / 2];
+            return String.format("%-32s %10.1f ops/s %10.1f MB/s  (%d bytes, min %.1f max %.1f ops/s)", name, median, median * input.length / 1e6, input.length, rates[0], rates[rounds - 1]);
+        }
+
+        /**
+         * Run the operation repeatedly for the time.
+         *
+         * @return The operations per second.
+         */
+        private double round(long nanos) {
+            long start = System.nanoTime();
+            long count = 0;
+            long elapsed;
+            do {
+                run();
+                count++;
+                elapsed = System.nanoTime() - start;
+            } while (elapsed < nanos);
+            return count * 1e9 / elapsed;
+        }
+    }
+}
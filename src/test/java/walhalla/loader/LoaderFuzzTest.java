@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2025 Nameless Production Committee
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://opensource.org/licenses/mit-license.php
+ */
+package walhalla.loader;
+
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+
+import walhalla.loader.codec.All4Decoder;
+import walhalla.loader.codec.AllzDecoder;
+import walhalla.loader.parser.AlParser;
+import walhalla.loader.parser.data.AlObject;
+import walhalla.loader.parser.data.Alar;
+import walhalla.loader.parser.data.Altb;
+import walhalla.loader.parser.data.Altx;
+
+/**
+ * Malformed input must be rejected by the expected exceptions of {@link Fuzzer}, never by an
+ * error, a hang or an unbounded allocation. Run longer campaigns with
+ * {@code -Dwalhalla.fuzz.iterations=1000000} and another {@code -Dwalhalla.fuzz.seed}.
+ */
+public class LoaderFuzzTest {
+
+    /** The number of mutated inputs per target. */
+    static final int ITERATIONS = Integer.getInteger("walhalla.fuzz.iterations", 3000);
+
+    /** The random seed of the campaign. */
+    static final long SEED = Long.getLong("walhalla.fuzz.seed", 20250101);
+
+    /**
+     * The decoders allocate the declared size up front by design, so the inputs declaring more
+     * only measure the heap and are skipped.
+     */
+    private static final int MAX_DECLARED_SIZE = 1 << 24;
+
+    private static void verify(Fuzzer fuzzer) {
+        assert fuzzer.failures().isEmpty() : fuzzer;
+        assert fuzzer.executions() > ITERATIONS / 2 : fuzzer;
+    }
+
+    @Test
+    void table() {
+        verify(new Fuzzer(SEED).seed(Samples.altb(4), Samples.altb(40)).run(ITERATIONS, data -> {
+            Altb table = (Altb) new AlParser().parse(data);
+            table.rows();
+            for (Altb.Column column : table.columns) {
+                for (int i = 0; i < table.size; i++) {
+                    column.get(i);
+                }
+            }
+        }));
+    }
+
+    @Test
+    void archive() {
+        verify(new Fuzzer(SEED).seed(Samples.alar(3, 4)).run(ITERATIONS, data -> new AlParser().parse(data)));
+    }
+
+    @Test
+    void lazyArchive() {
+        verify(new Fuzzer(SEED).seed(Samples.alar(3, 4)).run(ITERATIONS, data -> {
+            AlObject parsed = new AlParser().lazy(true).parse(ByteBuffer.wrap(data));
+            if (parsed instanceof Alar) {
+                for (Alar.AlarEntry entry : ((Alar) parsed).entries) {
+                    entry.value();
+                }
+            }
+        }));
+    }
+
+    @Test
+    void texture() {
+        verify(new Fuzzer(SEED).seed(Samples.altx(8, 4)).run(ITERATIONS, data -> {
+            AlObject parsed = new AlParser().parse(data);
+            if (parsed instanceof Altx) {
+                Altx texture = (Altx) parsed;
+                if (texture.rawImage != null) {
+                    texture.image();
+                    for (int index : texture.sprites.keySet()) {
+                        texture.frames(index);
+                    }
+                }
+            }
+        }));
+    }
+
+    @Test
+    void allz() {
+        verify(new Fuzzer(SEED).seed(Samples.allz(64, 1), Samples.allz(4096, 2)).run(ITERATIONS, data -> {
+            if (AllzDecoder.declaredSize(ByteBuffer.wrap(data)) <= MAX_DECLARED_SIZE) {
+                AllzDecoder.decode(data);
+                new AlParser().decompress(data);
+            }
+        }));
+    }
+
+    @Test
+    void all4() {
+        byte[] linked = Samples.all4(Samples.payload(4096, 4), 4, false, true);
+        verify(new Fuzzer(SEED).seed(Samples.all4(Samples.payload(4096, 3)), linked).run(ITERATIONS, data -> {
+            if (All4Decoder.declaredSize(ByteBuffer.wrap(data)) <= MAX_DECLARED_SIZE) {
+                All4Decoder.decode(data);
+            }
+        }));
+    }
+}
@@ -0,0 +1,519 @@
+/*
+ * Copyright (C) 2025 Nameless Production Committee
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://opensource.org/licenses/mit-license.php
+ */
+package walhalla.loader;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import walhalla.loader.codec.XxHash32;
+import walhalla.loader.io.ByteReader;
+import walhalla.loader.io.StringPool;
+import walhalla.loader.parser.data.Alrd;
+import walhalla.loader.parser.data.Altb;
+
+/**
+ * Synthetic AL files and tables for the benchmark, the fuzzer and the tests. Every builder is
+ * deterministic for the same arguments, so the measured and the mutated inputs never change
+ * between runs.
+ */
+public class Samples {
+
+    private static final String[][] COLUMNS = { {"CardID", "カードID"}, {"Attack", "攻撃力"}, {"Rare", "レア"}, {"Name", "名前"}};
+
+    private static final int[] TYPES = {1, 4, 5, 0x20};
+
+    private Samples() {
+    }
+
+    /**
+     * Build the ALTB table of form 0x1e with int, float, byte and string columns.
+     *
+     * @param rows The number of rows, up to 0xFFFF.
+     * @return The table.
+     */
+    public static byte[] altb(int rows) {
+        Out alrd = new Out();
+        alrd.ascii("ALRD").word(1).word(COLUMNS.length).word(16);
+        for (int i = 0; i < COLUMNS.length; i++) {
+            byte[] en = COLUMNS[i][0].getBytes(StandardCharsets.UTF_8);
+            byte[] jp = COLUMNS[i][1].getBytes(StandardCharsets.UTF_8);
+            alrd.word(i * 4).bytes(TYPES[i], 3, en.length, jp.length).bytes(en).bytes(0).bytes(jp).bytes(0).align(32);
+            alrd.bytes(new byte[3]).align(32);
+        }
+
+        // a few distinct names shared by the rows, as in the real unit tables
+        Out strings = new Out();
+        int[] offsets = new int[Math.min(rows, 64) + 1];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = strings.size();
+            strings.bytes(("王子" + i).getBytes(StandardCharsets.UTF_8)).bytes(0);
+        }
+
+        int entryOffset = 32 + alrd.size();
+        int stringsStart = entryOffset + rows * 16;
+        int namesStart = align(stringsStart + strings.size(), 4);
+
+        Out out = new Out();
+        out.ascii("ALTB").bytes(1, 0x1e).word(rows).word(0x20).word(entryOffset).dword(16);
+        out.dword(strings.size()).dword(stringsStart).dword(namesStart).ascii("UNIT");
+        out.bytes(alrd.toByteArray());
+        for (int i = 0; i < rows; i++) {
+            out.dword(i * 1000 - 1).dword(Float.floatToIntBits(i * 1.5f)).bytes(i & 0xFF, 0, 0, 0).dword(offsets[i % offsets.length]);
+        }
+        out.bytes(strings.toByteArray()).align(0);
+        byte[] name = "PlayerUnitTable".getBytes(StandardCharsets.UTF_8);
+        out.dword(1).bytes(name.length).bytes(name).align(0);
+        return out.toByteArray();
+    }
+
+    /**
+     * Build the table from the column names and the values of each row. Strings go to the string
+     * block and other values are stored as ints.
+     *
+     * @param name The table name.
+     * @param columns The column names.
+     * @param rows The values of each row in the column order.
+     * @return The table.
+     */
+    public static Altb table(String name, String[] columns, Object[]... rows) {
+        ByteArrayOutputStream block = new ByteArrayOutputStream();
+        int[][] offsets = new int[rows.length][columns.length];
+        for (int i = 0; i < rows.length; i++) {
+            for (int j = 0; j < columns.length; j++) {
+                if (rows[i][j] instanceof String) {
+                    offsets[i][j] = block.size();
+                    block.writeBytes(((String) rows[i][j]).getBytes(StandardCharsets.UTF_8));
+                    block.write(0);
+                }
+            }
+        }
+        byte[] bytes = block.toByteArray();
+        StringPool.Block strings = StringPool.SHARED.block(new ByteReader(bytes), 0, bytes.length);
+
+        Altb table = new Altb();
+        table.name = name;
+        table.size = rows.length;
+        for (int j = 0; j < columns.length; j++) {
+            Alrd.AlrdEntry key = new Alrd.AlrdEntry();
+            key.nameEn = columns[j];
+            key.type = rows[0][j] instanceof String ? 0x20 : 1;
+
+            Altb.Column column = new Altb.Column(key, rows.length, strings);
+            for (int i = 0; i < rows.length; i++) {
+                column.setInt(i, rows[i][j] instanceof String ? offsets[i][j] : (Integer) rows[i][j]);
+            }
+            table.columns.add(column);
+        }
+        return table;
+    }
+
+    /**
+     * Build the ALAR archive of version 3 which holds the given files.
+     *
+     * @param names The entry names.
+     * @param contents The entry contents in the same order.
+     * @return The archive.
+     */
+    public static byte[] alar(String[] names, byte[][] contents) {
+        Out toc = new Out();
+        int headerSize = align(18 + names.length * 2, 4);
+        int tocSize = 0;
+        for (String name : names) {
+            tocSize += align(18 + name.length() + 1, 4);
+        }
+
+        int address = headerSize + tocSize;
+        int[] records = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            records[i] = headerSize + toc.size();
+            toc.word(i).word(0).dword(address).dword(contents[i].length).bytes(new byte[6]).ascii(names[i]).bytes(0).align(0);
+            address = align(address + contents[i].length, 4);
+        }
+
+        Out out = new Out();
+        out.ascii("ALAR").bytes(3, 0).word(names.length).word(0).word(0).dword(0).word(headerSize + tocSize);
+        for (int record : records) {
+            out.word(record);
+        }
+        out.align(0).bytes(toc.toByteArray());
+        for (byte[] content : contents) {
+            out.bytes(content).align(0);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Build the ALAR archive of the given number of tables and text files.
+     *
+     * @param entries The number of entries.
+     * @param rows The number of rows of each table.
+     * @return The archive.
+     */
+    public static byte[] alar(int entries, int rows) {
+        String[] names = new String[entries];
+        byte[][] contents = new byte[entries][];
+        for (int i = 0; i < entries; i++) {
+            if (i % 2 == 0) {
+                names[i] = "Table" + i + ".atb";
+                contents[i] = altb(rows);
+            } else {
+                names[i] = "Text" + i + ".txt";
+                contents[i] = ("王子\nhello " + i).getBytes(StandardCharsets.UTF_8);
+            }
+        }
+        return alar(names, contents);
+    }
+
+    /**
+     * Build the ALTX texture of form 0 with one named sprite of two frames over an RGBA image.
+     *
+     * @param width The image width.
+     * @param height The image height.
+     * @return The texture.
+     */
+    public static byte[] altx(int width, int height) {
+        Out out = new Out();
+        out.ascii("ALTX").bytes(1, 0).word(1).dword(80);
+        out.word(48).align(0);
+        out.bytes(new byte[0x20]);
+        System.arraycopy("Sprite".getBytes(StandardCharsets.US_ASCII), 0, out.buffer(), 16, 6);
+        out.word(7).word(0).word(2).word(0);
+        out.word(0).word(0).word(width / 2).word(height).word(width / 2).word(0).word(width / 2).word(height);
+        out.word(1).word(2).word(3).word(4);
+        out.bytes(alig(width, height));
+        return out.toByteArray();
+    }
+
+    /**
+     * Build the ALIG image in RGBA of the given size.
+     *
+     * @param width The image width.
+     * @param height The image height.
+     * @return The image.
+     */
+    public static byte[] alig(int width, int height) {
+        Out out = new Out();
+        out.ascii("ALIG").bytes(1, 0, 0, 0).ascii("RGBA").dword(0).dword(width).dword(height).word(1).word(0x20).dword(0x20);
+        for (int i = 0; i < width * height; i++) {
+            out.dword(i * 0x01030507);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Build a payload of literals and back references, compressible the way game data is.
+     *
+     * @param size The payload size.
+     * @param seed The random seed.
+     * @return The payload.
+     */
+    public static byte[] payload(int size, long seed) {
+        return new AllzEncoder(size, seed).payload;
+    }
+
+    /**
+     * Build the ALLZ file of {@link #payload(int, long)}.
+     *
+     * @param size The payload size.
+     * @param seed The random seed.
+     * @return The compressed file.
+     */
+    public static byte[] allz(int size, long seed) {
+        return new AllzEncoder(size, seed).out.toByteArray();
+    }
+
+    /**
+     * Build the ALLZ file which stores the given content as literals only. The stream differs from
+     * the output of any matching compressor, so it shows whether the compressed bytes are kept.
+     *
+     * @param content The content to store.
+     * @return The compressed file.
+     */
+    public static byte[] allzLiteral(byte[] content) {
+        return new AllzEncoder(content).out.toByteArray();
+    }
+
+    /**
+     * Build the ALL4 file of the given content in a frame of independent 64KB blocks.
+     *
+     * @param content The content to compress.
+     * @return The compressed file.
+     */
+    public static byte[] all4(byte[] content) {
+        return all4(content, 4, true, false);
+    }
+
+    /**
+     * Build the ALL4 file of the given content.
+     *
+     * @param content The content to compress.
+     * @param blockSize The block size id of the frame, 4 to 7 for 64KB to 4MB.
+     * @param independent true for independent blocks, false for linked ones.
+     * @param checksums true to add the block and content checksums.
+     * @return The compressed file.
+     */
+    public static byte[] all4(byte[] content, int blockSize, boolean independent, boolean checksums) {
+        Out out = new Out();
+        out.ascii("ALL4").bytes(1, 0, 0, 0).dword(content.length);
+        return out.bytes(lz4(content, blockSize, independent, checksums)).toByteArray();
+    }
+
+    /**
+     * Compress the content into a LZ4 frame with the declared content size. Matches are found
+     * greedily through a hash of 4 bytes, which is enough to exercise every part of the format.
+     *
+     * @param content The content to compress.
+     * @param blockSize The block size id of the frame, 4 to 7 for 64KB to 4MB.
+     * @param independent true for independent blocks, false for linked ones.
+     * @param checksums true to add the block and content checksums.
+     * @return The frame.
+     */
+    public static byte[] lz4(byte[] content, int blockSize, boolean independent, boolean checksums) {
+        Out out = new Out();
+        out.dword(0x184D2204);
+        int descriptor = out.size();
+        out.bytes(0x48 | (independent ? 0x20 : 0) | (checksums ? 0x14 : 0), blockSize << 4).dword(content.length).dword(0);
+        out.bytes(XxHash32.hash(out.buffer(), descriptor, out.size() - descriptor, 0) >>> 8 & 0xFF);
+
+        int max = 1 << (8 + 2 * blockSize);
+        int[] table = new int[1 << 12];
+        for (int start = 0; start < content.length; start += max) {
+            int end = Math.min(content.length, start + max);
+            if (independent || start == 0) {
+                Arrays.fill(table, -1);
+            }
+
+            byte[] block = compress(content, table, independent ? start : 0, start, end);
+            boolean compressed = block.length < end - start;
+            if (!compressed) {
+                block = Arrays.copyOfRange(content, start, end);
+            }
+            out.dword(compressed ? block.length : block.length | 0x80000000).bytes(block);
+            if (checksums) {
+                out.dword(XxHash32.hash(block, 0, block.length, 0));
+            }
+        }
+        out.dword(0);
+        if (checksums) {
+            out.dword(XxHash32.hash(content, 0, content.length, 0));
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Compress the range into a single LZ4 block.
+     */
+    private static byte[] compress(byte[] src, int[] table, int window, int start, int end) {
+        Out out = new Out();
+        int anchor = start;
+        int i = start;
+
+        // the last match must start 12 bytes and end 5 bytes before the end of the block
+        while (i < end - 12) {
+            int sequence = int32(src, i);
+            int hash = (sequence * 0x9E3779B1) >>> 20;
+            int candidate = table[hash];
+            table[hash] = i;
+
+            if (window <= candidate && i - candidate <= 0xFFFF && int32(src, candidate) == sequence) {
+                int length = 4;
+                while (i + length < end - 5 && src[candidate + length] == src[i + length]) {
+                    length++;
+                }
+
+                int literal = i - anchor;
+                out.bytes(Math.min(literal, 15) << 4 | Math.min(length - 4, 15));
+                if (15 <= literal) lz4Length(out, literal - 15);
+                out.write(src, anchor, literal);
+                out.word(i - candidate);
+                if (19 <= length) lz4Length(out, length - 19);
+
+                i += length;
+                anchor = i;
+            } else {
+                i++;
+            }
+        }
+
+        int literal = end - anchor;
+        out.bytes(Math.min(literal, 15) << 4);
+        if (15 <= literal) lz4Length(out, literal - 15);
+        out.write(src, anchor, literal);
+        return out.toByteArray();
+    }
+
+    private static void lz4Length(Out out, int length) {
+        for (; 255 <= length; length -= 255) {
+            out.write(255);
+        }
+        out.write(length);
+    }
+
+    private static int int32(byte[] data, int index) {
+        return (data[index] & 0xFF) | (data[index + 1] & 0xFF) << 8 | (data[index + 2] & 0xFF) << 16 | (data[index + 3] & 0xFF) << 24;
+    }
+
+    private static int align(int value, int alignment) {
+        return (value + alignment - 1) / alignment * alignment;
+    }
+
+    /**
+     * Generate the payload as a sequence of literals and matches, and encode the very same
+     * sequence into the ALLZ stream, so no match finder is needed.
+     */
+    private static class AllzEncoder {
+
+        private static final int LENGTH_BITS = 2;
+
+        private static final int OFFSET_BITS = 8;
+
+        private static final int LITERAL_BITS = 2;
+
+        private final Out out = new Out();
+
+        private final byte[] payload;
+
+        /** The position of the control byte being filled. */
+        private int control;
+
+        /** The number of bits used in the control byte, 8 when a new one is needed. */
+        private int used = 8;
+
+        private AllzEncoder(int size, long seed) {
+            Random random = new Random(seed);
+            payload = new byte[size];
+            out.ascii("ALLZ").bytes(1, LENGTH_BITS, OFFSET_BITS, LITERAL_BITS).dword(size);
+
+            int dp = literal(random, 0, Math.min(size, 1 + random.nextInt(16)));
+            if (dp == size) {
+                // the decoder always reads the first offset and length
+                control(0, OFFSET_BITS);
+                control(0, LENGTH_BITS);
+            }
+            while (dp < size) {
+                int offset = 1 + random.nextInt(Math.min(dp, 4096));
+                int length = Math.min(size - dp, 3 + random.nextInt(64));
+                control(offset - 1, OFFSET_BITS);
+                control(length - 3, LENGTH_BITS);
+                for (int i = 0; i < length; i++) {
+                    payload[dp + i] = payload[dp + i - offset];
+                }
+                dp += length;
+                if (size <= dp) {
+                    break;
+                }
+
+                if (random.nextBoolean()) {
+                    bit(1);
+                } else {
+                    bit(0);
+                    dp = literal(random, dp, Math.min(size - dp, 1 + random.nextInt(16)));
+                }
+            }
+        }
+
+        /**
+         * Store the content as a single literal run, the way no real compressor would.
+         */
+        private AllzEncoder(byte[] content) {
+            payload = content;
+            out.ascii("ALLZ").bytes(1, LENGTH_BITS, OFFSET_BITS, LITERAL_BITS).dword(content.length);
+            if (content.length != 0) {
+                control(content.length - 1, LITERAL_BITS);
+                out.write(content, 0, content.length);
+                control(0, OFFSET_BITS);
+                control(0, LENGTH_BITS);
+            }
+        }
+
+        private int literal(Random random, int dp, int length) {
+            control(length - 1, LITERAL_BITS);
+            for (int i = 0; i < length; i++) {
+                payload[dp + i] = (byte) ('A' + random.nextInt(8));
+            }
+            out.write(payload, dp, length);
+            return dp + length;
+        }
+
+        /**
+         * Write the value as the unary prefix u and the u + minBits bits which follow it.
+         */
+        private void control(int value, int minBits) {
+            int u = 0;
+            while (((1 << (u + 1)) - 1) << minBits <= value) {
+                u++;
+            }
+            for (int i = 0; i < u; i++) {
+                bit(1);
+            }
+            bit(0);
+
+            int n = value - (((1 << u) - 1) << minBits);
+            for (int i = 0; i < u + minBits; i++) {
+                bit((n >>> i) & 1);
+            }
+        }
+
+        private void bit(int bit) {
+            if (used == 8) {
+                control = out.size();
+                out.write(0);
+                used = 0;
+            }
+            out.buffer()[control] |= bit << used++;
+        }
+    }
+
+    /**
+     * Little-endian byte sink for building the fixtures.
+     */
+    private static class Out extends ByteArrayOutputStream {
+
+        Out bytes(int... values) {
+            for (int value : values) {
+                write(value);
+            }
+            return this;
+        }
+
+        Out bytes(byte[] values) {
+            writeBytes(values);
+            return this;
+        }
+
+        Out ascii(String value) {
+            return bytes(value.getBytes(StandardCharsets.US_ASCII));
+        }
+
+        Out word(int value) {
+            return bytes(value & 0xFF, (value >>> 8) & 0xFF);
+        }
+
+        Out dword(int value) {
+            return word(value).word(value >>> 16);
+        }
+
+        /**
+         * Pad to the multiple of 4 counted from the given base.
+         */
+        Out align(int base) {
+            while ((base + size()) % 4 != 0) {
+                write(0);
+            }
+            return this;
+        }
+
+        byte[] buffer() {
+            return buf;
+        }
+    }
+}
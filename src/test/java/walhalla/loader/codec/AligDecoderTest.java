@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2025 Nameless Production Committee
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://opensource.org/licenses/mit-license.php
+ */
+package walhalla.loader.codec;
+
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import walhalla.loader.parser.AlParser;
+import walhalla.loader.parser.data.Alig;
+import walhalla.loader.parser.data.Altx;
+
+public class AligDecoderTest {
+
+    /**
+     * Build the ALIG image with the given 16-bit pixels.
+     */
+    private static byte[] alig(String format, int width, int height, int bytesPerPixel, int... pixels) {
+        ByteBuffer buffer = ByteBuffer.allocate(AligDecoder.HEADER_SIZE + width * height * bytesPerPixel).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put("ALIG".getBytes(StandardCharsets.US_ASCII)).put((byte) 1).put(new byte[3]);
+        buffer.put(format.getBytes(StandardCharsets.US_ASCII)).putInt(0).putInt(width).putInt(height);
+        buffer.putShort((short) 1).putShort((short) 0x20).putInt(0x20);
+        for (int pixel : pixels) {
+            if (bytesPerPixel == 2) {
+                buffer.putShort((short) pixel);
+            } else {
+                buffer.putInt(pixel);
+            }
+        }
+        return buffer.array();
+    }
+
+    @Test
+    void abg5() {
+        // red opaque, green transparent, blue opaque, white
+        Alig alig = (Alig) new AlParser().parse(alig("ABG5", 2, 2, 2, 0b11111_00000_00000_1, 0b00000_11111_00000_0, 0b00000_00000_11111_1, 0xFFFF));
+        assert alig.width == 2 && alig.height == 2;
+        assert alig.format.equals("ABG5");
+
+        int[] argb = alig.argb();
+        assert argb[0] == 0xFFFF0000;
+        assert argb[1] == 0x0000FF00;
+        assert argb[2] == 0xFF0000FF;
+        assert argb[3] == 0xFFFFFFFF;
+
+        // the game expands 5 bits as (x / 8) * 64 + (x % 8) * 9
+        argb = AligDecoder.decode("ABG5", 1, 1, ByteBuffer.wrap(new byte[] {0x00, (byte) 0x80}));
+        assert argb[0] == 0x00800000;
+    }
+
+    @Test
+    void abg4() {
+        int[] argb = ((Alig) new AlParser().parse(alig("ABG4", 2, 1, 2, 0xF00F, 0x1238))).argb();
+        assert argb[0] == 0xFFFF0000;
+        assert argb[1] == 0x88112233;
+    }
+
+    @Test
+    void bgr4() {
+        int[] argb = ((Alig) new AlParser().parse(alig("BGR4", 2, 1, 2, 0xF00F, 0x8123))).argb();
+        assert argb[0] == 0xFF0000FF;
+        assert argb[1] == 0x88112233;
+    }
+
+    @Test
+    void rgba() {
+        // bytes R, G, B, A
+        int[] argb = ((Alig) new AlParser().parse(alig("RGBA", 1, 1, 4, 0x80332211))).argb();
+        assert argb[0] == 0x80112233;
+    }
+
+    @Test
+    void parallelBands() {
+        int width = 300;
+        int height = 301;
+        int[] pixels = new int[width * height];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = i * 31 & 0xFFFF;
+        }
+        assert AligDecoder.PARALLEL_THRESHOLD <= pixels.length;
+
+        Alig alig = (Alig) new AlParser().parse(alig("ABG4", width, height, 2, pixels));
+        BufferedImage image = alig.image();
+        int[] argb = alig.argb();
+        for (int i = 0; i < pixels.length; i++) {
+            int[] single = AligDecoder.decode("ABG4", 1, 1, ByteBuffer.wrap(new byte[] {(byte) pixels[i], (byte) (pixels[i] >>> 8)}));
+            assert argb[i] == single[0];
+            assert image.getRGB(i % width, i / width) == single[0];
+        }
+    }
+
+    @Test
+    void frames() {
+        Altx altx = new Altx();
+        altx.rawImage = (Alig) new AlParser().parse(alig("RGBA", 4, 2, 4, 0, 0, 0, 0xFF0000FF, 0, 0, 0, 0xFF00FF00));
+        Altx.Frame frame = new Altx.Frame();
+        frame.x = 3;
+        frame.y = 0;
+        frame.width = 1;
+        frame.height = 2;
+        Altx.Sprite sprite = new Altx.Sprite();
+        sprite.frames.put(0, frame);
+        altx.sprites.put(7, sprite);
+
+        List<BufferedImage> frames = altx.frames(7);
+        assert frames.size() == 1;
+        assert frames.get(0).getWidth() == 1 && frames.get(0).getHeight() == 2;
+        assert frames.get(0).getRGB(0, 0) == 0xFFFF0000;
+        assert frames.get(0).getRGB(0, 1) == 0xFF00FF00;
+
+        // the frame is a view of the atlas
+        assert frames.get(0).getRaster().getDataBuffer() == altx.image().getRaster().getDataBuffer();
+        assert altx.frames(8).isEmpty();
+    }
+
+    @Test
+    void unknownFormat() {
+        Alig alig = (Alig) new AlParser().parse(alig("PAL8", 1, 1, 4, 0));
+        try {
+            alig.argb();
+            assert false;
+        } catch (IllegalArgumentException e) {
+            assert e.getMessage().contains("PAL8");
+        }
+    }
+}
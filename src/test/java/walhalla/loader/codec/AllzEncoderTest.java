@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2025 Nameless Production Committee
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://opensource.org/licenses/mit-license.php
+ */
+package walhalla.loader.codec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import walhalla.loader.Samples;
+
+public class AllzEncoderTest {
+
+    private static byte[] roundTrip(byte[] data) {
+        byte[] encoded = AllzEncoder.encode(data);
+        assert AllzDecoder.declaredSize(ByteBuffer.wrap(encoded)) == data.length;
+        return AllzDecoder.decode(encoded);
+    }
+
+    @Test
+    void sizes() {
+        for (int size : new int[] {0, 1, 2, 3, 4, 5, 17, 100, 4096, 70_000}) {
+            byte[] payload = Samples.payload(size, size);
+            assert Arrays.equals(roundTrip(payload), payload) : size;
+        }
+    }
+
+    @Test
+    void incompressible() {
+        byte[] data = new byte[100_000];
+        new Random(3).nextBytes(data);
+        assert Arrays.equals(roundTrip(data), data);
+        assert AllzEncoder.encode(data).length < data.length * 1.01;
+    }
+
+    @Test
+    void runs() {
+        byte[] zeros = new byte[1 << 20];
+        assert Arrays.equals(roundTrip(zeros), zeros);
+        assert AllzEncoder.encode(zeros).length < 64;
+
+        byte[] pattern = "abcabcabcabcabcabcabcabcabcabcab".repeat(1000).getBytes(StandardCharsets.US_ASCII);
+        assert Arrays.equals(roundTrip(pattern), pattern);
+    }
+
+    @Test
+    void compressesBetterThanTheFixtureEncoder() {
+        byte[] payload = Samples.payload(200_000, 11);
+        byte[] encoded = AllzEncoder.encode(payload);
+        assert Arrays.equals(AllzDecoder.decode(encoded), payload);
+        assert encoded.length < Samples.allz(200_000, 11).length;
+    }
+
+    @Test
+    void table() {
+        byte[] table = Samples.altb(2000);
+        byte[] encoded = AllzEncoder.encode(table);
+        assert Arrays.equals(AllzDecoder.decode(encoded), table);
+        assert encoded.length < table.length * 3 / 4;
+    }
+
+    @Test
+    void range() {
+        byte[] payload = Samples.payload(10_000, 2);
+        byte[] encoded = AllzEncoder.encode(payload, 1000, 5000);
+        assert Arrays.equals(AllzDecoder.decode(encoded), Arrays.copyOfRange(payload, 1000, 6000));
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2025 Nameless Production Committee
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://opensource.org/licenses/mit-license.php
+ */
+package walhalla.loader.codec;
+
+import org.junit.jupiter.api.Test;
+
+public class BufferPoolTest {
+
+    @Test
+    void bestFit() {
+        BufferPool pool = new BufferPool(4, 1000);
+        byte[] large = new byte[900];
+        byte[] middle = new byte[300];
+        byte[] small = new byte[100];
+        pool.release(large);
+        pool.release(middle);
+        pool.release(small);
+
+        assert pool.acquire(50) == small;
+        assert pool.acquire(200) == middle;
+        assert pool.acquire(200) == large;
+        assert pool.acquire(200).length == 200;
+    }
+
+    @Test
+    void limit() {
+        BufferPool pool = new BufferPool(4, 1000);
+        byte[] huge = new byte[1001];
+        pool.release(huge);
+        assert pool.acquire(10) != huge;
+        assert pool.acquire(1001) != huge;
+
+        byte[] largest = new byte[1000];
+        pool.release(largest);
+        assert pool.acquire(1000) == largest;
+    }
+
+    @Test
+    void capacity() {
+        BufferPool pool = new BufferPool(2, 1000);
+        byte[] small = new byte[10];
+        byte[] middle = new byte[20];
+        byte[] large = new byte[30];
+        pool.release(small);
+        pool.release(middle);
+
+        // the smallest idle buffer is dropped for the larger one
+        pool.release(large);
+        assert pool.acquire(1) == middle;
+        assert pool.acquire(1) == large;
+        assert pool.acquire(1) != small;
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright (C) 2025 Nameless Production Committee
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://opensource.org/licenses/mit-license.php
+ */
+package walhalla.loader.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import walhalla.loader.Samples;
+
+public class Lz4DecoderTest {
+
+    private static byte[] decode(byte[] frame, int size) {
+        byte[] dst = new byte[size];
+        int decoded = Lz4Decoder.decode(frame, 0, frame.length, dst, 0, size);
+        return Arrays.copyOf(dst, decoded);
+    }
+
+    /**
+     * Decode the frame through the channel overload, checking that no write exceeds a block.
+     */
+    private static byte[] stream(byte[] frame, int maxBlock) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        WritableByteChannel channel = Channels.newChannel(out);
+        long size = Lz4Decoder.decode(frame, 0, frame.length, new WritableByteChannel() {
+
+            @Override
+            public int write(ByteBuffer src) throws IOException {
+                assert src.remaining() <= maxBlock;
+                return channel.write(src);
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+        assert size == out.size();
+        return out.toByteArray();
+    }
+
+    private static boolean rejects(byte[] frame, int size) {
+        try {
+            decode(frame, size);
+            return false;
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Build the frame of uncompressed blocks of the given sizes, filled with their block index.
+     */
+    private static byte[] rawFrame(int... sizes) {
+        ByteBuffer out = ByteBuffer.allocate(64 + Arrays.stream(sizes).sum() + sizes.length * 4).order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(0x184D2204).put((byte) 0x60).put((byte) 0x40);
+        out.put((byte) (XxHash32.hash(out.array(), 4, 2, 0) >>> 8));
+        for (int i = 0; i < sizes.length; i++) {
+            out.putInt(sizes[i] | 0x80000000);
+            for (int j = 0; j < sizes[i]; j++) {
+                out.put((byte) i);
+            }
+        }
+        out.putInt(0);
+        return Arrays.copyOf(out.array(), out.position());
+    }
+
+    @Test
+    void xxhash() {
+        byte[] text = "Nobody inspects the spammish repetition".getBytes(StandardCharsets.US_ASCII);
+        assert XxHash32.hash(new byte[0], 0, 0, 0) == 0x02CC5D05;
+        assert XxHash32.hash("a".getBytes(StandardCharsets.US_ASCII), 0, 1, 0) == 0x550D7456;
+        assert XxHash32.hash("abc".getBytes(StandardCharsets.US_ASCII), 0, 3, 0) == 0x32D153FF;
+        assert XxHash32.hash(text, 0, text.length, 0) == 0xE2293B2F;
+    }
+
+    @Test
+    void modes() {
+        for (int size : new int[] {0, 1, 13, 100, 70_000, 300_000}) {
+            byte[] content = Samples.payload(size, size);
+            for (boolean independent : new boolean[] {true, false}) {
+                for (boolean checksums : new boolean[] {true, false}) {
+                    byte[] frame = Samples.lz4(content, 4, independent, checksums);
+                    assert Arrays.equals(decode(frame, size), content) : size + " " + independent + " " + checksums;
+                }
+            }
+        }
+    }
+
+    @Test
+    void xxhashDigest() {
+        byte[] data = Samples.payload(1000, 7);
+        for (int piece : new int[] {1, 3, 15, 16, 17, 100, 1000}) {
+            XxHash32.Digest digest = new XxHash32.Digest(0);
+            for (int i = 0; i < data.length; i += piece) {
+                digest.update(data, i, Math.min(piece, data.length - i));
+            }
+            assert digest.value() == XxHash32.hash(data, 0, data.length, 0) : piece;
+        }
+        assert new XxHash32.Digest(0).value() == 0x02CC5D05;
+    }
+
+    @Test
+    void streamBlocks() throws IOException {
+        for (int size : new int[] {0, 1, 13, 100, 70_000, 300_000}) {
+            byte[] content = Samples.payload(size, size);
+            for (boolean independent : new boolean[] {true, false}) {
+                for (boolean checksums : new boolean[] {true, false}) {
+                    byte[] frame = Samples.lz4(content, 4, independent, checksums);
+                    assert Arrays.equals(stream(frame, 64 * 1024), content) : size + " " + independent + " " + checksums;
+                }
+            }
+        }
+
+        // the corrupt checksum is detected after the blocks are written
+        byte[] frame = Samples.lz4(Samples.payload(1000, 1), 4, false, true);
+        frame[frame.length - 1] ^= 1;
+        try {
+            stream(frame, 64 * 1024);
+            assert false;
+        } catch (IllegalArgumentException e) {
+            assert e.getMessage().contains("checksum");
+        }
+    }
+
+    @Test
+    void parallelBlocks() {
+        byte[] content = Samples.payload(3_000_000, 5);
+        byte[] frame = Samples.lz4(content, 4, true, true);
+        assert Lz4Decoder.PARALLEL_THRESHOLD <= content.length;
+        assert Arrays.equals(decode(frame, content.length), content);
+    }
+
+    @Test
+    void shortBlockFallsBackToSequential() {
+        int[] sizes = new int[20];
+        Arrays.fill(sizes, 65536);
+        sizes[3] = 1000;
+        byte[] decoded = decode(rawFrame(sizes), 20 * 65536);
+        assert decoded.length == 19 * 65536 + 1000;
+        assert decoded[3 * 65536 + 999] == 3;
+        assert decoded[3 * 65536 + 1000] == 4;
+        assert decoded[decoded.length - 1] == 19;
+    }
+
+    @Test
+    void uncompressible() {
+        byte[] content = new byte[5000];
+        new Random(1).nextBytes(content);
+        assert Arrays.equals(decode(Samples.lz4(content, 4, true, true), content.length), content);
+    }
+
+    @Test
+    void skippableAndConcatenatedFrames() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(Samples.lz4(Samples.payload(100, 1), 4, true, false));
+        out.writeBytes(new byte[] {0x53, 0x2A, 0x4D, 0x18, 3, 0, 0, 0, 9, 9, 9});
+        out.writeBytes(Samples.lz4(Samples.payload(200, 2), 5, false, true));
+        byte[] decoded = decode(out.toByteArray(), 300);
+        assert Arrays.equals(Arrays.copyOf(decoded, 100), Samples.payload(100, 1));
+        assert Arrays.equals(Arrays.copyOfRange(decoded, 100, 300), Samples.payload(200, 2));
+    }
+
+    @Test
+    void corrupt() {
+        byte[] content = Samples.payload(10_000, 9);
+        byte[] frame = Samples.lz4(content, 4, true, true);
+        assert !rejects(frame, content.length);
+
+        // the header checksum
+        byte[] header = frame.clone();
+        header[6] ^= 1;
+        assert rejects(header, content.length);
+
+        // the block checksum
+        byte[] block = frame.clone();
+        block[30] ^= 1;
+        assert rejects(block, content.length);
+
+        // the content checksum
+        byte[] tail = frame.clone();
+        tail[tail.length - 1] ^= 1;
+        assert rejects(tail, content.length);
+
+        // truncated
+        assert rejects(Arrays.copyOf(frame, frame.length - 5), content.length);
+
+        // too small destination
+        assert rejects(frame, content.length - 1);
+    }
+
+    @Test
+    void all4() throws IOException {
+        byte[] content = Samples.payload(200_000, 4);
+        assert Arrays.equals(All4Decoder.decode(Samples.all4(content)), content);
+
+        // from a direct buffer
+        byte[] file = Samples.all4(content, 5, false, true);
+        ByteBuffer direct = ByteBuffer.allocateDirect(file.length).put(file).flip();
+        assert Arrays.equals(All4Decoder.decode(direct), content);
+
+        // into a channel
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assert All4Decoder.decode(ByteBuffer.wrap(file), Channels.newChannel(out)) == content.length;
+        assert Arrays.equals(out.toByteArray(), content);
+        out.reset();
+        assert All4Decoder.decode(direct.rewind(), Channels.newChannel(out)) == content.length;
+        assert Arrays.equals(out.toByteArray(), content);
+    }
+}
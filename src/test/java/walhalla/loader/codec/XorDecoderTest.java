@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2025 Nameless Production Committee
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://opensource.org/licenses/mit-license.php
+ */
+package walhalla.loader.codec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class XorDecoderTest {
+
+    /** The keys with the sign bit clear and set, and a negative int whose low byte is used. */
+    private static final int[] KEYS = {0x00, 0x01, 0x7F, 0x80, 0xEA ^ 0x30, 0xFF, -0x26};
+
+    private static byte[] random(int size, long seed) {
+        byte[] data = new byte[size];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+
+    /**
+     * XOR the range byte by byte, the reference of the eight byte lanes.
+     */
+    private static byte[] expected(byte[] data, int offset, int length, int key) {
+        byte[] copy = data.clone();
+        for (int i = offset; i < offset + length; i++) {
+            copy[i] = (byte) (copy[i] ^ key);
+        }
+        return copy;
+    }
+
+    @Test
+    void array() {
+        for (int key : KEYS) {
+            for (int offset = 0; offset < 9; offset++) {
+                for (int length = 0; length <= 17; length++) {
+                    byte[] data = random(offset + length + 3, length);
+                    byte[] expected = expected(data, offset, length, key);
+
+                    XorDecoder.apply(data, offset, length, key);
+                    assert Arrays.equals(data, expected) : key + " " + offset + " " + length;
+                }
+            }
+        }
+    }
+
+    @Test
+    void heapBuffer() {
+        for (int key : KEYS) {
+            for (int offset = 0; offset < 9; offset++) {
+                for (int length = 0; length <= 17; length++) {
+                    byte[] data = random(offset + length + 5, length);
+                    byte[] expected = expected(data, offset + 1, length, key);
+
+                    // the slice has an array offset and the position starts one byte later
+                    ByteBuffer buffer = ByteBuffer.wrap(data, offset, length + 1).slice().position(1);
+                    XorDecoder.apply(buffer, key);
+                    assert buffer.position() == 1;
+                    assert Arrays.equals(data, expected) : key + " " + offset + " " + length;
+                }
+            }
+        }
+    }
+
+    @Test
+    void directBuffer() {
+        for (int key : KEYS) {
+            for (int offset = 0; offset < 9; offset++) {
+                for (int length = 0; length <= 17; length++) {
+                    byte[] data = random(offset + length + 3, length);
+                    byte[] expected = expected(data, offset, length, key);
+
+                    ByteBuffer buffer = ByteBuffer.allocateDirect(data.length).put(data).position(offset).limit(offset + length);
+                    XorDecoder.apply(buffer, key);
+                    assert buffer.position() == offset;
+
+                    byte[] actual = new byte[data.length];
+                    buffer.clear().get(actual);
+                    assert Arrays.equals(actual, expected) : key + " " + offset + " " + length;
+                }
+            }
+        }
+    }
+
+    @Test
+    void file(@TempDir Path dir) throws IOException {
+        byte[] data = random(37, 1);
+        Path file = dir.resolve("list");
+        Files.write(file, data);
+
+        for (int offset = 0; offset < 9; offset++) {
+            ByteBuffer decoded = XorDecoder.decode(file, 0xEA ^ 0x30, offset);
+            byte[] actual = new byte[decoded.remaining()];
+            decoded.get(actual);
+
+            byte[] expected = expected(data, offset, data.length - offset, 0xEA ^ 0x30);
+            assert Arrays.equals(actual, Arrays.copyOfRange(expected, offset, data.length)) : offset;
+        }
+
+        // the private mapping never reaches the file
+        assert Arrays.equals(Files.readAllBytes(file), data);
+    }
+}
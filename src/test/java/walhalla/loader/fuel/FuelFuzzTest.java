@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2025 Nameless Production Committee
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://opensource.org/licenses/mit-license.php
+ */
+package walhalla.loader.fuel;
+
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+
+import walhalla.loader.Fuzzer;
+import walhalla.loader.Samples;
+import walhalla.loader.codec.AllzDecoder;
+
+/**
+ * The fuel stack rejects malformed input by plain runtime exceptions on purpose, so those are
+ * expected in addition to the exceptions of {@link Fuzzer}. Their subclasses, such as
+ * {@link NullPointerException}, are still failures.
+ */
+public class FuelFuzzTest {
+
+    private static final int ITERATIONS = Integer.getInteger("walhalla.fuzz.iterations", 3000);
+
+    private static final long SEED = Long.getLong("walhalla.fuzz.seed", 20250101);
+
+    private static void fuzz(Consumer<byte[]> target, byte[]... seeds) {
+        Fuzzer fuzzer = new Fuzzer(SEED).seed(seeds).expectExactly(RuntimeException.class).run(ITERATIONS, target);
+        assert fuzzer.failures().isEmpty() : fuzzer;
+    }
+
+    @Test
+    void table() {
+        fuzz(ALTB::new, Samples.altb(4), Samples.altb(40));
+    }
+
+    @Test
+    void archive() {
+        fuzz(ALAR::new, Samples.alar(3, 4));
+    }
+
+    @Test
+    void texture() {
+        fuzz(ALTX::new, Samples.altx(8, 4));
+    }
+
+    @Test
+    void allz() {
+        fuzz(data -> {
+            if (AllzDecoder.declaredSize(ByteBuffer.wrap(data)) <= 1 << 24) {
+                new ALLZ(data);
+            }
+        }, Samples.allz(64, 1), Samples.allz(4096, 2));
+    }
+}
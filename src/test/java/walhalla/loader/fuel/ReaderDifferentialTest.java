@@ -0,0 +1,260 @@
+/*
+ * Copyright (C) 2025 Nameless Production Committee
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://opensource.org/licenses/mit-license.php
+ */
+package walhalla.loader.fuel;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import walhalla.loader.parser.AlParser;
+import walhalla.loader.parser.data.Alar;
+import walhalla.loader.parser.data.Alrd;
+import walhalla.loader.parser.data.Altb;
+import walhalla.loader.parser.data.TextObject;
+
+/**
+ * Both AL stacks read through the same core, so they must agree on the same bytes.
+ */
+public class ReaderDifferentialTest {
+
+    private static final String[][] COLUMNS = { {"CardID", "カードID"}, {"Attack", "攻撃力"}, {"Rare", "レア"}, {"Name", "名前"}};
+
+    private static final int[] TYPES = {1, 4, 5, 0x20};
+
+    private static final int[] OFFSETS = {0, 4, 8, 12};
+
+    private static final String[] NAMES = {"王子", "Sybilla", "王子", ""};
+
+    /**
+     * Build the ALTB table of form 0x1e with a string block and a table name.
+     */
+    private static byte[] altb() {
+        Out alrd = new Out();
+        alrd.ascii("ALRD").word(1).word(COLUMNS.length).word(16);
+        for (int i = 0; i < COLUMNS.length; i++) {
+            byte[] en = COLUMNS[i][0].getBytes(StandardCharsets.UTF_8);
+            byte[] jp = COLUMNS[i][1].getBytes(StandardCharsets.UTF_8);
+            alrd.word(OFFSETS[i]).bytes(TYPES[i], 3, en.length, jp.length).bytes(en).bytes(0).bytes(jp).bytes(0).align(32);
+            alrd.bytes(new byte[3]).align(32);
+        }
+
+        Out strings = new Out();
+        int[] stringOffsets = new int[NAMES.length];
+        for (int i = 0; i < NAMES.length; i++) {
+            stringOffsets[i] = strings.size();
+            strings.bytes(NAMES[i].getBytes(StandardCharsets.UTF_8)).bytes(0);
+        }
+
+        int entryOffset = 32 + alrd.size();
+        int stringsStart = entryOffset + NAMES.length * 16;
+        int namesStart = align(stringsStart + strings.size(), 4);
+
+        Out out = new Out();
+        out.ascii("ALTB").bytes(1, 0x1e).word(NAMES.length).word(0x20).word(entryOffset).dword(16);
+        out.dword(strings.size()).dword(stringsStart).dword(namesStart).ascii("UNIT");
+        out.bytes(alrd.toByteArray());
+        for (int i = 0; i < NAMES.length; i++) {
+            out.dword(i * 1000 - 1).dword(Float.floatToIntBits(i * 1.5f)).bytes(200 + i, 0, 0, 0).dword(stringOffsets[i]);
+        }
+        out.bytes(strings.toByteArray()).align(0);
+        byte[] name = "PlayerUnitTable".getBytes(StandardCharsets.UTF_8);
+        out.dword(1).bytes(name.length).bytes(name).align(0);
+        return out.toByteArray();
+    }
+
+    /**
+     * Build the ALAR archive of version 3 which holds the table and a text file.
+     */
+    private static byte[] alar(byte[] table, byte[] text) {
+        String[] names = {"PlayerUnitTable.atb", "readme.txt"};
+        byte[][] contents = {table, text};
+
+        Out toc = new Out();
+        int headerSize = align(18 + names.length * 2, 4);
+        int tocSize = 0;
+        for (String name : names) {
+            tocSize += align(18 + name.length() + 1, 4);
+        }
+
+        int address = headerSize + tocSize;
+        for (int i = 0; i < names.length; i++) {
+            toc.word(i).word(0).dword(address).dword(contents[i].length).bytes(new byte[6]).ascii(names[i]).bytes(0).align(0);
+            address = align(address + contents[i].length, 4);
+        }
+
+        Out out = new Out();
+        out.ascii("ALAR").bytes(3, 0).word(names.length).word(0).word(0).dword(0).word(headerSize + tocSize);
+        for (int i = 0; i < names.length; i++) {
+            out.word(0);
+        }
+        out.align(0).bytes(toc.toByteArray());
+        for (byte[] content : contents) {
+            out.bytes(content).align(0);
+        }
+        return out.toByteArray();
+    }
+
+    private static int align(int value, int alignment) {
+        return (value + alignment - 1) / alignment * alignment;
+    }
+
+    @Test
+    void table() {
+        byte[] data = altb();
+        Altb parser = (Altb) new AlParser().parse(data);
+        assert parser.rows.isEmpty();
+
+        // printing the table doesn't build the rows
+        assert parser.toString().contains("size=" + NAMES.length);
+        assert parser.rows.isEmpty();
+
+        // the rows are built from the columns on demand
+        assertSame(new ALTB(data), parser);
+        assert parser.rows.size() == NAMES.length;
+    }
+
+    @Test
+    void stringsAreShared() {
+        byte[] data = altb();
+        ALTB fuel = new ALTB(data);
+        Altb parser = (Altb) new AlParser().parse(data);
+
+        // the same text at different offsets and in different stacks is one instance
+        assert parser.rows().get(0).get(3).value == parser.rows().get(2).get(3).value;
+        assert parser.rows().get(0).get(3).value == fuel.getContents().get(2).get("Name");
+        assert parser.header.object.entries.get(0).nameEn == fuel.getHeaders().get(0).nameEN;
+    }
+
+    @Test
+    void columns() {
+        byte[] data = altb();
+        ALTB fuel = new ALTB(data);
+        Altb parser = (Altb) new AlParser().parse(data);
+        assert parser.rows.isEmpty();
+        assert parser.size == NAMES.length;
+
+        for (int i = 0; i < parser.size; i++) {
+            Map<String, Object> row = fuel.getContents().get(i);
+            assert parser.getInt(i, "CardID") == (Integer) row.get("CardID");
+            assert parser.getFloat(i, "Attack") == (Float) row.get("Attack");
+            assert parser.getInt(i, "Rare") == (Integer) row.get("Rare");
+            assert parser.getString(i, "Name").equals(row.get("Name"));
+        }
+        assert parser.has("Name");
+        assert !parser.has("Unknown");
+
+        // the rows are still available on demand
+        assertSame(fuel, parser);
+        assert parser.rows.size() == NAMES.length;
+    }
+
+    @Test
+    void tableFromDirectBuffer() {
+        byte[] data = altb();
+        ByteBuffer direct = ByteBuffer.allocateDirect(data.length).put(data).flip();
+        assertSame(new ALTB(data), (Altb) new AlParser().parse(direct));
+    }
+
+    @Test
+    void archive() {
+        byte[] text = "王子\nhello".getBytes(StandardCharsets.UTF_8);
+        byte[] data = alar(altb(), text);
+
+        ALAR fuel = new ALAR(data);
+        Alar parser = (Alar) new AlParser().parse(data);
+        assert fuel.getFiles().size() == parser.entries.size();
+
+        for (int i = 0; i < parser.entries.size(); i++) {
+            ALAREntry expected = fuel.getFiles().get(i);
+            Alar.AlarEntry actual = parser.entries.get(i);
+            assert expected.name.equals(actual.name);
+            assert expected.address == actual.toc.address;
+            assert expected.size == actual.toc.size;
+        }
+        assertSame(new ALTB(fuel.getFiles().get(0).content.getBuffer()), (Altb) parser.entries.get(0).value());
+        assert ((Text) fuel.getFiles().get(1).content).getContent().equals(((TextObject) parser.entries.get(1).value()).text);
+    }
+
+    @Test
+    void lazyArchive() {
+        byte[] data = alar(altb(), new byte[0]);
+        Alar parser = (Alar) new AlParser().lazy(true).parse(data);
+        assertSame(new ALTB(altb()), (Altb) parser.find("PlayerUnitTable.atb").get().value());
+    }
+
+    private static void assertSame(ALTB fuel, Altb parser) {
+        assert fuel.getName().equals(parser.name);
+
+        List<ALRDHeader> headers = fuel.getHeaders();
+        List<Alrd.AlrdEntry> columns = parser.header.object.entries;
+        assert headers.size() == columns.size();
+        for (int i = 0; i < headers.size(); i++) {
+            assert headers.get(i).nameEN.equals(columns.get(i).nameEn);
+            assert headers.get(i).nameJP.equals(columns.get(i).nameJp);
+            assert headers.get(i).type == columns.get(i).type;
+            assert headers.get(i).offset == columns.get(i).offset;
+        }
+
+        List<Map<String, Object>> rows = fuel.getContents();
+        assert rows.size() == parser.rows().size();
+        assert rows.size() == NAMES.length;
+        for (int i = 0; i < rows.size(); i++) {
+            for (Altb.DataEntry cell : parser.rows().get(i)) {
+                assert cell.value.equals(rows.get(i).get(cell.key.nameEn)) : cell + " " + rows.get(i);
+            }
+            assert rows.get(i).get("Name").equals(NAMES[i]);
+            assert rows.get(i).get("Rare").equals(200 + i);
+        }
+    }
+
+    /**
+     * Little-endian byte sink for building the fixtures.
+     */
+    private static class Out extends ByteArrayOutputStream {
+
+        Out bytes(int... values) {
+            for (int value : values) {
+                write(value);
+            }
+            return this;
+        }
+
+        Out bytes(byte[] values) {
+            writeBytes(values);
+            return this;
+        }
+
+        Out ascii(String value) {
+            return bytes(value.getBytes(StandardCharsets.US_ASCII));
+        }
+
+        Out word(int value) {
+            return bytes(value & 0xFF, (value >>> 8) & 0xFF);
+        }
+
+        Out dword(int value) {
+            return word(value).word(value >>> 16);
+        }
+
+        /**
+         * Pad to the multiple of 4 counted from the given base.
+         */
+        Out align(int base) {
+            while ((base + size()) % 4 != 0) {
+                write(0);
+            }
+            return this;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2025 Nameless Production Committee
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://opensource.org/licenses/mit-license.php
+ */
+package walhalla.loader.io;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+public class StringPoolTest {
+
+    @Test
+    void intern() {
+        StringPool pool = new StringPool();
+        String first = new String("王子");
+        String second = new String("王子");
+
+        assert pool.intern(first) == first;
+        assert pool.intern(second) == first;
+        assert pool.intern(null) == null;
+        assert pool.size() == 1;
+    }
+
+    @Test
+    void block() {
+        byte[] bytes = "abc\0王子\0abc\0".getBytes(StandardCharsets.UTF_8);
+        StringPool pool = new StringPool();
+        StringPool.Block block = pool.block(new ByteReader(bytes), 0, bytes.length);
+
+        assert block.get(0).equals("abc");
+        assert block.get(4).equals("王子");
+        assert block.get(0) == block.get(bytes.length - 4);
+        assert block.contains(bytes.length - 1);
+        assert !block.contains(bytes.length);
+    }
+
+    @Test
+    void unreachableStringsAreReleased() throws InterruptedException {
+        StringPool pool = new StringPool();
+        for (int i = 0; i < 10_000; i++) {
+            pool.intern("value" + i);
+        }
+
+        String kept = pool.intern("kept");
+        for (int i = 0; i < 50 && 1 < pool.size(); i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assert pool.size() < 10_000;
+        assert pool.intern(new String("kept")) == kept;
+    }
+}
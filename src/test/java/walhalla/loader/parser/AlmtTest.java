@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2025 Nameless Production Committee
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://opensource.org/licenses/mit-license.php
+ */
+package walhalla.loader.parser;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import walhalla.loader.parser.data.Almt;
+import walhalla.loader.parser.data.Almt.Field;
+import walhalla.loader.parser.data.Almt.Track;
+
+public class AlmtTest {
+
+    /**
+     * Build the animation of the single node "NODE" with a constant PatternNo and the streams of
+     * Alpha and Pos.
+     */
+    private static byte[] almt() {
+        ByteBuffer out = ByteBuffer.allocate(256).order(ByteOrder.LITTLE_ENDIAN);
+        out.put(ascii("ALMT")).put((byte) 0).put((byte) 0).putShort((short) 1).put((byte) 3).put((byte) 0).putShort((short) 0);
+        out.put(ascii("NODE")).putInt(0);
+
+        // each field name follows its two ids, and the names end on the alignment
+        out.putShort((short) 28).putShort((short) 36).putShort((short) 48);
+        out.put(new byte[2]).put(ascii("Alpha\0"));
+        out.put(new byte[2]).put(ascii("PatternNo\0"));
+        out.put(new byte[2]).put(ascii("Pos\0"));
+
+        out.putInt(0x12345678).putShort((short) 20).put((byte) 30).put((byte) 0).putShort((short) 0x2a);
+
+        // one constant and two streams
+        out.put((byte) 1).put((byte) 2).put((byte) 1).put((byte) 0).put((byte) 2).put((byte) 0);
+        out.putShort((short) 0).putShort((short) 0).putShort((short) 0);
+        out.putShort((short) 7);
+        out.putShort((short) 0).putFloat(0f).putShort((short) 10).putFloat(1f).putShort((short) 0xffff);
+        out.putShort((short) 0x494c);
+        out.putShort((short) 0).putInt(0).putInt(0).putInt(0);
+        out.putShort((short) 4).putInt(8).putInt(-4).putInt(2);
+        out.putShort((short) 0xffff);
+        return Arrays.copyOf(out.array(), out.position());
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    void tracks() {
+        Almt almt = (Almt) new AlParser().parse(almt());
+        assert almt.pattern == 0x12345678;
+        assert almt.length == 20;
+        assert almt.rate == 30;
+
+        Almt.AlmtEntry entry = almt.entries.get(0);
+        assert entry.name.equals("NODE");
+        assert entry.data.isEmpty();
+        assert entry.tracks.size() == 3;
+
+        Track pattern = entry.track(Field.PatternNo);
+        assert pattern.times == null;
+        assert pattern.size == 1;
+        assert pattern.getInt(0, 0) == 7;
+
+        Track alpha = entry.track(Field.Alpha);
+        assert Arrays.equals(alpha.times, new int[] {0, 10});
+        assert Arrays.equals(alpha.floats, new float[] {0f, 1f});
+
+        Track pos = entry.track(Field.Pos);
+        assert Arrays.equals(pos.times, new int[] {0, 4});
+        assert Arrays.equals(pos.ints, new int[] {0, 0, 0, 8, -4, 2});
+        assert entry.track(Field.Scale) == null;
+    }
+
+    @Test
+    void data() {
+        Almt almt = (Almt) new AlParser().parse(almt());
+        assert almt.entries.get(0).data.isEmpty();
+
+        // the objects are built on demand from the tracks
+        Map<String, List<Almt.StreamFrame>> data = almt.entries.get(0).data();
+        assert data.get("PatternNo").get(0).time == null;
+        assert data.get("PatternNo").get(0).data.equals((short) 7);
+        assert data.get("Alpha").get(1).time == 10;
+        assert data.get("Alpha").get(1).data.equals(1f);
+        assert Arrays.equals((int[]) data.get("Pos").get(1).data, new int[] {8, -4, 2});
+        assert data.get("Alpha").get(0).data.equals(0f);
+        assert almt.entries.get(0).data() == data;
+    }
+
+    @Test
+    void sample() {
+        Almt almt = (Almt) new AlParser().parse(almt());
+        Almt.AlmtEntry entry = almt.entries.get(0);
+
+        Track alpha = entry.track(Field.Alpha);
+        assert alpha.sample(-1, 0) == 0f;
+        assert alpha.sample(5, 0) == 0.5f;
+        assert alpha.sample(10, 0) == 1f;
+        assert alpha.sample(99, 0) == 1f;
+
+        float[] pos = entry.track(Field.Pos).sample(2, new float[3]);
+        assert pos[0] == 4f && pos[1] == -2f && pos[2] == 1f;
+
+        // constant fields hold their value
+        assert entry.track(Field.PatternNo).sample(15, 0) == 7f;
+    }
+
+    @Test
+    void stepFields() {
+        Track track = new Track(Field.PatternNo, true, 1);
+        for (int i = 0; i < 5; i++) {
+            track.setInt(track.add(i * 10), 0, i);
+        }
+        track.trim();
+        assert track.times.length == 5;
+        assert track.sample(0, 0) == 0f;
+        assert track.sample(19.9f, 0) == 1f;
+        assert track.sample(20, 0) == 2f;
+        assert track.sample(45, 0) == 4f;
+    }
+
+    @Test
+    void namesAreNotSampled() {
+        Track track = new Track(Field.ParentNodeID, true, 1);
+        track.setName(track.add(0), "ROOT");
+        assert track.getName(0).equals("ROOT");
+        assert track.get(0).equals("ROOT");
+
+        try {
+            track.sample(0, 0);
+            assert false;
+        } catch (UnsupportedOperationException e) {
+            assert e.getMessage().contains("ParentNodeID");
+        }
+    }
+}
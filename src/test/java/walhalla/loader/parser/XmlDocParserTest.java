@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2025 Nameless Production Committee
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://opensource.org/licenses/mit-license.php
+ */
+package walhalla.loader.parser;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+import org.junit.jupiter.api.Test;
+
+import walhalla.loader.codec.SnappyDecoder;
+import walhalla.loader.parser.data.Altb;
+
+public class XmlDocParserTest {
+
+    private static final String XML = """
+            <?xml version="1.0" encoding="utf-8"?>
+            <DA>
+              <CardID T="I"><v>1</v><v>2</v><v>3</v></CardID>
+              <Rare T="I"><v>0</v><v>5</v><v>7</v></Rare>
+              <Name T="S"><v>王子</v><v>アンナ</v><v></v></Name>
+              <Power T="F"><v>1.5</v><v>-2</v></Power>
+            </DA>
+            """;
+
+    /**
+     * Compress the data by Snappy literals only, both the short and the one byte longer form.
+     */
+    private static byte[] snappy(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int size = data.length;
+        for (; 0x80 <= size; size >>>= 7) {
+            out.write(size & 0x7F | 0x80);
+        }
+        out.write(size);
+
+        for (int i = 0; i < data.length;) {
+            int length = Math.min(i == 0 ? 60 : 256, data.length - i);
+            if (length <= 60) {
+                out.write((length - 1) << 2);
+            } else {
+                out.write(60 << 2);
+                out.write(length - 1);
+            }
+            out.write(data, i, length);
+            i += length;
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Obfuscate the data as the game does.
+     */
+    private static byte[] xor(byte[] data, int key) {
+        byte[] copy = data.clone();
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] ^= key;
+        }
+        return copy;
+    }
+
+    private static byte[] document(String xml, int key) {
+        return xor(snappy(xml.getBytes(StandardCharsets.UTF_8)), key);
+    }
+
+    private static void assertTable(Altb table) {
+        assert table.name.equals("cards");
+        assert table.size == 3;
+        assert table.columns.size() == 4;
+
+        assert table.getInt(0, "CardID") == 1;
+        assert table.getInt(2, "CardID") == 3;
+        assert table.getInt(1, "Rare") == 5;
+        assert table.getString(0, "Name").equals("王子");
+        assert table.getString(1, "Name").equals("アンナ");
+        assert table.getString(2, "Name").isEmpty();
+        assert table.getFloat(0, "Power") == 1.5f;
+        assert table.getFloat(1, "Power") == -2f;
+
+        // the short column is padded by the missing cells
+        assert table.column("Power").isMissing(2);
+        assert !table.column("Rare").isMissing(2);
+    }
+
+    @Test
+    void binary() {
+        assert Arrays.equals(XmlDocParser.decode(document(XML, 0x5A)), XML.getBytes(StandardCharsets.UTF_8));
+        assertTable(XmlDocParser.parse(document(XML, 0x5A), "cards"));
+    }
+
+    @Test
+    void base64() {
+        assertTable(XmlDocParser.parse(Base64.getEncoder().encode(document(XML, 0xC3)), "cards"));
+    }
+
+    @Test
+    void dataURI() {
+        String uri = "data:application/octet-stream;base64," + Base64.getMimeEncoder().encodeToString(document(XML, 0x80));
+        assertTable(XmlDocParser.parse(uri.getBytes(StandardCharsets.US_ASCII), "cards"));
+    }
+
+    @Test
+    void withoutDeclaration() {
+        String xml = XML.substring(XML.indexOf("<DA>"));
+        assertTable(XmlDocParser.parse(document(xml, 0x01), "cards"));
+    }
+
+    @Test
+    void notDocument() {
+        try {
+            XmlDocParser.parse(xor(snappy("<html></html>".getBytes(StandardCharsets.US_ASCII)), 0x5A), "cards");
+            assert false;
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    void unknownType() {
+        try {
+            XmlDocParser.parse(document("<DA><Name T=\"X\"><v>1</v></Name></DA>", 0x5A), "cards");
+            assert false;
+        } catch (IllegalArgumentException e) {
+            assert e.getMessage().contains("Name");
+        }
+    }
+
+    @Test
+    void snappyCopy() {
+        // "abc" and the copies of 6 bytes from 3 back, and of 5 bytes from 1 back with two byte offset
+        byte[] data = {14, 2 << 2, 'a', 'b', 'c', (2 << 2) | 1, 3, (4 << 2) | 2, 1, 0};
+        assert new String(SnappyDecoder.decode(data), StandardCharsets.US_ASCII).equals("abcabcabcccccc");
+    }
+
+    @Test
+    void snappyBroken() {
+        byte[][] broken = {{}, {5, 0, 'a'}, {3, (2 << 2) | 1, 3}, {3, 2 << 2, 'a', 'b', 'c', 0}, {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x7F}};
+        for (byte[] data : broken) {
+            try {
+                SnappyDecoder.decode(data);
+                assert false : Arrays.toString(data);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2025 Nameless Production Committee
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://opensource.org/licenses/mit-license.php
+ */
+package walhalla.loader.query;
+
+import static walhalla.loader.Samples.table;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import walhalla.loader.parser.data.Altb;
+
+public class QueryTest {
+
+    private final Altb cards = table("Cards", new String[] {"CardID", "Name", "Rare", "SkillID", "ClassID"}, //
+            new Object[] {1, "王子", 0, 0, 100}, //
+            new Object[] {2, "アンナ", 3, 10, 200}, //
+            new Object[] {3, "ソーマ", 5, 11, 100}, //
+            new Object[] {4, "ケイティ", 5, 12, 300});
+
+    private final Altb skills = table("Skills", new String[] {"SkillID", "Text"}, //
+            new Object[] {10, "攻撃力上昇"}, //
+            new Object[] {11, "防御力上昇"}, //
+            new Object[] {11, "防御力上昇（覚醒）"});
+
+    private final Altb classes = table("Classes", new String[] {"ClassID", "ClassName"}, //
+            new Object[] {100, "ソルジャー"}, //
+            new Object[] {200, "ヒーラー"});
+
+    @Test
+    void index() {
+        assert cards.index("CardID").first(3) == 2;
+        assert cards.index("CardID").first(9) == -1;
+        assert cards.index("CardID") == cards.index("CardID");
+
+        int[] rows = skills.index("SkillID").rows(11);
+        assert rows.length == 2 && rows[0] == 1 && rows[1] == 2;
+        assert skills.index("SkillID").rows(99).length == 0;
+
+        assert cards.index("Name").first("ソーマ") == 2;
+        assert cards.index("Name").first("なし") == -1;
+        assert cards.index("Rare").rows(5).length == 2;
+    }
+
+    @Test
+    void where() {
+        Query query = Query.from(cards).where("Rare", rare -> rare >= 5);
+        assert query.size() == 2;
+        assert query.get(0).getString(0, "Name").equals("ソーマ");
+        assert query.get(1).getString(0, "Name").equals("ケイティ");
+    }
+
+    @Test
+    void join() {
+        Query query = Query.from(cards).join("SkillID", skills, "SkillID");
+        assert query.size() == 3;
+        assert query.get(0).getString(1, "Text").equals("攻撃力上昇");
+        assert query.get(1).getString(0, "Name").equals("ソーマ");
+        assert query.get(2).getString(1, "Text").equals("防御力上昇（覚醒）");
+    }
+
+    @Test
+    void leftJoin() {
+        Query query = Query.from(cards).leftJoin("ClassID", classes, "ClassID").leftJoin("SkillID", skills, "SkillID");
+        List<Query.Row> rows = query.rows();
+        assert rows.size() == 5;
+
+        // 王子 has a class but no listed skill
+        assert rows.get(0).getString(1, "ClassName").equals("ソルジャー");
+        assert !rows.get(0).has(2);
+        assert rows.get(0).get(2, "Text") == null;
+
+        // ケイティ has an unknown class
+        Query.Row katie = rows.get(4);
+        assert !katie.has(1);
+        assert katie.getInt(0, "CardID") == 4;
+    }
+
+    @Test
+    void joinOnJoinedTable() {
+        Query query = Query.from(skills).join("SkillID", cards, "SkillID").join(1, "ClassID", classes, "ClassID", false);
+        assert query.size() == 3;
+        assert query.get(0).getString(2, "ClassName").equals("ヒーラー");
+        assert query.get(1).getString(2, "ClassName").equals("ソルジャー");
+    }
+
+    @Test
+    void joinOnStringWithoutStringKey() {
+        // the int keys never match the names
+        Query query = Query.from(cards).leftJoin("CardID", cards, "Name");
+        assert query.size() == 4;
+        assert !query.get(0).has(1);
+        assert Query.from(cards).join("CardID", cards, "Name").size() == 0;
+
+        // the offset outside the string block doesn't match either
+        Altb names = table("Names", new String[] {"Name"}, new Object[] {"王子"}, new Object[] {"アンナ"});
+        names.column("Name").setInt(1, 9999);
+        query = Query.from(names).leftJoin("Name", cards, "Name");
+        assert query.size() == 2;
+        assert query.get(0).getInt(1, "CardID") == 1;
+        assert !query.get(1).has(1);
+    }
+
+    @Test
+    void joinOnIntWithStringKey() {
+        // the offset of "a" is 1, which must not be taken for the card id 1
+        Altb names = table("Names", new String[] {"Name"}, new Object[] {""}, new Object[] {"a"}, new Object[] {"b"});
+        assert Query.from(names).join("Name", cards, "CardID").size() == 0;
+
+        Query query = Query.from(names).leftJoin("Name", cards, "CardID");
+        assert query.size() == 3;
+        assert !query.get(1).has(1);
+    }
+
+    @Test
+    void whereSkipsMissing() {
+        cards.column("Rare").setMissing(0);
+        assert Query.from(cards).where("Rare", rare -> rare == 0).size() == 0;
+        assert Query.from(cards).where("Rare", rare -> rare != 0).size() == 3;
+
+        cards.column("Name").setMissing(1);
+        assert Query.from(cards).whereString(0, "Name", name -> true).size() == 3;
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright (C) 2025 Nameless Production Committee
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://opensource.org/licenses/mit-license.php
+ */
+package walhalla.loader.writer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import walhalla.loader.Samples;
+import walhalla.loader.codec.AllzEncoder;
+import walhalla.loader.parser.AlParser;
+import walhalla.loader.parser.data.AlObject;
+import walhalla.loader.parser.data.Alar;
+import walhalla.loader.parser.data.Alrd;
+import walhalla.loader.parser.data.Altb;
+import walhalla.loader.parser.data.TextObject;
+
+public class AlEncoderTest {
+
+    private static byte[] roundTrip(byte[] data) {
+        return AlEncoder.encode(new AlParser().parse(data));
+    }
+
+    @Test
+    void tableIsIdentical() {
+        for (int rows : new int[] {0, 1, 100, 1000}) {
+            byte[] table = Samples.altb(rows);
+            assert Arrays.equals(roundTrip(table), table) : rows;
+        }
+    }
+
+    @Test
+    void archiveIsIdentical() {
+        byte[] archive = Samples.alar(7, 20);
+        assert Arrays.equals(roundTrip(archive), archive);
+        assert Arrays.equals(AlEncoder.encode(new AlParser().lazy(true).parse(archive)), archive);
+    }
+
+    @Test
+    void archiveKeepsUnknownEntries() {
+        byte[] texture = Samples.altx(8, 4);
+        byte[] archive = Samples.alar(new String[] {"Image.atx", "Table.atb"}, new byte[][] {texture, Samples.altb(3)});
+        assert Arrays.equals(roundTrip(archive), archive);
+    }
+
+    @Test
+    void modifiedTable() {
+        Altb table = (Altb) new AlParser().parse(Samples.altb(100));
+        table.rows().get(3).get(1).value = 12.5f;
+        table.rows().get(5).get(3).value = "新しい王子";
+        table.rows().get(6).get(3).value = "王子1";
+        table.rows().remove(99);
+        table.name = "RenamedTable";
+
+        Altb decoded = (Altb) new AlParser().parse(AlEncoder.encode(table));
+        assert decoded.size == 99;
+        assert decoded.name.equals("RenamedTable");
+        assert decoded.getFloat(3, "Attack") == 12.5f;
+        assert decoded.getString(5, "Name").equals("新しい王子");
+        assert decoded.getString(6, "Name").equals("王子1");
+        for (int row = 0; row < 99; row++) {
+            if (row != 3 && row != 5 && row != 6) {
+                assert decoded.rows().get(row).toString().equals(table.rows().get(row).toString()) : row;
+            }
+        }
+    }
+
+    @Test
+    void modifiedArchive() {
+        Alar archive = (Alar) new AlParser().lazy(true).parse(Samples.alar(4, 10));
+        ((Altb) archive.find("Table2.atb").get().value()).rows().get(0).get(0).value = 777;
+        ((TextObject) archive.find("Text1.txt").get().value()).text = "changed";
+
+        Alar decoded = (Alar) new AlParser().parse(AlEncoder.encode(archive));
+        assert decoded.entries.size() == 4;
+        assert ((Altb) decoded.find("Table2.atb").get().value()).getInt(0, "CardID") == 777;
+        assert ((Altb) decoded.find("Table0.atb").get().value()).getInt(0, "CardID") == -1;
+        assert ((TextObject) decoded.find("Text1.txt").get().value()).text.equals("changed");
+        assert ((TextObject) decoded.find("Text3.txt").get().value()).text.equals("王子\nhello 3");
+    }
+
+    @Test
+    void archiveVersion2() {
+        Alar archive = (Alar) new AlParser().parse(Samples.alar(3, 5));
+        archive.version = 2;
+
+        byte[] encoded = AlEncoder.encode(archive);
+        Alar decoded = (Alar) new AlParser().parse(encoded);
+        assert decoded.version == 2;
+        assert decoded.entries.size() == 3;
+        assert decoded.entries.get(1).name.equals("Text1.txt");
+        assert ((TextObject) decoded.entries.get(1).value()).text.equals("王子\nhello 1");
+        assert ((Altb) decoded.entries.get(2).value()).size == 5;
+        assert Arrays.equals(roundTrip(encoded), encoded);
+    }
+
+    @Test
+    void compressedEntry() {
+        byte[] table = Samples.altb(50);
+        byte[] archive = Samples.alar(new String[] {"Packed.atb"}, new byte[][] {AllzEncoder.encode(table)});
+
+        Alar alar = (Alar) new AlParser().parse(archive);
+        ((Altb) alar.entries.get(0).value()).rows().get(1).get(0).value = 5;
+
+        Alar decoded = (Alar) new AlParser().parse(AlEncoder.encode(alar));
+        assert decoded.entries.get(0).data.getInt(0) == 0x5A4C4C41;
+        assert ((Altb) decoded.entries.get(0).value()).getInt(1, "CardID") == 5;
+    }
+
+    @Test
+    void compressedEntryIsKept() {
+        byte[] archive = Samples.alar(new String[] {"Packed.atb", "Other.atb"}, new byte[][] {
+                Samples.allzLiteral(Samples.altb(30)), Samples.allzLiteral(Samples.altb(5))});
+
+        assert Arrays.equals(roundTrip(archive), archive);
+        assert Arrays.equals(AlEncoder.encode(new AlParser().lazy(true).parse(archive)), archive);
+
+        // only the modified entry is compressed again
+        Alar alar = (Alar) new AlParser().parse(archive);
+        ((Altb) alar.entries.get(0).value()).rows().get(1).get(0).value = 5;
+        byte[] encoded = AlEncoder.encode(alar);
+        Alar decoded = (Alar) new AlParser().lazy(true).parse(encoded);
+        assert !Arrays.equals(bytes(decoded.entries.get(0).data), Samples.allzLiteral(Samples.altb(30)));
+        assert Arrays.equals(bytes(decoded.entries.get(1).data), Samples.allzLiteral(Samples.altb(5)));
+        assert ((Altb) decoded.entries.get(0).value()).getInt(1, "CardID") == 5;
+    }
+
+    private static byte[] bytes(ByteBuffer data) {
+        byte[] bytes = new byte[data.remaining()];
+        data.duplicate().get(bytes);
+        return bytes;
+    }
+
+    @Test
+    void clearedTable() {
+        Altb table = (Altb) new AlParser().parse(Samples.altb(10));
+        table.rows().clear();
+
+        // the deleted rows are not built again from the columns
+        assert table.rows().isEmpty();
+        Altb decoded = (Altb) new AlParser().parse(AlEncoder.encode(table));
+        assert decoded.size == 0;
+    }
+
+    @Test
+    void handBuilt() {
+        Alrd.AlrdEntry id = new Alrd.AlrdEntry();
+        id.nameEn = "ID";
+        id.nameJp = "番号";
+        id.type = 1;
+        Alrd.AlrdEntry name = new Alrd.AlrdEntry();
+        name.nameEn = "Name";
+        name.nameJp = "名前";
+        name.type = 0x20;
+        name.offset = 4;
+
+        Altb table = new Altb();
+        table.type = "ALTB";
+        table.header = new Altb.Header();
+        table.header.name = "TEST";
+        table.header.object = new Alrd();
+        table.header.object.entries.addAll(List.of(id, name));
+        table.name = "HandBuilt";
+        for (int i = 0; i < 3; i++) {
+            List<Altb.DataEntry> row = new ArrayList<>();
+            row.add(cell(id, i));
+            row.add(cell(name, "row" + i % 2));
+            table.rows.add(row);
+        }
+
+        Alar archive = new Alar();
+        archive.type = "ALAR";
+        Alar.AlarEntry entry = new Alar.AlarEntry();
+        entry.name = "Hand.atb";
+        entry.value = table;
+        archive.entries.add(entry);
+
+        byte[] encoded = AlEncoder.encode(archive);
+        Altb decoded = (Altb) ((Alar) new AlParser().parse(encoded)).entries.get(0).value();
+        assert decoded.header.name.equals("TEST");
+        assert decoded.name.equals("HandBuilt");
+        assert decoded.rowSize == 8;
+        assert decoded.getInt(2, "ID") == 2;
+        assert decoded.getString(2, "Name").equals("row0");
+        assert decoded.strings.remaining() == 10;
+
+        // the parsed form is written as it is
+        assert Arrays.equals(roundTrip(encoded), encoded);
+    }
+
+    private static Altb.DataEntry cell(Alrd.AlrdEntry key, Object value) {
+        Altb.DataEntry cell = new Altb.DataEntry();
+        cell.key = key;
+        cell.value = value;
+        return cell;
+    }
+
+    @Test
+    void invalid() {
+        Altb table = (Altb) new AlParser().parse(Samples.altb(2));
+        table.form = 0x10;
+        try {
+            AlEncoder.encode(table);
+            assert false;
+        } catch (IllegalArgumentException e) {
+            assert e.getMessage().contains("no strings");
+        }
+
+        AlObject texture = new AlParser().parse(Samples.altx(8, 4));
+        try {
+            AlEncoder.encode(texture);
+            assert false;
+        } catch (IllegalArgumentException e) {
+            assert e.getMessage().contains("ALTX");
+        }
+    }
+
+    /**
+     * Write every table and archive of the raw assets back, if they are present, and compare them
+     * with the originals. Compressed files are compared in their decompressed form.
+     */
+    @Test
+    void rawAssets() throws IOException {
+        Path raw = Path.of(".data/raw");
+        if (!Files.isDirectory(raw)) {
+            return;
+        }
+
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(raw)) {
+            files = walk.filter(path -> path.toString().endsWith(".atb") || path.toString().endsWith(".aar")).collect(Collectors.toList());
+        }
+
+        List<String> mismatches = new ArrayList<>();
+        for (Path file : files) {
+            byte[] data = new AlParser().decompress(Files.readAllBytes(file));
+            String type = new String(data, 0, Math.min(4, data.length), StandardCharsets.US_ASCII);
+            if ((type.equals("ALTB") || type.equals("ALAR")) && !Arrays.equals(roundTrip(data), data)) {
+                mismatches.add(file.toString());
+            }
+        }
+        assert mismatches.isEmpty() : mismatches.size() + " of " + files.size() + " files differ: " + mismatches;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2025 Nameless Production Committee
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://opensource.org/licenses/mit-license.php
+ */
+package walhalla.loader.writer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import walhalla.loader.parser.data.AlObject;
+import walhalla.loader.parser.data.Alar;
+import walhalla.loader.parser.data.Alrd;
+import walhalla.loader.parser.data.Altb;
+import walhalla.loader.parser.data.TextObject;
+
+public class AlWriterTest {
+
+    @TempDir
+    Path root;
+
+    private static Alar archive(int size, int depth) {
+        Alar alar = new Alar();
+        alar.type = "ALAR";
+        for (int i = 0; i < size; i++) {
+            if (i % 3 == 0) {
+                TextObject text = new TextObject();
+                text.type = "TEXT";
+                text.text = "text " + i;
+                entry(alar, "readme" + i + ".txt", text);
+            } else if (i % 3 == 1 && 0 < depth) {
+                entry(alar, "nested" + i + ".aar", archive(5, depth - 1));
+            } else {
+                entry(alar, "table" + i + ".atb", table(i));
+            }
+        }
+        return alar;
+    }
+
+    private static void entry(Alar alar, String name, AlObject value) {
+        Alar.AlarEntry entry = new Alar.AlarEntry();
+        entry.name = name;
+        entry.value = value;
+        entry.toc = new Alar.TocEntry();
+        entry.toc.name = name;
+        entry.toc.size = 100;
+        alar.entries.add(entry);
+    }
+
+    private static Altb table(int seed) {
+        Alrd.AlrdEntry key = new Alrd.AlrdEntry();
+        key.nameEn = "CardID";
+        key.type = 1;
+
+        Altb table = new Altb();
+        table.type = "ALTB";
+        table.header = new Altb.Header();
+        table.header.name = "T" + seed;
+        table.size = seed * 10;
+        Altb.Column column = new Altb.Column(key, table.size, null);
+        for (int i = 0; i < table.size; i++) {
+            column.setInt(i, i * seed);
+        }
+        table.columns.add(column);
+        return table;
+    }
+
+    private static List<String> tree(Path root) throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            return files.map(path -> {
+                try {
+                    String name = root.relativize(path).toString().replace('\\', '/');
+                    return Files.isDirectory(path) ? name + "/" : name + " " + Arrays.hashCode(Files.readAllBytes(path));
+                } catch (IOException e) {
+                    throw new AssertionError(e);
+                }
+            }).sorted().collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    void parallelIsIdenticalToSequential() throws IOException {
+        Alar alar = archive(40, 2);
+        new AlWriter(root.resolve("sequential").toString()).write(alar);
+        AlWriter.Report report = new AlWriter(root.resolve("parallel").toString()).write(alar, 4);
+
+        List<String> expected = tree(root.resolve("sequential"));
+        assert 40 < expected.size();
+        assert expected.equals(tree(root.resolve("parallel")));
+        assert report.entries == 40;
+        assert report.bytes == 4000;
+    }
+
+    @Test
+    void nonArchive() throws IOException {
+        AlWriter.Report report = new AlWriter(root.resolve("table").toString()).write(table(3), 4);
+        assert report.entries == 1;
+        assert Files.isRegularFile(root.resolve("table/ALTB_T3.txt"));
+    }
+
+    @Test
+    void failureIsReportedAfterAllEntries() throws IOException {
+        Alar alar = archive(6, 0);
+        // the table file already exists as a directory
+        Files.createDirectories(root.resolve("out/003_table2.atb/ALTB_T2.txt"));
+
+        try {
+            new AlWriter(root.resolve("out").toString()).write(alar, 3);
+            assert false;
+        } catch (IOException e) {
+            // the other entries are written anyway
+            assert Files.isRegularFile(root.resolve("out/006_table5.atb/ALTB_T5.txt"));
+        }
+    }
+}
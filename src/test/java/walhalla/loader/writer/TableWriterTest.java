@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2025 Nameless Production Committee
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://opensource.org/licenses/mit-license.php
+ */
+package walhalla.loader.writer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import walhalla.loader.io.ByteReader;
+import walhalla.loader.io.StringPool;
+import walhalla.loader.parser.data.Alrd;
+import walhalla.loader.parser.data.Altb;
+
+public class TableWriterTest {
+
+    private static final String[] NAMES = {"王子", "Sybilla, \"the\"\nqueen", "", "tab\there"};
+
+    /**
+     * Build the table with int, float, byte, string and pattern columns, whose last cell of the
+     * int column is missing.
+     */
+    private static Altb table() {
+        ByteArrayOutputStream block = new ByteArrayOutputStream();
+        int[] offsets = new int[NAMES.length];
+        for (int i = 0; i < NAMES.length; i++) {
+            offsets[i] = block.size();
+            block.writeBytes(NAMES[i].getBytes(StandardCharsets.UTF_8));
+            block.write(0);
+        }
+        byte[] bytes = block.toByteArray();
+        StringPool.Block strings = StringPool.SHARED.block(new ByteReader(bytes), 0, bytes.length);
+
+        Altb table = new Altb();
+        table.name = "Test";
+        table.header = new Altb.Header();
+        table.header.name = "UNIT";
+        table.size = NAMES.length;
+
+        Altb.Column id = column(table, "CardID", 1, strings);
+        Altb.Column attack = column(table, "Attack", 4, strings);
+        Altb.Column rare = column(table, "Rare", 5, strings);
+        Altb.Column name = column(table, "Name", 0x20, strings);
+        Altb.Column pattern = column(table, "PatternID", 1, strings);
+        for (int i = 0; i < NAMES.length; i++) {
+            id.setInt(i, i * 12345 - 20000);
+            attack.setFloat(i, i == 2 ? Float.NaN : i * 1.5f);
+            rare.setByte(i, 250 + i);
+            name.setInt(i, offsets[i]);
+            pattern.setInt(i, 0xAB << (i * 4));
+        }
+        id.setMissing(NAMES.length - 1);
+        return table;
+    }
+
+    private static Altb.Column column(Altb table, String name, int type, StringPool.Block strings) {
+        Alrd.AlrdEntry key = new Alrd.AlrdEntry();
+        key.nameEn = name;
+        key.type = type;
+        Altb.Column column = new Altb.Column(key, table.size, strings);
+        table.columns.add(column);
+        return column;
+    }
+
+    private static String write(Altb table, TableFormat format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TableWriter.write(table, format, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The table rendering of the former AlWriter, which built the whole table in memory.
+     */
+    private static String legacy(Altb altb) {
+        StringBuilder sb = new StringBuilder();
+        List<Integer> widths = new ArrayList<>();
+        for (Altb.Column column : altb.columns) {
+            widths.add(column.key.nameEn.length());
+        }
+        for (List<Altb.DataEntry> row : altb.rows()) {
+            for (int i = 0; i < row.size(); i++) {
+                widths.set(i, Math.max(widths.get(i), legacyValue(row.get(i).value, row.get(i).key.nameEn).length()));
+            }
+        }
+        for (int i = 0; i < altb.columns.size(); i++) {
+            Alrd.AlrdEntry header = altb.columns.get(i).key;
+            sb.append(legacyPad(header.nameEn, widths.get(i), header.type == 0x20)).append(" ");
+        }
+        sb.append("\n");
+        for (List<Altb.DataEntry> row : altb.rows()) {
+            for (int i = 0; i < row.size(); i++) {
+                Altb.DataEntry entry = row.get(i);
+                sb.append(legacyPad(legacyValue(entry.value, entry.key.nameEn), widths.get(i), entry.key.type == 0x20)).append(" ");
+            }
+            sb.append("\n");
+        }
+        return sb.toString();
+    }
+
+    private static String legacyPad(String str, int n, boolean left) {
+        String padding = " ".repeat(Math.max(0, n - str.length()));
+        return left ? str + padding : padding + str;
+    }
+
+    private static String legacyValue(Object value, String key) {
+        if (value instanceof String) {
+            return "\"" + ((String) value).replace("\n", "\\n") + "\"";
+        }
+        if (key.equals("PatternID")) {
+            return String.format("0x%08x", (int) value);
+        }
+        return String.valueOf(value);
+    }
+
+    @Test
+    void text() throws IOException {
+        Altb table = table();
+        String text = write(table, TableFormat.TEXT);
+        assert text.equals(legacy(table)) : text;
+        assert text.contains("0x0000ab00");
+        assert text.contains("\"Sybilla, \"the\"\\nqueen\"");
+    }
+
+    @Test
+    void csv() throws IOException {
+        String[] lines = write(table(), TableFormat.CSV).split("\r\n", -1);
+        assert lines[0].equals("CardID,Attack,Rare,Name,PatternID");
+        assert lines[1].equals("-20000,0.0,250,王子,171");
+        assert lines[2].equals("-7655,1.5,251,\"Sybilla, \"\"the\"\"\nqueen\",2736");
+        assert lines[3].equals("4690,NaN,252,,43776");
+        assert lines[4].equals(",4.5,253,tab\there,700416");
+        assert lines[5].isEmpty();
+    }
+
+    @Test
+    void ndjson() throws IOException {
+        String[] lines = write(table(), TableFormat.NDJSON).split("\n", -1);
+        assert lines[0].equals("{\"CardID\":-20000,\"Attack\":0.0,\"Rare\":250,\"Name\":\"王子\",\"PatternID\":171}");
+        assert lines[1].equals("{\"CardID\":-7655,\"Attack\":1.5,\"Rare\":251,\"Name\":\"Sybilla, \\\"the\\\"\\nqueen\",\"PatternID\":2736}");
+        assert lines[2].contains("\"Attack\":null");
+        assert lines[3].startsWith("{\"CardID\":null,");
+        assert lines[3].contains("\"tab\\there\"");
+        assert lines[4].isEmpty();
+    }
+
+    @Test
+    void columnar() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TableWriter.write(table(), TableFormat.COLUMNAR, out);
+        ByteBuffer in = ByteBuffer.wrap(out.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+
+        assert in.getInt() == 0x4C4F4357; // WCOL
+        assert in.getInt() == 1;
+        assert in.getInt() == NAMES.length;
+        assert in.getInt() == 5;
+        String[] names = {"CardID", "Attack", "Rare", "Name", "PatternID"};
+        int[] types = {1, 4, 5, 0x20, 1};
+        for (int i = 0; i < names.length; i++) {
+            assert string(in).equals(names[i]);
+            assert in.get() == types[i];
+        }
+
+        // CardID, the last cell is missing
+        assert in.get() == 0b1000;
+        assert in.getInt() == -20000 && in.getInt() == -7655 && in.getInt() == 4690 && in.getInt() == 0;
+
+        // Attack
+        assert in.get() == 0;
+        assert in.getFloat() == 0f && in.getFloat() == 1.5f && Float.isNaN(in.getFloat()) && in.getFloat() == 4.5f;
+
+        // Rare
+        assert in.get() == 0;
+        assert (in.get() & 0xFF) == 250 && (in.get() & 0xFF) == 251 && (in.get() & 0xFF) == 252 && (in.get() & 0xFF) == 253;
+
+        // Name
+        assert in.get() == 0;
+        for (String name : NAMES) {
+            assert string(in).equals(name);
+        }
+
+        // PatternID
+        assert in.get() == 0;
+        assert in.getInt() == 0xAB && in.getInt() == 0xAB0 && in.getInt() == 0xAB00 && in.getInt() == 0xAB000;
+        assert !in.hasRemaining();
+    }
+
+    private static String string(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void largeTableStreamsThroughTheBuffer() throws IOException {
+        Altb table = new Altb();
+        table.size = 100_000;
+        Altb.Column id = column(table, "CardID", 1, null);
+        for (int i = 0; i < table.size; i++) {
+            id.setInt(i, i);
+        }
+
+        String text = write(table, TableFormat.TEXT);
+        assert text.equals(legacy(table));
+        assert text.length() == 8 + table.size * 8;
+    }
+}
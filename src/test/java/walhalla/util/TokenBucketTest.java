@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2025 Nameless Production Committee
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://opensource.org/licenses/mit-license.php
+ */
+package walhalla.util;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void burst() {
+        TokenBucket bucket = new TokenBucket(Duration.ofSeconds(1), 3);
+        assert bucket.reserve() == 0;
+        assert bucket.reserve() == 0;
+        assert bucket.reserve() == 0;
+
+        long wait = bucket.reserve();
+        assert SECOND / 2 < wait && wait <= SECOND : wait;
+        wait = bucket.reserve();
+        assert SECOND * 3 / 2 < wait && wait <= 2 * SECOND : wait;
+    }
+
+    @Test
+    void single() {
+        TokenBucket bucket = new TokenBucket(Duration.ofSeconds(1), 1);
+        assert bucket.reserve() == 0;
+
+        long wait = bucket.reserve();
+        assert SECOND / 2 < wait && wait <= SECOND : wait;
+    }
+
+    @Test
+    void noInterval() {
+        TokenBucket bucket = new TokenBucket(Duration.ZERO, 1);
+        for (int i = 0; i < 100; i++) {
+            assert bucket.reserve() == 0;
+        }
+    }
+
+    @Test
+    void acquire() {
+        TokenBucket bucket = new TokenBucket(Duration.ofMillis(50), 1);
+        long start = System.nanoTime();
+        for (int i = 0; i < 4; i++) {
+            bucket.acquire();
+        }
+        assert TimeUnit.MILLISECONDS.toNanos(140) <= System.nanoTime() - start;
+    }
+
+    @Test
+    void schedule() {
+        TokenBucket bucket = new TokenBucket(Duration.ofMinutes(1), 1);
+        assert bucket.schedule().isDone();
+
+        // the caller is not blocked, the permits wait in the queue
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            futures.add(bucket.schedule());
+        }
+        assert futures.stream().noneMatch(CompletableFuture::isDone);
+        assert bucket.queued() == 3;
+    }
+
+    @Test
+    void scheduleCompletes() {
+        TokenBucket bucket = new TokenBucket(Duration.ofMillis(50), 1);
+        long start = System.nanoTime();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(bucket.schedule());
+        }
+        futures.forEach(CompletableFuture::join);
+        assert TimeUnit.MILLISECONDS.toNanos(140) <= System.nanoTime() - start;
+        assert bucket.queued() == 0;
+    }
+
+    @Test
+    void metrics() {
+        TokenBucket bucket = new TokenBucket(Duration.ofSeconds(1), 2);
+        assert bucket.granted() == 0;
+        assert bucket.waited().isZero();
+
+        bucket.reserve();
+        bucket.reserve();
+        bucket.reserve();
+        assert bucket.granted() == 3;
+        assert Duration.ofMillis(500).compareTo(bucket.waited()) < 0;
+        assert bucket.waited().compareTo(Duration.ofSeconds(1)) <= 0;
+    }
+
+    @Test
+    void concurrent() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(Duration.ofSeconds(1), 1);
+        ConcurrentLinkedQueue<Long> waits = new ConcurrentLinkedQueue<>();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < 10; j++) {
+                    waits.add(bucket.reserve());
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // every reservation gets its own slot
+        long[] sorted = waits.stream().mapToLong(Long::longValue).sorted().toArray();
+        assert sorted.length == 80;
+        assert sorted[0] == 0;
+        for (int i = 1; i < sorted.length; i++) {
+            assert SECOND / 2 < sorted[i] - sorted[i - 1] : i;
+        }
+    }
+
+    @Test
+    void invalid() {
+        try {
+            new TokenBucket(Duration.ofSeconds(-1), 1);
+            assert false;
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            new TokenBucket(Duration.ofSeconds(1), 0);
+            assert false;
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
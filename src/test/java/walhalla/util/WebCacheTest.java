@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2025 Nameless Production Committee
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://opensource.org/licenses/mit-license.php
+ */
+package walhalla.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class WebCacheTest {
+
+    @TempDir
+    Path root;
+
+    private List<Path> files() throws IOException {
+        try (Stream<Path> walk = Files.walk(root)) {
+            return walk.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    void readWrite() {
+        WebCache cache = new WebCache(root, Long.MAX_VALUE);
+        assert cache.read("https://example.com/a") == null;
+
+        long now = System.currentTimeMillis();
+        cache.write("https://example.com/a", "王子 ".repeat(100_000), Map.of("ETag", "\"v1\""));
+
+        WebCache.Entry entry = cache.read("https://example.com/a");
+        assert entry.uri().equals("https://example.com/a");
+        assert entry.text().equals("王子 ".repeat(100_000));
+        assert entry.validators().equals(Map.of("ETag", "\"v1\""));
+        assert now <= entry.stored();
+
+        // other instances see the same entries
+        assert new WebCache(root, Long.MAX_VALUE).read("https://example.com/a").text().equals(entry.text());
+        assert cache.read("https://example.com/b") == null;
+    }
+
+    @Test
+    void layout() throws IOException {
+        WebCache cache = new WebCache(root, Long.MAX_VALUE);
+        cache.write("https://example.com/a", "x".repeat(10_000), Map.of());
+
+        List<Path> files = files();
+        assert files.size() == 1;
+        Path file = files.get(0);
+        assert file.getParent().getParent().equals(root);
+        assert file.getParent().getFileName().toString().length() == 2;
+        assert (file.getParent().getFileName().toString() + file.getFileName()).length() == 64;
+
+        // compressed
+        assert Files.size(file) < 1000;
+        assert cache.size() == Files.size(file);
+    }
+
+    @Test
+    void overwrite() throws IOException {
+        WebCache cache = new WebCache(root, Long.MAX_VALUE);
+        cache.write("https://example.com/a", "old", Map.of("ETag", "\"v1\""));
+        cache.write("https://example.com/a", "new", Map.of());
+
+        assert cache.read("https://example.com/a").text().equals("new");
+        assert cache.read("https://example.com/a").validators().isEmpty();
+        assert files().size() == 1;
+        assert cache.size() == Files.size(files().get(0));
+    }
+
+    @Test
+    void broken() throws IOException {
+        WebCache cache = new WebCache(root, Long.MAX_VALUE);
+        cache.write("https://example.com/a", "text", Map.of());
+
+        Path file = files().get(0);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+        assert cache.read("https://example.com/a") == null;
+
+        Files.write(file, new byte[] {1, 2, 3});
+        assert cache.read("https://example.com/a") == null;
+    }
+
+    @Test
+    void evictLeastRecentlyUsed() throws IOException {
+        WebCache cache = new WebCache(root, 300);
+        for (int i = 0; i < 4; i++) {
+            cache.write("https://example.com/" + i, "body" + i, Map.of());
+        }
+        long entry = cache.size() / 4;
+
+        // age the entries, then use the oldest one
+        for (Path file : files()) {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+        }
+        assert cache.read("https://example.com/0") != null;
+
+        cache = new WebCache(root, entry * 4);
+        cache.write("https://example.com/4", "body4", Map.of());
+
+        assert cache.size() <= entry * 4 * 0.9;
+        assert cache.read("https://example.com/0") != null;
+        assert cache.read("https://example.com/4") != null;
+        assert cache.read("https://example.com/1") == null;
+        assert cache.size() == files().stream().mapToLong(file -> file.toFile().length()).sum();
+    }
+
+    @Test
+    void touch() throws IOException, InterruptedException {
+        WebCache cache = new WebCache(root, Long.MAX_VALUE);
+        assert !cache.touch("https://example.com/a");
+
+        cache.write("https://example.com/a", "王子".repeat(1000), Map.of("ETag", "\"v1\""));
+        WebCache.Entry before = cache.read("https://example.com/a");
+        byte[] bytes = Files.readAllBytes(files().get(0));
+
+        Thread.sleep(5);
+        assert cache.touch("https://example.com/a");
+
+        WebCache.Entry after = cache.read("https://example.com/a");
+        assert before.stored() < after.stored();
+        assert after.text().equals(before.text());
+        assert after.validators().equals(before.validators());
+
+        // only the time in the header is rewritten
+        byte[] touched = Files.readAllBytes(files().get(0));
+        assert touched.length == bytes.length;
+        assert Arrays.equals(touched, 12, touched.length, bytes, 12, bytes.length);
+    }
+
+    @Test
+    void removeLegacyEntries() throws IOException {
+        Files.writeString(root.resolve("12345"), "legacy");
+        Files.writeString(root.resolve("-678.validator"), "ETag: \"v1\"");
+        Files.writeString(root.resolve("README.txt"), "keep");
+
+        WebCache cache = new WebCache(root, Long.MAX_VALUE);
+        cache.write("https://example.com/a", "text", Map.of());
+
+        assert Files.notExists(root.resolve("12345"));
+        assert Files.notExists(root.resolve("-678.validator"));
+        assert Files.exists(root.resolve("README.txt"));
+        assert cache.read("https://example.com/a").text().equals("text");
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2025 Nameless Production Committee
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://opensource.org/licenses/mit-license.php
+ */
+package walhalla.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+public class WebPageTest {
+
+    @TempDir
+    Path dir;
+
+    /** The received requests as "path If-None-Match". */
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+
+    /** The gate which holds the responses of /slow. */
+    private final CountDownLatch gate = new CountDownLatch(1);
+
+    /** The status of /flaky. */
+    private volatile int flaky = 500;
+
+    private HttpServer server;
+
+    private String base;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::serve);
+        server.start();
+        base = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        WebPage.use(dir, HttpClient.newHttpClient());
+        WebPage.limit("127.0.0.1", Duration.ofMillis(1), 100);
+    }
+
+    @AfterEach
+    void stop() {
+        gate.countDown();
+        server.stop(0);
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String condition = exchange.getRequestHeaders().getFirst("If-None-Match");
+        requests.add(path + " " + condition);
+
+        switch (path) {
+        case "/slow" -> {
+            try {
+                gate.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            send(exchange, 200, "slow");
+        }
+        case "/etag" -> {
+            if ("\"v1\"".equals(condition)) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+            } else {
+                exchange.getResponseHeaders().add("ETag", "\"v1\"");
+                send(exchange, 200, "tagged");
+            }
+        }
+        case "/flaky" -> send(exchange, flaky, "recovered");
+        default -> send(exchange, 404, "");
+        }
+    }
+
+    private void send(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] body = text.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static Throwable failure(CompletableFuture<String> future) throws Exception {
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            throw new AssertionError("The download must fail.");
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+    }
+
+    @Test
+    void coalesce() throws Exception {
+        // the server holds the response, so the second call joins the running download
+        CompletableFuture<String> first = WebPage.fetchTextAsync(base + "/slow");
+        CompletableFuture<String> second = WebPage.fetchTextAsync(base + "/slow");
+        assert WebPage.DOWNLOADING.containsKey(base + "/slow");
+        gate.countDown();
+
+        assert first.get(10, TimeUnit.SECONDS).equals("slow");
+        assert second.get(10, TimeUnit.SECONDS).equals("slow");
+        assert requests.equals(List.of("/slow null"));
+        assert !WebPage.DOWNLOADING.containsKey(base + "/slow");
+
+        // the cached text is served without a request
+        assert WebPage.fetchText(base + "/slow").equals("slow");
+        assert requests.size() == 1;
+    }
+
+    @Test
+    void revalidate() {
+        assert WebPage.fetchText(base + "/etag").equals("tagged");
+
+        // the expired entry is revalidated by its ETag and kept as it is
+        assert WebPage.fetchText(base + "/etag", 0).equals("tagged");
+        assert requests.equals(List.of("/etag null", "/etag \"v1\""));
+
+        // the 304 refreshed the entry, so it is fresh again
+        assert WebPage.fetchText(base + "/etag", 60_000).equals("tagged");
+        assert requests.size() == 2;
+    }
+
+    @Test
+    void invalidURI() throws Exception {
+        String uri = base + "/bad|uri";
+        assert failure(WebPage.fetchTextAsync(uri)) instanceof IllegalArgumentException;
+        assert !WebPage.DOWNLOADING.containsKey(uri);
+        assert requests.isEmpty();
+
+        // the failure is not shared with the later calls
+        assert failure(WebPage.fetchTextAsync(uri)) instanceof IllegalArgumentException;
+    }
+
+    @Test
+    void failureIsNotCached() throws Exception {
+        assert failure(WebPage.fetchTextAsync(base + "/flaky")) instanceof IllegalStateException;
+        assert !WebPage.DOWNLOADING.containsKey(base + "/flaky");
+
+        flaky = 200;
+        assert WebPage.fetchText(base + "/flaky").equals("recovered");
+        assert requests.size() == 2;
+    }
+}